@@ -0,0 +1,195 @@
+package dao.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.entity.Libro;
+import dao.service.ApiServer;
+import dao.service.LibraryService;
+import dao.util.Reservations;
+
+/**
+ * Reservas y devoluciones concurrentes a través de la API HTTP de
+ * {@link ApiServer}, frente a las mismas llamadas a {@link LibraryService} dentro
+ * del proceso. {@value #PUESTOS} puestos reservan y devuelven cada uno su propio
+ * libro, de modo que no compiten por las filas y la diferencia entre ambos es el
+ * coste de HTTP y del reparto de peticiones entre hilos virtuales. El resultado
+ * son ciclos de reserva y devolución por segundo.
+ *
+ * El servidor escucha en un puerto libre e inicia sesión con el administrador
+ * generado ({@code usuario1000}), que reserva en nombre de cada puesto.
+ *
+ * Como en {@link ReservationStressBenchmark}, las reservas que H2 deshace por
+ * repetir un valor de identidad (la API responde 409) se cuentan aparte como
+ * abortadas y se imprimen al final de cada iteración.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(ApiThroughputBenchmark.PUESTOS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ApiThroughputBenchmark {
+    static final int PUESTOS = 32;
+    private static final int ADMIN = 1000;
+    // Fuera de los usuarios y libros del resto de benchmarks
+    private static final long FIRST_USER = 400;
+    private static final long LIBRO_OFFSET = 40_000;
+    private static final Pattern RESULTADO = Pattern.compile("\"resultado\":\"(\\w+)\"");
+
+    private SessionFactory sessionFactory;
+    private ApiServer api;
+    private HttpClient client;
+    private String baseUri;
+    private String token;
+    private final AtomicInteger puestos = new AtomicInteger();
+    private final AtomicLong aborted = new AtomicLong();
+
+    // Libro y usuario de cada hilo
+    @State(Scope.Thread)
+    public static class Puesto {
+        long usuarioId;
+        long libroId;
+
+        @Setup
+        public void assign(ApiThroughputBenchmark benchmark) {
+            int i = benchmark.puestos.getAndIncrement();
+            usuarioId = FIRST_USER + i;
+            libroId = BenchmarkDatabase.LIBROS - LIBRO_OFFSET - i;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() throws IOException, InterruptedException {
+        sessionFactory = BenchmarkDatabase.start();
+        reset();
+        api = ApiServer.start(0);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUri = "http://localhost:" + api.getPort() + "/api/";
+        HttpResponse<String> login = client.send(HttpRequest.newBuilder(URI.create(baseUri + "sesiones"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("login=" + BenchmarkDatabase.usuario(ADMIN) + "&password="
+                        + BenchmarkDatabase.clave(ADMIN)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = Pattern.compile("\"token\":\"([\\w-]+)\"").matcher(login.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Inicio de sesión fallido: " + login.body());
+        }
+        token = matcher.group(1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("  [%,d reservas abortadas por H2]%n", aborted.getAndSet(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        api.stop();
+        client.close();
+    }
+
+    @Benchmark
+    public String http(Puesto puesto) throws IOException, InterruptedException {
+        String reserva = post(puesto, "reserva");
+        if (reserva == null) {
+            aborted.incrementAndGet();
+            return null;
+        }
+        expect(reserva, Reservations.Outcome.RESERVADO.name());
+        return expect(post(puesto, "devolucion"), Reservations.Devolucion.DISPONIBLE.name());
+    }
+
+    @Benchmark
+    public Reservations.Devolucion direct(Puesto puesto) {
+        try {
+            expect(LibraryService.reserve(puesto.libroId, puesto.usuarioId).name(),
+                    Reservations.Outcome.RESERVADO.name());
+        } catch (ConstraintViolationException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("PRIMARY KEY")) {
+                throw e;
+            }
+            aborted.incrementAndGet();
+            return null;
+        }
+        Reservations.Devolucion devolucion = LibraryService.giveBack(puesto.libroId, puesto.usuarioId);
+        expect(devolucion.name(), Reservations.Devolucion.DISPONIBLE.name());
+        return devolucion;
+    }
+
+    // Devuelve el resultado, o null si la API ha respondido con un conflicto
+    private String post(Puesto puesto, String action) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "libros/" + puesto.libroId + "/" + action))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString("usuario=" + puesto.usuarioId))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 409) {
+            return null;
+        }
+        Matcher matcher = RESULTADO.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Respuesta " + response.statusCode() + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static String expect(String resultado, String esperado) {
+        if (!resultado.equals(esperado)) {
+            throw new IllegalStateException("Resultado " + resultado + ", se esperaba " + esperado);
+        }
+        return resultado;
+    }
+
+    // Libros de los puestos disponibles y sin préstamos ni reservas de sus usuarios
+    private void reset() {
+        long lastBook = BenchmarkDatabase.LIBROS - LIBRO_OFFSET;
+        long firstBook = lastBook - PUESTOS + 1;
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                for (String sql : new String[] { "DELETE FROM reservas WHERE LibroID BETWEEN ? AND ?",
+                        "DELETE FROM prestamos WHERE libroID BETWEEN ? AND ? AND usuarioID BETWEEN "
+                                + FIRST_USER + " AND " + (FIRST_USER + PUESTOS - 1),
+                        "UPDATE libros SET disponibilidad = TRUE WHERE id BETWEEN ? AND ?" }) {
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        statement.setLong(1, firstBook);
+                        statement.setLong(2, lastBook);
+                        statement.executeUpdate();
+                    }
+                }
+            });
+            transaction.commit();
+        }
+        // Los cambios por JDBC no pasan por la caché de segundo nivel
+        sessionFactory.getCache().evictEntityData(Libro.class);
+    }
+}
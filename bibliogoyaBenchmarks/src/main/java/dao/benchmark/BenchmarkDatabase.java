@@ -0,0 +1,236 @@
+package dao.benchmark;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import dao.util.HibernateUtil;
+
+/**
+ * Base de datos H2 embebida (en modo MySQL) con volúmenes realistas para los
+ * benchmarks. El esquema lo crean las mismas migraciones que usa la aplicación y
+ * los datos se generan una sola vez por combinación de volúmenes; las siguientes
+ * ejecuciones reutilizan el fichero.
+ */
+public final class BenchmarkDatabase {
+    public static final int LIBROS = Integer.getInteger("bench.libros", 1_000_000);
+    public static final int USUARIOS = Integer.getInteger("bench.usuarios", 200_000);
+    public static final int PRESTAMOS = Integer.getInteger("bench.prestamos", 2_000_000);
+
+    private static final int BATCH_SIZE = 10_000;
+    // Tabla que se crea al terminar de generar los datos
+    private static final String MARKER = "BENCHMARK_GENERADA";
+    private static final String[] GENEROS = { "Novela", "Poesía", "Ensayo", "Teatro", "Historia", "Ciencia",
+            "Filosofía", "Biografía", "Infantil", "Juvenil", "Policiaca", "Fantasía", "Ciencia ficción", "Viajes",
+            "Arte", "Cocina", "Derecho", "Economía", "Informática", "Medicina" };
+    private static final String[] PALABRAS = { "cien", "años", "soledad", "amor", "tiempos", "cólera", "sombra",
+            "viento", "casa", "espíritus", "ciudad", "perros", "noche", "río", "mar", "camino", "memoria", "silencio",
+            "jardín", "invierno", "verano", "luz", "sueño", "guerra", "paz", "reino", "tierra", "fuego", "agua",
+            "montaña" };
+
+    // Relleno de las tablas de resumen de los informes, igual que en la migración V3
+    private static final String[] ROLLUPS = {
+            "INSERT INTO resumen_prestamos_dia (fecha, prestamos, devoluciones) "
+                    + "SELECT fechaprestamo, COUNT(*), 0 FROM prestamos GROUP BY fechaprestamo",
+            "INSERT INTO resumen_prestamos_genero (genero, prestamos, activos) SELECT COALESCE(l.genero, ''), "
+                    + "COUNT(*), COUNT(*) FROM prestamos p JOIN libros l ON l.id = p.libroID "
+                    + "GROUP BY COALESCE(l.genero, '')",
+            "INSERT INTO resumen_prestamos_autor (autor, prestamos, activos) SELECT COALESCE(l.autor, ''), "
+                    + "COUNT(*), COUNT(*) FROM prestamos p JOIN libros l ON l.id = p.libroID "
+                    + "GROUP BY COALESCE(l.autor, '')",
+            "INSERT INTO resumen_usuarios (usuarioID, prestamos, activos, ultimo_prestamo) "
+                    + "SELECT usuarioID, COUNT(*), COUNT(*), MAX(fechaprestamo) FROM prestamos GROUP BY usuarioID" };
+    // Credenciales sin hash, como las deja la migración V6 (los nombres generados no se repiten)
+    private static final String CREDENCIALES = "INSERT INTO credenciales (usuarioID, login) "
+            + "SELECT id, nombre FROM usuarios";
+
+    private static boolean started;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Apunta la aplicación a la base de datos de benchmarks, la genera si no
+     * existe y devuelve la SessionFactory de {@link HibernateUtil}.
+     */
+    public static synchronized SessionFactory start() {
+        if (!started) {
+            Path file = Path.of(System.getProperty("bench.dir", "target/benchdb"))
+                    .resolve("biblioteca-" + LIBROS + "-" + USUARIOS + "-" + PRESTAMOS).toAbsolutePath();
+            System.setProperty("hibernate.connection.url", "jdbc:h2:file:" + file + ";MODE=MySQL");
+            System.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+            System.setProperty("hibernate.connection.username", "sa");
+            System.setProperty("hibernate.connection.password", "");
+            System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            System.setProperty("hibernate.show_sql", "false");
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                session.doWork(connection -> {
+                    seedIfEmpty(connection);
+                    restartIdentities(connection);
+                });
+            }
+            started = true;
+        }
+        return HibernateUtil.getSessionFactory();
+    }
+
+    private static void seedIfEmpty(Connection connection) throws SQLException {
+        if (count(connection, "libros") > 0) {
+            // Una generación interrumpida deja la base de datos a medias sin la marca final
+            try (ResultSet marker = connection.getMetaData().getTables(null, null, MARKER, null)) {
+                if (!marker.next()) {
+                    throw new IllegalStateException("La base de datos de benchmarks está incompleta; "
+                            + "borre el directorio " + System.getProperty("bench.dir", "target/benchdb")
+                            + " para generarla de nuevo");
+                }
+            }
+            return;
+        }
+        System.out.printf("Generando base de datos: %,d libros, %,d usuarios, %,d préstamos%n", LIBROS, USUARIOS,
+                PRESTAMOS);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        SplittableRandom random = new SplittableRandom(42);
+        seedLibros(connection, random);
+        seedUsuarios(connection);
+        BitSet prestados = seedPrestamos(connection, random);
+        // Los libros con un préstamo sin vencer no están disponibles
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE libros SET disponibilidad = FALSE WHERE id = ?")) {
+            int row = 0;
+            for (int id = prestados.nextSetBit(0); id >= 0; id = prestados.nextSetBit(id + 1)) {
+                update.setLong(1, id);
+                update.addBatch();
+                flush(connection, update, ++row);
+            }
+            update.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String rollup : ROLLUPS) {
+                statement.executeUpdate(rollup);
+            }
+            statement.executeUpdate(CREDENCIALES);
+            statement.execute("CREATE TABLE " + MARKER + " (id INT)");
+        }
+        connection.commit();
+        connection.setAutoCommit(autoCommit);
+    }
+
+    /*
+     * JMH termina cada proceso sin cerrar H2, que puede perder el avance de los
+     * contadores IDENTITY: se recolocan tras la fila más alta para no repetir
+     * claves ya confirmadas.
+     */
+    private static void restartIdentities(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[] { "libros", "usuarios", "prestamos", "reservas" }) {
+                long next;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                    rs.next();
+                    next = rs.getLong(1);
+                }
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+        }
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void seedLibros(Connection connection, SplittableRandom random) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO libros "
+                + "(titulo, autor, genero, fechapublicacion, disponibilidad) VALUES (?, ?, ?, ?, TRUE)")) {
+            for (int i = 1; i <= LIBROS; i++) {
+                insert.setString(1, titulo(random));
+                insert.setString(2, "Autor " + random.nextInt(Math.max(1, LIBROS / 20)));
+                insert.setString(3, GENEROS[random.nextInt(GENEROS.length)]);
+                insert.setDate(4, Date.valueOf(LocalDate.of(1900, 1, 1).plusDays(random.nextInt(45_000))));
+                insert.addBatch();
+                flush(connection, insert, i);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void seedUsuarios(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO usuarios "
+                + "(nombre, apellidos, email, rol, dni, telefono) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= USUARIOS; i++) {
+                insert.setString(1, usuario(i));
+                insert.setString(2, clave(i));
+                insert.setString(3, "usuario" + i + "@bibliogoya.es");
+                insert.setString(4, i % 1000 == 0 ? "Administrador" : "Usuario");
+                insert.setString(5, String.format("%08dX", i));
+                insert.setString(6, String.format("6%08d", i));
+                insert.addBatch();
+                flush(connection, insert, i);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    // Devuelve los ids de los libros con un préstamo sin vencer
+    private static BitSet seedPrestamos(Connection connection, SplittableRandom random) throws SQLException {
+        LocalDate today = LocalDate.now();
+        BitSet prestados = new BitSet(LIBROS + 1);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO prestamos "
+                + "(libroID, usuarioID, fechaprestamo, fechadevolucion) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= PRESTAMOS; i++) {
+                LocalDate prestamo = today.minusDays(random.nextInt(5 * 365));
+                int libroId = 1 + random.nextInt(LIBROS);
+                if (!prestamo.plusMonths(1).isBefore(today)) {
+                    prestados.set(libroId);
+                }
+                insert.setLong(1, libroId);
+                insert.setLong(2, 1 + random.nextInt(USUARIOS));
+                insert.setDate(3, Date.valueOf(prestamo));
+                insert.setDate(4, Date.valueOf(prestamo.plusMonths(1)));
+                insert.addBatch();
+                flush(connection, insert, i);
+            }
+            insert.executeBatch();
+        }
+        return prestados;
+    }
+
+    private static void flush(Connection connection, PreparedStatement insert, int row) throws SQLException {
+        if (row % BATCH_SIZE == 0) {
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static String titulo(SplittableRandom random) {
+        int words = 1 + random.nextInt(4);
+        StringBuilder titulo = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                titulo.append(i == 1 ? " de " : " ");
+            }
+            titulo.append(PALABRAS[random.nextInt(PALABRAS.length)]);
+        }
+        return Character.toUpperCase(titulo.charAt(0)) + titulo.substring(1);
+    }
+
+    // Credenciales de los usuarios generados: nombre y apellidos, la contraseña anterior a V6
+    public static String usuario(int i) {
+        return "usuario" + i;
+    }
+
+    public static String clave(int i) {
+        return "clave" + i;
+    }
+}
@@ -0,0 +1,158 @@
+package dao.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.dto.BookRow;
+import dao.entity.Credencial;
+import dao.entity.Libro;
+import dao.service.LibraryService;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Key;
+import dao.util.PagedTableModel.PageQuery;
+import dao.util.QueryResultCache;
+
+/**
+ * Consultas de lectura de las ventanas: listado de libros (loadBooks), de
+ * préstamos (loadReservas), préstamos de un usuario (loadBorrowedBooks) y
+ * búsqueda de la credencial al iniciar sesión (handleLogin). Cada llamada abre su
+ * propia sesión, sin estado para los listados, como hacen las ventanas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CatalogQueryBenchmark {
+    private static final int PAGE_SIZE = PagedTableModel.PAGE_SIZE;
+
+    private SessionFactory sessionFactory;
+    private final SplittableRandom random = new SplittableRandom(7);
+    private PageQuery<BookRow> books;
+    // Clave de la última fila de la mitad del catálogo ordenado por título
+    private Key middle;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = BenchmarkDatabase.start();
+        books = LibraryService.bookQuery(null, null);
+        try (Session session = sessionFactory.openSession()) {
+            BookRow row = session.createQuery("SELECT " + BookRow.SELECT + " FROM Libro l ORDER BY l.titulo, l.id",
+                    BookRow.class).setFirstResult(BenchmarkDatabase.LIBROS / 2).setMaxResults(1).getSingleResult();
+            middle = new Key(row.titulo(), row.id());
+        }
+    }
+
+    // Cuenta y primera página del catálogo contra la base de datos, sin la caché de resultados
+    @Benchmark
+    public List<BookRow> loadBooksFirstPage() {
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            books.count(session);
+            return books.page(session, "l.id", true, null, 0, PAGE_SIZE);
+        }
+    }
+
+    // La misma carga cuando la caché de resultados ya la tiene
+    @Benchmark
+    public List<BookRow> loadBooksFirstPageCached() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            books.count(session);
+            return books.page(session, "l.id", true, null, 0, PAGE_SIZE);
+        }
+    }
+
+    // Página a mitad del catálogo ordenado por título, continuando desde su clave
+    @Benchmark
+    public List<BookRow> loadBooksDeepPageByTitle() {
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return books.page(session, "l.titulo", true, middle, 0, PAGE_SIZE);
+        }
+    }
+
+    // Libros disponibles, el listado que ve un usuario
+    @Benchmark
+    public List<BookRow> loadAvailableBooks() {
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        PageQuery<BookRow> available = LibraryService.bookQuery(Boolean.TRUE, null);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            available.count(session);
+            return available.page(session, "l.id", true, null, 0, PAGE_SIZE);
+        }
+    }
+
+    @Benchmark
+    public List<?> loadReservas() {
+        PageQuery<?> reservas = LibraryService.loanQuery();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            reservas.count(session);
+            return reservas.page(session, "p.id", true, null, 0, PAGE_SIZE);
+        }
+    }
+
+    @Benchmark
+    public List<?> loadBorrowedBooks() {
+        PageQuery<?> borrowed = LibraryService.borrowedQuery(1L + random.nextInt(BenchmarkDatabase.USUARIOS));
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            borrowed.count(session);
+            return borrowed.page(session, "p.id", true, null, 0, PAGE_SIZE);
+        }
+    }
+
+    // Búsqueda de la credencial por el índice único; la verificación se mide en LoginBenchmark
+    @Benchmark
+    public Credencial handleLogin() {
+        int i = 1 + random.nextInt(BenchmarkDatabase.USUARIOS);
+        try (Session session = sessionFactory.openSession()) {
+            return session.createNamedSelectionQuery(Credencial.POR_LOGIN, Credencial.class)
+                    .setParameter("login", BenchmarkDatabase.usuario(i))
+                    .uniqueResult();
+        }
+    }
+
+    /*
+     * Carga completa de 100.000 libros como entidades gestionadas frente a la
+     * proyección en filas de solo lectura. Con -prof gc se ve además la memoria
+     * asignada por cada una.
+     */
+    @Benchmark
+    @Measurement(iterations = 3, time = 5)
+    public List<Libro> loadAllEntities() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("FROM Libro l ORDER BY l.id", Libro.class).setMaxResults(100_000).list();
+        }
+    }
+
+    // Las mismas entidades en una sesión sin estado, como los desplegables de ReservaManagementFrame
+    @Benchmark
+    @Measurement(iterations = 3, time = 5)
+    public List<Libro> loadAllEntitiesStateless() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createQuery("FROM Libro l ORDER BY l.id", Libro.class).setMaxResults(100_000).list();
+        }
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 5)
+    public List<BookRow> loadAllRows() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT " + BookRow.SELECT + " FROM Libro l ORDER BY l.id", BookRow.class)
+                    .setMaxResults(100_000).list();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dao.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.util.Reservations;
+
+/**
+ * Transacciones de escritura de reserveBook y devolverLibro, ambas con
+ * {@link Reservations}. Cada medida trabaja sobre un libro distinto y la
+ * preparación deja ese libro en el estado que la operación espera: disponible
+ * para reservar o prestado al usuario para devolver.
+ *
+ * Se usan dos usuarios reservados para el benchmark para que los préstamos de una
+ * operación no interfieran con los de la otra.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class LoanTransactionBenchmark {
+    private static final long RESERVE_USER = 1;
+    private static final long RETURN_USER = 2;
+
+    private static SessionFactory sessionFactory;
+    private static long nextBook;
+
+    // Libro disponible y sin préstamos de los usuarios del benchmark
+    @State(Scope.Thread)
+    public static class AvailableBook {
+        long libroId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            sessionFactory = BenchmarkDatabase.start();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            libroId = freeBook();
+        }
+    }
+
+    // Libro prestado al usuario que lo va a devolver
+    @State(Scope.Thread)
+    public static class BorrowedBook {
+        long libroId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            sessionFactory = BenchmarkDatabase.start();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            libroId = freeBook();
+            reserve(libroId, RETURN_USER);
+        }
+    }
+
+    @Benchmark
+    public boolean reserveBook(AvailableBook book) {
+        return reserve(book.libroId, RESERVE_USER);
+    }
+
+    @Benchmark
+    public boolean devolverLibro(BorrowedBook book) {
+        return devolver(book.libroId, RETURN_USER);
+    }
+
+    // Siguiente libro del catálogo, devuelto a su estado disponible
+    private static synchronized long freeBook() {
+        long libroId = 1 + nextBook++ % BenchmarkDatabase.LIBROS;
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.createMutationQuery("DELETE FROM Prestamo p WHERE p.libro.id = :libroId "
+                    + "AND p.usuario.id IN (:reserveUser, :returnUser)")
+                    .setParameter("libroId", libroId)
+                    .setParameter("reserveUser", RESERVE_USER)
+                    .setParameter("returnUser", RETURN_USER)
+                    .executeUpdate();
+            session.createMutationQuery("UPDATE Libro l SET l.disponibilidad = true WHERE l.id = :libroId")
+                    .setParameter("libroId", libroId)
+                    .executeUpdate();
+            transaction.commit();
+        }
+        return libroId;
+    }
+
+    // Reserva de BookManagementFrame.reserveBook
+    private static boolean reserve(long libroId, long clienteId) {
+        return Reservations.reserve(libroId, clienteId) == Reservations.Outcome.RESERVADO;
+    }
+
+    // Devolución de UserBorrowedBooks.devolverLibro
+    private static boolean devolver(long libroId, long usuarioId) {
+        return Reservations.giveBack(libroId, usuarioId) != Reservations.Devolucion.SIN_PRESTAMO;
+    }
+}
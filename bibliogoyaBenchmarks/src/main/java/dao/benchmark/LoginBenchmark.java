@@ -0,0 +1,87 @@
+package dao.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.util.Credentials;
+
+/**
+ * Inicio de sesión completo con {@link Credentials} (handleLogin): búsqueda de la
+ * credencial y verificación de la contraseña. {@code firstLogin} recorre más
+ * usuarios de los que caben en la caché de verificaciones, así que cada intento
+ * calcula PBKDF2; {@code repeatedLogin} es el mismo usuario entrando varias veces
+ * en su puesto. {@code wrongPassword} es un intento fallido de un usuario que no
+ * llega a quedar bloqueado.
+ *
+ * La primera ejecución guarda el hash de los usuarios del benchmark (su primer
+ * inicio de sesión tras la migración V6) y las siguientes lo reutilizan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class LoginBenchmark {
+    // Más usuarios que entradas tiene la caché de verificaciones
+    private static final int USUARIOS = 80;
+    // Fuera de los usuarios del resto de benchmarks
+    private static final int FIRST_USER = 300;
+
+    private SessionFactory sessionFactory;
+    private int next;
+    private int failed;
+
+    @Setup
+    public void start() {
+        sessionFactory = BenchmarkDatabase.start();
+        for (int i = FIRST_USER; i < FIRST_USER + USUARIOS; i++) {
+            login(i, BenchmarkDatabase.clave(i));
+        }
+    }
+
+    @Benchmark
+    public Credentials.Result firstLogin() {
+        next = (next + 1) % USUARIOS;
+        return expect(login(FIRST_USER + next, BenchmarkDatabase.clave(FIRST_USER + next)),
+                Credentials.Outcome.CORRECTO);
+    }
+
+    @Benchmark
+    public Credentials.Result repeatedLogin() {
+        return expect(login(FIRST_USER, BenchmarkDatabase.clave(FIRST_USER)), Credentials.Outcome.CORRECTO);
+    }
+
+    // El acceso correcto cada pocos fallos pone el contador a cero antes del bloqueo
+    @Benchmark
+    public Credentials.Result wrongPassword() {
+        int i = FIRST_USER + 1;
+        if (++failed % 4 == 0) {
+            return expect(login(i, BenchmarkDatabase.clave(i)), Credentials.Outcome.CORRECTO);
+        }
+        return expect(login(i, "incorrecta"), Credentials.Outcome.INCORRECTO);
+    }
+
+    private Credentials.Result login(int i, String password) {
+        try (Session session = sessionFactory.openSession()) {
+            return Credentials.authenticate(session, BenchmarkDatabase.usuario(i), password);
+        }
+    }
+
+    private static Credentials.Result expect(Credentials.Result result, Credentials.Outcome outcome) {
+        if (result.outcome() != outcome) {
+            throw new IllegalStateException("Inicio de sesión " + result.outcome() + ", se esperaba " + outcome);
+        }
+        return result;
+    }
+}
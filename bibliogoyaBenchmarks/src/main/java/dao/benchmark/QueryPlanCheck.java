@@ -0,0 +1,157 @@
+package dao.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import dao.entity.Credencial;
+import dao.entity.Libro;
+import dao.service.LibraryService;
+import dao.util.HibernateUtil;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Key;
+import dao.util.PagedTableModel.PageQuery;
+import dao.util.QueryResultCache;
+import dao.util.Reservations;
+
+/**
+ * Comprobación de planes de ejecución: recorre las consultas HQL de la aplicación
+ * (listados paginados con sus filtros, inicio de sesión, reserva, lista de espera
+ * y devolución) contra la base de datos de {@link BenchmarkDatabase}, recoge el
+ * SQL que genera Hibernate y ejecuta EXPLAIN sobre cada sentencia con WHERE. Si
+ * alguna recorre una tabla entera (o un índice entero sin condición), la lista
+ * y termina con código 1, de modo que un índice perdido o una consulta que deja
+ * de poder usarlo rompe la comprobación. Desde la raíz del repositorio:
+ *
+ * <pre>
+ * java -Dbench.libros=100000 -Dbench.usuarios=20000 -Dbench.prestamos=200000
+ *     -cp bibliogoyaBenchmarks/target/benchmarks.jar dao.benchmark.QueryPlanCheck
+ * </pre>
+ *
+ * Las consultas sin WHERE (exportaciones, índice de búsqueda, listas completas)
+ * leen toda la tabla a propósito y no se comprueban. Los listados se comprueban
+ * en su orden por defecto, por id.
+ */
+public final class QueryPlanCheck {
+    // Libro y usuarios propios para la reserva y la lista de espera
+    private static final long LIBRO_OFFSET = 20_000;
+    private static final long FIRST_USER = 200;
+    // Índice usado en el plan: nombre y, si lo hay, la condición con la que se recorre
+    private static final Pattern ACCESS = Pattern.compile("/\\*\\s*(PUBLIC\\.[\\w.]+)(:?)");
+
+    private QueryPlanCheck() {
+    }
+
+    // Registra cada sentencia SQL que prepara Hibernate
+    public static class Recorder implements StatementInspector {
+        private static final long serialVersionUID = 1L;
+        static final Set<String> STATEMENTS = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.session_factory.statement_inspector", Recorder.class.getName());
+        SessionFactory sessionFactory = BenchmarkDatabase.start();
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        runQueries(sessionFactory);
+        runReservations();
+
+        List<String> scans = new ArrayList<>();
+        try (Session session = sessionFactory.openSession()) {
+            for (String sql : new TreeSet<>(Recorder.STATEMENTS)) {
+                if (!sql.toLowerCase(Locale.ROOT).contains(" where ") || sql.startsWith("insert")) {
+                    continue;
+                }
+                String plan = explain(session, sql);
+                List<String> full = fullScans(plan);
+                System.out.printf("%s %s%n", full.isEmpty() ? "OK     " : "ESCANEO", sql);
+                if (!full.isEmpty()) {
+                    scans.add(sql + "\n    recorre " + full + "\n" + plan);
+                }
+            }
+        }
+        HibernateUtil.shutdown();
+
+        if (!scans.isEmpty()) {
+            System.err.println(scans.size() + " consultas recorren tablas completas:");
+            scans.forEach(System.err::println);
+            System.exit(1);
+        }
+        System.out.println("Ninguna consulta con filtro recorre una tabla completa");
+    }
+
+    // Listados de las ventanas (cuenta, primera página y siguiente), inicio de sesión y desplegables
+    private static void runQueries(SessionFactory sessionFactory) {
+        Map<PageQuery<?>, String> queries = new LinkedHashMap<>();
+        queries.put(LibraryService.bookQuery(null, null), "l.id");
+        queries.put(LibraryService.bookQuery(Boolean.TRUE, null), "l.id");
+        queries.put(LibraryService.bookQuery(Boolean.FALSE, null), "l.id");
+        queries.put(LibraryService.bookQuery(null, List.of(1L, 2L, 3L)), "l.id");
+        queries.put(LibraryService.borrowedQuery(FIRST_USER), "p.id");
+        queries.put(LibraryService.loanQuery(), "p.id");
+        // Las ventanas usan sesiones sin estado, que no pasan por el StatementInspector; el SQL es el mismo
+        try (Session session = sessionFactory.openSession()) {
+            queries.forEach((query, idPath) -> {
+                query.count(session);
+                query.page(session, idPath, true, null, 0, PagedTableModel.PAGE_SIZE);
+                query.page(session, idPath, true, new Key(null, 1L), 0, PagedTableModel.PAGE_SIZE);
+            });
+            session.createNamedSelectionQuery(Credencial.POR_LOGIN, Credencial.class)
+                    .setParameter("login", "nombre")
+                    .list();
+            // Libros disponibles para una reserva nueva
+            session.createNamedSelectionQuery(Libro.DISPONIBLES, Libro.class).setMaxResults(1).list();
+        }
+    }
+
+    /*
+     * Reserva, lista de espera y devolución sobre un libro propio; al terminar el
+     * libro vuelve a estar disponible.
+     */
+    private static void runReservations() {
+        long libroId = BenchmarkDatabase.LIBROS - LIBRO_OFFSET;
+        Reservations.reserve(libroId, FIRST_USER);
+        Reservations.enqueue(libroId, FIRST_USER + 1);
+        Reservations.giveBack(libroId, FIRST_USER);
+        Reservations.giveBack(libroId, FIRST_USER + 1);
+    }
+
+    private static String explain(Session session, String sql) {
+        return session.doReturningWork(connection -> {
+            // H2 calcula el plan sin necesidad de dar valor a los parámetros
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                    ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+    }
+
+    // Accesos sin condición: recorrido de la tabla o de un índice completo
+    private static List<String> fullScans(String plan) {
+        List<String> full = new ArrayList<>();
+        Matcher matcher = ACCESS.matcher(plan);
+        while (matcher.find()) {
+            if (matcher.group(1).endsWith(".tableScan") || matcher.group(2).isEmpty()) {
+                full.add(matcher.group(1));
+            }
+        }
+        return full;
+    }
+}
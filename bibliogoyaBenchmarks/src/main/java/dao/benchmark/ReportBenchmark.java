@@ -0,0 +1,49 @@
+package dao.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.util.ReportEngine;
+import dao.util.ReportEngine.Report;
+
+/**
+ * Generación de cada informe de ReportGeneratorFrame sobre las tablas de resumen,
+ * con un periodo de cinco años: todo el histórico de préstamos que genera
+ * {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ReportBenchmark {
+    @Param
+    private Report report;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = BenchmarkDatabase.start();
+    }
+
+    @Benchmark
+    public ReportEngine.Result generate() {
+        try (Session session = sessionFactory.openSession()) {
+            return ReportEngine.generate(session, report, LocalDate.now().minusYears(5), LocalDate.now());
+        }
+    }
+}
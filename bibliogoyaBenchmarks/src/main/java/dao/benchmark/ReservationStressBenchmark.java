@@ -0,0 +1,175 @@
+package dao.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.entity.Libro;
+import dao.util.Reservations;
+
+/**
+ * Prueba de carga de {@link Reservations}: {@value #CLIENTES} puestos reservan a
+ * la vez libros al azar de un grupo reducido, de modo que varios compiten por el
+ * mismo ejemplar. El resultado son los intentos de reserva por segundo, tanto
+ * los que consiguen el libro como los que lo encuentran ya prestado; al final de
+ * cada iteración se imprimen las reservas confirmadas por segundo.
+ *
+ * Al terminar cada iteración se comprueba que ningún libro del grupo tiene dos
+ * préstamos, que cada reserva confirmada tiene exactamente un préstamo y que los
+ * libros no disponibles coinciden con los prestados; si no, la ejecución falla.
+ * El grupo se restablece antes de cada iteración.
+ *
+ * H2 en modo MySQL repite a veces un valor de identidad cuando una transacción
+ * inserta y después espera un bloqueo (en MySQL no ocurre). La reserva afectada
+ * se deshace entera, así que se cuenta aparte como intento abortado y no altera
+ * las comprobaciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(ReservationStressBenchmark.CLIENTES)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ReservationStressBenchmark {
+    static final int CLIENTES = 64;
+    // Los usuarios 1 y 2 son de LoanTransactionBenchmark
+    private static final long FIRST_CLIENT = 3;
+
+    // Libros en disputa: unos pocos títulos muy solicitados o una parte del catálogo
+    @Param({ "50", "5000" })
+    private int libros;
+
+    private SessionFactory sessionFactory;
+    private long firstBook;
+    private long lastBook;
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+    private long iterationStart;
+
+    @Setup(Level.Trial)
+    public void start() {
+        sessionFactory = BenchmarkDatabase.start();
+        lastBook = BenchmarkDatabase.LIBROS;
+        firstBook = lastBook - libros + 1;
+    }
+
+    // Devuelve los libros del grupo a su estado disponible y sin préstamos de los puestos
+    @Setup(Level.Iteration)
+    public void reset() {
+        execute("DELETE FROM reservas WHERE LibroID BETWEEN ? AND ? AND UsuarioID BETWEEN ? AND ?", true);
+        execute("DELETE FROM prestamos WHERE libroID BETWEEN ? AND ? AND usuarioID BETWEEN ? AND ?", true);
+        execute("UPDATE libros SET disponibilidad = TRUE WHERE id BETWEEN ? AND ?", false);
+        confirmed.set(0);
+        aborted.set(0);
+        iterationStart = System.nanoTime();
+    }
+
+    @Benchmark
+    public Reservations.Outcome reserve() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Reservations.Outcome outcome = Reservations.reserve(firstBook + random.nextInt(libros),
+                    FIRST_CLIENT + random.nextInt(CLIENTES));
+            if (outcome == Reservations.Outcome.RESERVADO) {
+                confirmed.incrementAndGet();
+            }
+            return outcome;
+        } catch (ConstraintViolationException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("PRIMARY KEY")) {
+                throw e;
+            }
+            aborted.incrementAndGet();
+            return null;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        System.out.printf("  [%,d reservas confirmadas, %.1f reservas/s, %,d abortadas por H2]%n",
+                confirmed.get(), confirmed.get() / seconds, aborted.get());
+        List<Long> repeated = ids("SELECT libroID FROM prestamos WHERE libroID BETWEEN ? AND ? "
+                + "AND usuarioID BETWEEN ? AND ? GROUP BY libroID HAVING COUNT(*) > 1", true);
+        if (!repeated.isEmpty()) {
+            throw new IllegalStateException("Libros prestados dos veces: " + repeated);
+        }
+        long loans = count("SELECT COUNT(*) FROM prestamos WHERE libroID BETWEEN ? AND ? "
+                + "AND usuarioID BETWEEN ? AND ?", true);
+        long unavailable = count("SELECT COUNT(*) FROM libros WHERE id BETWEEN ? AND ? AND disponibilidad = FALSE",
+                false);
+        if (loans != confirmed.get() || unavailable != loans) {
+            throw new IllegalStateException(String.format(
+                    "Reservas confirmadas %d, préstamos %d, libros no disponibles %d", confirmed.get(), loans,
+                    unavailable));
+        }
+    }
+
+    private void execute(String sql, boolean byClient) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    bind(statement, byClient);
+                    statement.executeUpdate();
+                }
+            });
+            transaction.commit();
+        }
+        // Los cambios por JDBC no pasan por la caché de segundo nivel
+        sessionFactory.getCache().evictEntityData(Libro.class);
+    }
+
+    private long count(String sql, boolean byClient) {
+        return ids(sql, byClient).get(0);
+    }
+
+    private List<Long> ids(String sql, boolean byClient) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    bind(statement, byClient);
+                    List<Long> ids = new ArrayList<>();
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                    return ids;
+                }
+            });
+        }
+    }
+
+    // Parámetros comunes: rango de libros del grupo y, si se indica, rango de puestos
+    private void bind(PreparedStatement statement, boolean byClient) throws SQLException {
+        statement.setLong(1, firstBook);
+        statement.setLong(2, lastBook);
+        if (byClient) {
+            statement.setLong(3, FIRST_CLIENT);
+            statement.setLong(4, FIRST_CLIENT + CLIENTES - 1);
+        }
+    }
+}
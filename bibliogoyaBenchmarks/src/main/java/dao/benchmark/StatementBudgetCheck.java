@@ -0,0 +1,156 @@
+package dao.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import dao.entity.Libro;
+import dao.entity.Reserva;
+import dao.repository.Repositories;
+import dao.service.LibraryService;
+import dao.util.HibernateUtil;
+import dao.util.LibraryEvent;
+import dao.util.LibraryEvents;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.PageQuery;
+import dao.util.QueryResultCache;
+
+/**
+ * Presupuesto de sentencias SQL por caso de uso: ejecuta lo que hace cada
+ * ventana (abrir su listado, editar, reservar, devolver...) contra la base de
+ * datos de {@link BenchmarkDatabase}, cuenta con las estadísticas de Hibernate
+ * las sentencias que prepara y termina con código 1 si algún caso supera su
+ * presupuesto. Una asociación que vuelve a cargarse fila a fila (N+1) o una
+ * consulta que deja de usar su grafo de entidades rompe la comprobación.
+ *
+ * Las cachés se vacían antes de cada caso, así que se cuenta el peor caso, el de
+ * un proceso recién arrancado. Las escrituras de {@code ReportRollups} van por
+ * JDBC directo y no se cuentan. El número de filas no cambia el de sentencias,
+ * por lo que basta una base de datos pequeña; el build la genera en
+ * target/budgetdb (fase verify del módulo de benchmarks). A mano:
+ *
+ * <pre>
+ * java --enable-preview -Dbench.dir=bibliogoyaBenchmarks/target/budgetdb
+ *     -Dbench.libros=5000 -Dbench.usuarios=2000 -Dbench.prestamos=10000
+ *     -cp bibliogoyaBenchmarks/target/benchmarks.jar dao.benchmark.StatementBudgetCheck
+ * </pre>
+ */
+public final class StatementBudgetCheck {
+    // Usuarios propios para las reservas
+    private static final long FIRST_USER = 3;
+    // Administrador generado (usuario1000)
+    private static final int ADMIN = 1000;
+
+    private static final List<String> exceeded = new ArrayList<>();
+    private static SessionFactory sessionFactory;
+    private static Statistics statistics;
+
+    private StatementBudgetCheck() {
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("hibernate.generate_statistics", "true");
+        sessionFactory = BenchmarkDatabase.start();
+        statistics = sessionFactory.getStatistics();
+
+        // Listados: cuenta y primera página de cada ventana
+        check("Libros (BookManagementFrame)", 2, () -> open(LibraryService.bookQuery(null, null), "l.id"));
+        check("Usuarios (UserManagementFrame)", 2, () -> open(LibraryService.userQuery(), "u.id"));
+        check("Préstamos (ReservaManagementFrame)", 2, () -> open(LibraryService.loanQuery(), "p.id"));
+        check("Mis libros (UserBorrowedBooks)", 2, () -> open(LibraryService.borrowedQuery(FIRST_USER), "p.id"));
+        check("Libros para reservar", 1, LibraryService::availableBooks);
+        check("Usuarios para reservar", 1, LibraryService::allUsers);
+
+        LibraryService.authenticate(BenchmarkDatabase.usuario(ADMIN), BenchmarkDatabase.clave(ADMIN));
+        check("Iniciar sesión", 2,
+                () -> LibraryService.authenticate(BenchmarkDatabase.usuario(ADMIN), BenchmarkDatabase.clave(ADMIN)));
+
+        runReservations();
+        HibernateUtil.shutdown();
+
+        if (!exceeded.isEmpty()) {
+            System.err.println(exceeded.size() + " casos superan su presupuesto de sentencias:");
+            exceeded.forEach(System.err::println);
+            System.exit(1);
+        }
+        System.out.println("Todos los casos de uso están dentro de su presupuesto de sentencias");
+    }
+
+    /*
+     * Reserva, lista de espera, edición de la reserva, devolución con entrega al
+     * siguiente, devolución y borrado de un préstamo sobre un libro disponible sin
+     * préstamos. Al terminar el libro vuelve a estar disponible.
+     */
+    private static void runReservations() {
+        long libroId = Repositories.read(session -> session.createSelectionQuery(
+                "SELECT l.id FROM Libro l WHERE l.disponibilidad = true "
+                        + "AND NOT EXISTS (FROM Prestamo p WHERE p.libro = l) "
+                        + "AND NOT EXISTS (FROM Reserva r WHERE r.libro = l) ORDER BY l.id DESC", Long.class)
+                .setMaxResults(1)
+                .getSingleResult());
+        long primero = FIRST_USER;
+        long segundo = FIRST_USER + 1;
+        AtomicLong entregado = new AtomicLong();
+        Runnable unsubscribe = LibraryEvents.subscribe(event -> {
+            if (event instanceof LibraryEvent.BookReturned returned && returned.entregado() != null) {
+                entregado.set(returned.entregado().prestamoId());
+            } else if (event instanceof LibraryEvent.BookReserved reserved) {
+                entregado.set(reserved.prestamoId());
+            }
+        });
+        try {
+            check("Reservar", 4, () -> LibraryService.reserve(libroId, primero));
+            check("Apuntarse a la lista de espera", 5, () -> LibraryService.enqueue(libroId, segundo));
+            long reservaId = Repositories.read(session -> session.createSelectionQuery(
+                    "SELECT r.id FROM Reserva r WHERE r.libro.id = :libroId AND r.usuario.id = :usuarioId", Integer.class)
+                    .setParameter("libroId", libroId)
+                    .setParameter("usuarioId", segundo)
+                    .getSingleResult());
+            // Fuera de la sesión: si el grafo no trae el libro y el usuario, falla al leerlos
+            check("Editar reserva", 1, () -> {
+                Reserva reserva = LibraryService.getReserva(reservaId);
+                reserva.getLibro().getTitulo();
+                reserva.getUsuario().getNombre();
+            });
+            check("Devolver con lista de espera", 6, () -> LibraryService.giveBack(libroId, primero));
+            check("Devolver", 5, () -> LibraryService.giveBack(libroId, segundo));
+
+            LibraryService.reserve(libroId, primero);
+            check("Eliminar préstamo", 5, () -> LibraryService.deleteLoan(entregado.get()));
+        } finally {
+            unsubscribe.run();
+            Repositories.write(session -> {
+                session.createMutationQuery("DELETE FROM Reserva r WHERE r.libro.id = :libroId")
+                        .setParameter("libroId", libroId)
+                        .executeUpdate();
+                session.get(Libro.class, libroId).setDisponibilidad(true);
+                return null;
+            });
+        }
+    }
+
+    private static void open(PageQuery<?> query, String idPath) {
+        Repositories.read(session -> {
+            query.count(session);
+            return query.page(session, idPath, true, null, 0, PagedTableModel.PAGE_SIZE);
+        });
+    }
+
+    // Ejecuta el caso con las cachés vacías y compara las sentencias preparadas con el presupuesto
+    private static void check(String name, long budget, Runnable useCase) {
+        sessionFactory.getCache().evictAllRegions();
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        statistics.clear();
+        useCase.run();
+        long statements = statistics.getPrepareStatementCount();
+        long fetches = statistics.getEntityFetchCount();
+        boolean ok = statements <= budget;
+        String line = String.format("%-8s %2d/%-2d sentencias, %d cargas sueltas  %s", ok ? "OK" : "EXCEDE",
+                statements, budget, fetches, name);
+        System.out.println(line);
+        if (!ok) {
+            exceeded.add(line);
+        }
+    }
+}
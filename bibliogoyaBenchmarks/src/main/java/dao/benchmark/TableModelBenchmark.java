@@ -0,0 +1,120 @@
+package dao.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.dto.BookRow;
+
+/**
+ * Coste de volcar las filas ya leídas en el modelo de una JTable. No accede a la
+ * base de datos: compara el addRow fila a fila que usaban las ventanas, con un
+ * evento por fila que la tabla procesa, frente a cargar el modelo de una vez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--enable-preview", "-Djava.awt.headless=true" })
+public class TableModelBenchmark {
+    private static final String[] COLUMNS = { "ID", "Título", "Autor", "Género", "Disponibilidad" };
+
+    @Param("100000")
+    private int rows;
+
+    private List<BookRow> books;
+
+    @Setup
+    public void setUp() {
+        books = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            books.add(new BookRow((long) i, "Título " + i, "Autor " + i % 5000, "Género " + i % 20, i % 3 != 0));
+        }
+    }
+
+    // Patrón original de loadBooks: vaciar el modelo y añadir cada fila
+    @Benchmark
+    public JTable defaultModelAddRow() {
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
+        JTable table = new JTable(model);
+        model.setRowCount(0);
+        for (BookRow book : books) {
+            model.addRow(new Object[] { book.id(), book.titulo(), book.autor(), book.genero(),
+                    book.disponibilidad() ? "Disponible" : "No disponible" });
+        }
+        return table;
+    }
+
+    // Mismo modelo cargado de una vez, con un único evento
+    @Benchmark
+    public JTable defaultModelSetDataVector() {
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
+        JTable table = new JTable(model);
+        Vector<Vector<Object>> data = new Vector<>(books.size());
+        for (BookRow book : books) {
+            Vector<Object> row = new Vector<>(COLUMNS.length);
+            row.add(book.id());
+            row.add(book.titulo());
+            row.add(book.autor());
+            row.add(book.genero());
+            row.add(book.disponibilidad() ? "Disponible" : "No disponible");
+            data.add(row);
+        }
+        model.setDataVector(data, new Vector<>(List.of(COLUMNS)));
+        return table;
+    }
+
+    // Modelo respaldado directamente por la lista de filas, sin copiarlas
+    @Benchmark
+    public JTable listBackedModel() {
+        List<BookRow> data = books;
+        AbstractTableModel model = new AbstractTableModel() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public int getRowCount() {
+                return data.size();
+            }
+
+            @Override
+            public int getColumnCount() {
+                return COLUMNS.length;
+            }
+
+            @Override
+            public String getColumnName(int column) {
+                return COLUMNS[column];
+            }
+
+            @Override
+            public Object getValueAt(int rowIndex, int columnIndex) {
+                BookRow book = data.get(rowIndex);
+                return switch (columnIndex) {
+                    case 0 -> book.id();
+                    case 1 -> book.titulo();
+                    case 2 -> book.autor();
+                    case 3 -> book.genero();
+                    default -> book.disponibilidad() ? "Disponible" : "No disponible";
+                };
+            }
+        };
+        JTable table = new JTable(model);
+        model.fireTableDataChanged();
+        return table;
+    }
+}
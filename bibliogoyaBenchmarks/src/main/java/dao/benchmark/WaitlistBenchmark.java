@@ -0,0 +1,153 @@
+package dao.benchmark;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import dao.entity.Libro;
+import dao.util.Reservations;
+
+/**
+ * Lista de espera de un título muy solicitado con {@link Reservations}: cada
+ * medida devuelve el libro, que pasa al primero de la cola, y el usuario que lo
+ * devuelve se apunta de nuevo al final. La cola mantiene siempre la misma
+ * longitud, así que el tiempo por ciclo debe ser el mismo con pocas reservas
+ * pendientes que con miles.
+ *
+ * El benchmark lleva su propia copia de la cola y al terminar cada iteración
+ * comprueba que el libro lo tiene quien tocaba y que las reservas pendientes
+ * siguen el orden de llegada; si no, la ejecución falla.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class WaitlistBenchmark {
+    // Fuera del grupo de libros de ReservationStressBenchmark y de sus usuarios
+    private static final long FIRST_USER = 100;
+
+    @Param({ "10", "10000" })
+    private int pendientes;
+
+    private SessionFactory sessionFactory;
+    private long libroId;
+    private long holder;
+    private final ArrayDeque<Long> queue = new ArrayDeque<>();
+
+    // Deja el libro prestado al primer usuario y el resto en la lista de espera
+    @Setup(Level.Trial)
+    public void start() {
+        sessionFactory = BenchmarkDatabase.start();
+        libroId = BenchmarkDatabase.LIBROS - 10_000;
+        holder = FIRST_USER;
+        for (long usuarioId = FIRST_USER + 1; usuarioId <= FIRST_USER + pendientes; usuarioId++) {
+            queue.add(usuarioId);
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                execute(connection.prepareStatement("DELETE FROM reservas WHERE LibroID = ?"));
+                execute(connection.prepareStatement("DELETE FROM prestamos WHERE libroID = ?"));
+                execute(connection.prepareStatement("UPDATE libros SET disponibilidad = FALSE WHERE id = ?"));
+                Date hoy = Date.valueOf(LocalDate.now());
+                try (PreparedStatement prestamo = connection.prepareStatement(
+                        "INSERT INTO prestamos (libroID, usuarioID, fechaprestamo, fechadevolucion) VALUES (?, ?, ?, ?)")) {
+                    prestamo.setLong(1, libroId);
+                    prestamo.setLong(2, holder);
+                    prestamo.setDate(3, hoy);
+                    prestamo.setDate(4, Date.valueOf(LocalDate.now().plusMonths(1)));
+                    prestamo.executeUpdate();
+                }
+                try (PreparedStatement reserva = connection.prepareStatement(
+                        "INSERT INTO reservas (LibroID, UsuarioID, FechaReserva, Estado) VALUES (?, ?, ?, 'Pendiente')")) {
+                    for (long usuarioId : queue) {
+                        reserva.setLong(1, libroId);
+                        reserva.setLong(2, usuarioId);
+                        reserva.setDate(3, hoy);
+                        reserva.addBatch();
+                    }
+                    reserva.executeBatch();
+                }
+            });
+            transaction.commit();
+        }
+        // Los cambios por JDBC no pasan por la caché de segundo nivel
+        sessionFactory.getCache().evictEntityData(Libro.class, libroId);
+    }
+
+    @Benchmark
+    public Reservations.Outcome handOver() {
+        Reservations.Devolucion devolucion = Reservations.giveBack(libroId, holder);
+        if (devolucion != Reservations.Devolucion.ENTREGADO) {
+            throw new IllegalStateException("Devolución sin lista de espera: " + devolucion);
+        }
+        long returned = holder;
+        holder = queue.poll();
+        queue.add(returned);
+        Reservations.Outcome outcome = Reservations.enqueue(libroId, returned);
+        if (outcome != Reservations.Outcome.EN_ESPERA) {
+            throw new IllegalStateException("Reserva fuera de la lista de espera: " + outcome);
+        }
+        return outcome;
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        List<Long> holders = ids("SELECT usuarioID FROM prestamos WHERE libroID = ?");
+        if (!holders.equals(List.of(holder))) {
+            throw new IllegalStateException("El libro lo tiene " + holders + " y debía tenerlo " + holder);
+        }
+        List<Long> pending = ids("SELECT UsuarioID FROM reservas WHERE LibroID = ? AND Estado = 'Pendiente' ORDER BY id");
+        if (!pending.equals(new ArrayList<>(queue))) {
+            throw new IllegalStateException("La lista de espera no sigue el orden de llegada");
+        }
+    }
+
+    private void execute(PreparedStatement statement) throws SQLException {
+        try (statement) {
+            statement.setLong(1, libroId);
+            statement.executeUpdate();
+        }
+    }
+
+    private List<Long> ids(String sql) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, libroId);
+                    List<Long> ids = new ArrayList<>();
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                    return ids;
+                }
+            });
+        }
+    }
+}
@@ -2,10 +2,18 @@ package dao;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import dao.util.BackgroundLoader;
+import dao.util.CatalogExporter;
+import dao.util.ProgressDialog;
+import dao.util.UiActionEvent;
 
 public class AdminFrame extends JFrame implements Serializable {
     private static final long serialVersionUID = 1L;
+    private final transient BackgroundLoader loader = new BackgroundLoader();
 
     public AdminFrame() {
         initializeFrame();
@@ -15,7 +23,7 @@ public class AdminFrame extends JFrame implements Serializable {
     // Inicialización del frame principal
     private void initializeFrame() {
         setTitle("Biblioteca Goya - Panel de Administración");
-        setSize(600, 450);
+        setSize(600, 560);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         setLayout(new BorderLayout());
@@ -51,7 +59,10 @@ public class AdminFrame extends JFrame implements Serializable {
         addButton(centerPanel, gbc, "Gestión de Usuarios", 1, this::openUserManagement);
         addButton(centerPanel, gbc, "Gestión de Reservas", 2, this::openReservaManagement);
         addButton(centerPanel, gbc, "Gerador de informes", 3, this::reportGenerator);
-        addButton(centerPanel, gbc, "Regresar", 4, () -> {
+        addButton(centerPanel, gbc, "Exportar datos", 4, this::exportData);
+        addButton(centerPanel, gbc, "Diagnóstico", 5, this::openDiagnostics);
+        addButton(centerPanel, gbc, "Préstamos vencidos", 6, this::openOverdueLoans);
+        addButton(centerPanel, gbc, "Regresar", 7, () -> {
             new LoginFrame().setVisible(true);
             this.dispose();
         });
@@ -72,7 +83,7 @@ public class AdminFrame extends JFrame implements Serializable {
     // Método para añadir botones al panel central
     private void addButton(JPanel panel, GridBagConstraints gbc, String text, int y, Runnable action) {
         JButton button = createStyledButton(text);
-        button.addActionListener(e -> action.run());
+        button.addActionListener(UiActionEvent.listener(this, text, action));
         gbc.gridx = 0;
         gbc.gridy = y;
         panel.add(button, gbc);
@@ -88,10 +99,76 @@ public class AdminFrame extends JFrame implements Serializable {
         return button;
     }
 
+    /*
+     * Exporta una tabla completa a CSV o JSON para auditoría. La exportación se
+     * hace en segundo plano con una barra de avance.
+     */
+    private void exportData() {
+        JComboBox<CatalogExporter.Dataset> datasetBox = new JComboBox<>(CatalogExporter.Dataset.values());
+        JComboBox<CatalogExporter.Format> formatBox = new JComboBox<>(CatalogExporter.Format.values());
+        JCheckBox gzipCheck = new JCheckBox("Comprimir con gzip", true);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Datos:"));
+        panel.add(datasetBox);
+        panel.add(new JLabel("Formato:"));
+        panel.add(formatBox);
+        panel.add(gzipCheck);
+
+        if (JOptionPane.showConfirmDialog(this, panel, "Exportar datos", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        CatalogExporter.Dataset dataset = (CatalogExporter.Dataset) datasetBox.getSelectedItem();
+        CatalogExporter exporter = new CatalogExporter(dataset, (CatalogExporter.Format) formatBox.getSelectedItem(),
+                gzipCheck.isSelected());
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(exporter.defaultFileName()));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path target = chooser.getSelectedFile().toPath();
+        if (Files.exists(target) && JOptionPane.showConfirmDialog(this, "El fichero ya existe. ¿Desea reemplazarlo?",
+                "Exportar datos", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        ProgressDialog progress = new ProgressDialog(this, "Exportar datos", "Exportando " + dataset + "...");
+        progress.setOnCancel(progress::dispose);
+        loader.call(exporter::count, total -> {
+            if (!progress.isDisplayable()) {
+                return;
+            }
+            BackgroundLoader.Task<?, ?> task = loader.track(onProgress -> exporter.run(target, onProgress),
+                    rows -> {
+                        progress.setProgress(rows, total);
+                        progress.setStatus(String.format("%,d de %,d filas", rows, total));
+                    }, rows -> {
+                        progress.dispose();
+                        JOptionPane.showMessageDialog(this, String.format("Se han exportado %,d filas a %s", rows,
+                                target));
+                    }, e -> {
+                        progress.dispose();
+                        JOptionPane.showMessageDialog(this, "Error al exportar los datos: " + e.getMessage(), "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                    });
+            progress.setOnCancel(() -> {
+                task.abort();
+                progress.dispose();
+            });
+        }, e -> {
+            progress.dispose();
+            JOptionPane.showMessageDialog(this, "Error al exportar los datos: " + e.getMessage(), "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+        progress.setVisible(true);
+    }
+
     // Métodos para abrir las diferentes ventanas de gestión
     private void reportGenerator() {
         SwingUtilities.invokeLater(() -> {
-            // new ReportGeneratorFrame().setVisible(true);
+            new ReportGeneratorFrame().setVisible(true);
             dispose();
         });
     }
@@ -116,4 +193,18 @@ public class AdminFrame extends JFrame implements Serializable {
             dispose();
         });
     }
+
+    private void openOverdueLoans() {
+        SwingUtilities.invokeLater(() -> {
+            new OverdueLoansFrame().setVisible(true);
+            dispose();
+        });
+    }
+
+    private void openDiagnostics() {
+        SwingUtilities.invokeLater(() -> {
+            new DiagnosticsFrame().setVisible(true);
+            dispose();
+        });
+    }
 }
\ No newline at end of file
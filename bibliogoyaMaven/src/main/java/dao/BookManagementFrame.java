@@ -1,31 +1,48 @@
 package dao;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.io.IOException;
 import java.io.Serializable;
-import java.time.LocalDate;
-import java.util.Date;
+import java.io.UncheckedIOException;
 import java.util.List;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
-import org.hibernate.query.Query;
+import dao.dto.BookRow;
 import dao.entity.Libro;
-import dao.entity.Prestamo;
-import dao.entity.Reserva;
-import dao.entity.Usuario;
-import dao.util.HibernateUtil;
+import dao.service.LibraryService;
+import dao.util.BackgroundLoader;
+import dao.util.BookSearchIndex;
+import dao.util.CatalogImporter;
+import dao.util.LibraryEvent;
+import dao.util.LibraryEvents;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Column;
+import dao.util.ProgressDialog;
+import dao.util.Reservations;
+import dao.util.SearchField;
+import dao.util.UiActionEvent;
 
 public class BookManagementFrame extends JFrame implements Serializable {
 	private static final long serialVersionUID = 1L;
+	// Número máximo de resultados de búsqueda que se muestran
+	private static final int SEARCH_LIMIT = 500;
 	private JTable bookTable;
-	private DefaultTableModel tableModel;
+	private PagedTableModel<BookRow> tableModel;
 	private boolean showingUnavailableBooks = false;
 	private JLabel titleLabel;
+	private String loadErrorMessage = "Error al cargar los libros: ";
+	private SearchField searchField;
+	private Boolean disponibilidadFilter;
+	private transient List<Long> searchResults;
+	private final transient BackgroundLoader loader = new BackgroundLoader();
+	private transient BackgroundLoader.Task<?, ?> searchTask;
+	private transient Runnable unsubscribe;
+
 	public BookManagementFrame() {
 		initializeFrame();
 		setupComponents();
 		loadBooks();
+		unsubscribe = LibraryEvents.subscribeOnEdt(this::onLibraryEvent);
 	}
 
 	private void initializeFrame() {
@@ -44,6 +61,7 @@ public class BookManagementFrame extends JFrame implements Serializable {
 		setupBookTable();
 		JScrollPane scrollPane = new JScrollPane(bookTable);
 		mainPanel.add(scrollPane, BorderLayout.CENTER);
+		mainPanel.add(createSearchPanel(), BorderLayout.NORTH);
 
 		JPanel buttonPanel = createButtonPanel();
 		mainPanel.add(buttonPanel, BorderLayout.SOUTH);
@@ -64,18 +82,67 @@ public class BookManagementFrame extends JFrame implements Serializable {
 	}
 
 	private void setupBookTable() {
-		String[] columns = { "ID", "Título", "Autor", "Género", "Disponibilidad" };
-		tableModel = new DefaultTableModel(columns, 0) {
-			@Override
-			public boolean isCellEditable(int row, int column) {
-				return false;
-			}
-		};
+		List<Column<BookRow>> columns = List.of(
+				Column.of("ID", "l.id", BookRow::id),
+				Column.of("Título", "l.titulo", BookRow::titulo),
+				Column.of("Autor", "l.autor", BookRow::autor),
+				Column.of("Género", "l.genero", BookRow::genero),
+				Column.<BookRow>of("Disponibilidad", "l.disponibilidad", BookRow::disponibilidad)
+						.displayedAs(disponible -> (Boolean) disponible ? "Disponible" : "No disponible"));
+		tableModel = new PagedTableModel<>(LibraryService.bookQuery(SessionManager.isUser() ? Boolean.TRUE : null, null),
+				columns);
+		tableModel.setOnError(e -> JOptionPane.showMessageDialog(this, loadErrorMessage + e.getMessage(), "Error",
+				JOptionPane.ERROR_MESSAGE));
 		bookTable = new JTable(tableModel);
 		bookTable.setFont(new Font("Arial", Font.PLAIN, 14));
 		bookTable.setRowHeight(20);
 		bookTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
 		bookTable.setSelectionBackground(new Color(210, 228, 238));
+		tableModel.installSortHeader(bookTable);
+	}
+
+	// Panel con la caja de búsqueda sobre el índice de títulos, autores y géneros, que busca mientras se escribe
+	private JPanel createSearchPanel() {
+		JPanel searchPanel = new JPanel(new BorderLayout(10, 0));
+		searchPanel.setBackground(Color.WHITE);
+		JLabel searchLabel = new JLabel("Buscar:");
+		searchLabel.setFont(new Font("Arial", Font.BOLD, 14));
+		searchField = new SearchField(this::searchBooks);
+		searchField.setFont(new Font("Arial", Font.PLAIN, 14));
+		JButton searchButton = createStyledButton("Buscar");
+		searchButton.addActionListener(e -> searchField.searchNow());
+		searchPanel.add(searchLabel, BorderLayout.WEST);
+		searchPanel.add(searchField, BorderLayout.CENTER);
+		searchPanel.add(searchButton, BorderLayout.EAST);
+		return searchPanel;
+	}
+
+	/*
+	 * Busca en el índice en memoria y muestra los libros encontrados; sin texto se
+	 * muestra todo. Un prefijo corto encaja con buena parte del catálogo, así que la
+	 * búsqueda se hace fuera del EDT y una búsqueda nueva cancela la anterior.
+	 */
+	private void searchBooks(String text) {
+		if (searchTask != null) {
+			searchTask.abort();
+		}
+		if (text.isBlank()) {
+			showSearchResults(null);
+			return;
+		}
+		BookSearchIndex index = BookSearchIndex.getInstance();
+		if (!index.isReady()) {
+			JOptionPane.showMessageDialog(this, "El índice de búsqueda todavía se está construyendo.");
+			return;
+		}
+		searchTask = loader.compute(() -> index.search(text, SEARCH_LIMIT), this::showSearchResults,
+				e -> JOptionPane.showMessageDialog(this, "Error al buscar: " + e.getMessage(), "Error",
+						JOptionPane.ERROR_MESSAGE));
+	}
+
+	private void showSearchResults(List<Long> results) {
+		searchResults = results;
+		tableModel.setQuery(LibraryService.bookQuery(disponibilidadFilter, searchResults));
 	}
 
 	private JPanel createButtonPanel() {
@@ -86,41 +153,45 @@ public class BookManagementFrame extends JFrame implements Serializable {
 			JButton addButton = createStyledButton("Añadir");
 			JButton editButton = createStyledButton("Editar");
 			JButton deleteButton = createStyledButton("Eliminar");
+			JButton importButton = createStyledButton("Importar CSV");
 			JButton backButton = createStyledButton("Volver");
 
-			backButton.addActionListener(e -> {
+			backButton.addActionListener(UiActionEvent.listener(this, "Volver", () -> {
 				if (SessionManager.isUser()) {
 					new UserFrame().setVisible(true);
 				} else {
 					new AdminFrame().setVisible(true);
 				}
 				dispose();
-			});
+			}));
 
-			addButton.addActionListener(e -> addBook());
-			editButton.addActionListener(e -> editBook());
-			deleteButton.addActionListener(e -> deleteBook());
+			addButton.addActionListener(UiActionEvent.listener(this, "Añadir", this::addBook));
+			editButton.addActionListener(UiActionEvent.listener(this, "Editar", this::editBook));
+			deleteButton.addActionListener(UiActionEvent.listener(this, "Eliminar", this::deleteBook));
+			importButton.addActionListener(UiActionEvent.listener(this, "Importar CSV", this::importBooks));
 
 			buttonPanel.add(addButton);
 			buttonPanel.add(editButton);
 			buttonPanel.add(deleteButton);
+			buttonPanel.add(importButton);
 			buttonPanel.add(backButton);
 		} else {
 			JButton backButton = createStyledButton("Volver");
-			backButton.addActionListener(e -> {
+			backButton.addActionListener(UiActionEvent.listener(this, "Volver", () -> {
 				if (SessionManager.isUser()) {
 					new UserFrame().setVisible(true);
 				} else {
 					new AdminFrame().setVisible(true);
 				}
 				dispose();
-			});
+			}));
 		
 			JButton reserveButton = createStyledButton("Reservar");
-			reserveButton.addActionListener(e -> reserveBook());
+			reserveButton.addActionListener(UiActionEvent.listener(this, "Reservar", this::reserveBook));
 
 			JButton unavailableBooksButton = createStyledButton("Ver libros no disponibles");
-			unavailableBooksButton.addActionListener(e -> toggleBookView(unavailableBooksButton));
+			unavailableBooksButton.addActionListener(UiActionEvent.listener(this, "Ver libros no disponibles",
+					() -> toggleBookView(unavailableBooksButton)));
 
 			buttonPanel.add(backButton);
 			buttonPanel.add(reserveButton); // Agrega el botón "Reservar"
@@ -140,81 +211,47 @@ public class BookManagementFrame extends JFrame implements Serializable {
 	    Long libroId = (Long) tableModel.getValueAt(selectedRow, 0);
 	    String disponibilidad = (String) tableModel.getValueAt(selectedRow, 4);
 
-	    if ("No disponible".equalsIgnoreCase(disponibilidad)) {
-	        JOptionPane.showMessageDialog(this, "El libro seleccionado no está disponible para reservar.");
-	        return;
-	    }
-
 	    Long clienteId = SessionManager.getClienteId();
 	    if (clienteId == null) {
 	        JOptionPane.showMessageDialog(this, "No se encontró un cliente autenticado en la sesión.");
 	        return;
 	    }
 
-	    try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-	        Transaction transaction = session.beginTransaction();
-	        try {
-	            // Obtener el libro
-	            Libro libro = session.get(Libro.class, libroId);
-	            if (libro != null && libro.isDisponibilidad()) {
-	                // Actualizar disponibilidad del libro
-	                libro.setDisponibilidad(false);
-	                session.merge(libro);
-
-	                // Obtener el usuario autenticado
-	                Usuario usuario = session.get(Usuario.class, clienteId);
-	                if (usuario == null) {
-	                    throw new RuntimeException("Usuario no encontrado con ID: " + clienteId);
-	                }
-
-	                // Crear nuevo registro en la tabla de préstamos
-	                Prestamo nuevoPrestamo = new Prestamo();
-	                nuevoPrestamo.setUsuario(usuario);
-	                nuevoPrestamo.setLibro(libro);
-	                nuevoPrestamo.setFechaPrestamo(LocalDate.now());
-	                nuevoPrestamo.setFechaDevolucion(LocalDate.now().plusMonths(1));
-
-	                session.persist(nuevoPrestamo);
-
-	                // Crear nuevo registro en la tabla de reservas
-	                Reserva nuevaReserva = new Reserva();
-	                nuevaReserva.setUsuario(usuario);
-	                nuevaReserva.setLibro(libro);
-	                nuevaReserva.setFechaReserva(new Date());
-	                nuevaReserva.setEstado(Reserva.EstadoReserva.Pendiente); // Estado inicial como "Pendiente"
-
-	                session.persist(nuevaReserva);
-
-	                transaction.commit();
-	                loadBooks();
-	                JOptionPane.showMessageDialog(this, "El libro ha sido reservado con éxito.");
-	            } else {
-	                JOptionPane.showMessageDialog(this, "No se pudo reservar el libro. Verifique la disponibilidad.");
+	    try {
+	        // El libro se toma con un UPDATE condicionado; si otro puesto se ha adelantado, no está disponible
+	        Reservations.Outcome outcome = "No disponible".equalsIgnoreCase(disponibilidad)
+	                ? Reservations.Outcome.NO_DISPONIBLE
+	                : LibraryService.reserve(libroId, clienteId);
+	        if (outcome == Reservations.Outcome.NO_DISPONIBLE) {
+	            int confirm = JOptionPane.showConfirmDialog(this,
+	                    "El libro no está disponible. ¿Desea apuntarse a la lista de espera?\n"
+	                            + "Se le prestará automáticamente cuando le llegue el turno.",
+	                    "Lista de espera", JOptionPane.YES_NO_OPTION);
+	            if (confirm == JOptionPane.YES_OPTION) {
+	                outcome = LibraryService.enqueue(libroId, clienteId);
+	            }
+	        }
+	        switch (outcome) {
+	            case RESERVADO -> JOptionPane.showMessageDialog(this, "El libro ha sido reservado con éxito.");
+	            case EN_ESPERA -> JOptionPane.showMessageDialog(this, "Se ha apuntado a la lista de espera del libro.");
+	            case YA_EN_ESPERA -> JOptionPane.showMessageDialog(this,
+	                    "Ya tiene este libro prestado o está en su lista de espera.");
+	            case NO_DISPONIBLE -> {
+	                // No se ha apuntado a la lista de espera
 	            }
-	        } catch (Exception e) {
-	            transaction.rollback();
-	            JOptionPane.showMessageDialog(this, "Error al reservar el libro: " + e.getMessage(), "Error",
-	                    JOptionPane.ERROR_MESSAGE);
 	        }
+	    } catch (Exception e) {
+	        JOptionPane.showMessageDialog(this, "Error al reservar el libro: " + e.getMessage(), "Error",
+	                JOptionPane.ERROR_MESSAGE);
 	    }
 	}
 
 
 	private void loadUnavailableBooks() {
-		tableModel.setRowCount(0); // Limpia la tabla antes de cargar nuevos datos
-		try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-			// Consulta para obtener solo los libros no disponibles
-			String hql = "FROM Libro WHERE disponibilidad = false";
-			List<Libro> librosNoDisponibles = session.createQuery(hql, Libro.class).list();
-			for (Libro libro : librosNoDisponibles) {
-				tableModel.addRow(new Object[] { libro.getId(), libro.getTitulo(), libro.getAutor(), libro.getGenero(),
-						libro.isDisponibilidad() ? "Disponible" : "No disponible" });
-				
-			}
-		} catch (Exception e) {
-			JOptionPane.showMessageDialog(this, "Error al cargar los libros no disponibles: " + e.getMessage(), "Error",
-					JOptionPane.ERROR_MESSAGE);
-		}
+		// Consulta para obtener solo los libros no disponibles
+		loadErrorMessage = "Error al cargar los libros no disponibles: ";
+		disponibilidadFilter = false;
+		tableModel.setQuery(LibraryService.bookQuery(disponibilidadFilter, searchResults));
 	}
 
 	private JButton createStyledButton(String text) {
@@ -227,20 +264,55 @@ public class BookManagementFrame extends JFrame implements Serializable {
 	}
 
 	private void loadBooks() {
-		tableModel.setRowCount(0);
-		try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-			String hql = SessionManager.isUser() ? "FROM Libro WHERE disponibilidad = true" : "FROM Libro";
-			List<Libro> libros = session.createQuery(hql, Libro.class).list();
-			for (Libro libro : libros) {
-				tableModel.addRow(new Object[] { libro.getId(), libro.getTitulo(), libro.getAutor(), libro.getGenero(),
-						libro.isDisponibilidad() ? "Disponible" : "No disponible" });
+		loadErrorMessage = "Error al cargar los libros: ";
+		disponibilidadFilter = SessionManager.isUser() ? Boolean.TRUE : null;
+		tableModel.setQuery(LibraryService.bookQuery(disponibilidadFilter, searchResults));
+	}
+
+	// Aplica a la tabla los cambios confirmados desde esta u otras ventanas, fila a fila
+	private void onLibraryEvent(LibraryEvent event) {
+		switch (event) {
+			case LibraryEvent.BookReserved reserved -> availabilityChanged(reserved.libroId(), false);
+			case LibraryEvent.BookReturned returned -> {
+				// Si pasa al siguiente de la lista de espera sigue sin estar disponible
+				if (returned.entregado() == null) {
+					availabilityChanged(returned.libroId(), true);
+				}
 			}
-		} catch (Exception e) {
-			JOptionPane.showMessageDialog(this, "Error al cargar los libros: " + e.getMessage(), "Error",
-					JOptionPane.ERROR_MESSAGE);
+			case LibraryEvent.BookEdited edited -> {
+				switch (edited.change()) {
+					case CREATED -> tableModel.rowInserted(edited.libroId());
+					case UPDATED -> tableModel.rowUpdated(edited.libroId());
+					case DELETED -> tableModel.rowDeleted(edited.libroId());
+				}
+			}
+			default -> {
+				// Usuarios y préstamos no se muestran en esta ventana
+			}
+		}
+	}
+
+	// Con un filtro de disponibilidad el libro entra en el listado o sale de él
+	private void availabilityChanged(long libroId, boolean disponible) {
+		if (disponibilidadFilter == null) {
+			tableModel.rowUpdated(libroId);
+		} else if (disponibilidadFilter == disponible) {
+			tableModel.rowInserted(libroId);
+		} else {
+			tableModel.rowDeleted(libroId);
 		}
 	}
 
+	@Override
+	public void dispose() {
+		unsubscribe.run();
+		if (searchTask != null) {
+			searchTask.abort();
+		}
+		tableModel.dispose();
+		super.dispose();
+	}
+
 	private void addBook() {
 		JTextField tituloField = new JTextField();
 		JTextField autorField = new JTextField();
@@ -259,23 +331,10 @@ public class BookManagementFrame extends JFrame implements Serializable {
 		int result = JOptionPane.showConfirmDialog(null, panel, "Añadir Libro", JOptionPane.OK_CANCEL_OPTION,
 				JOptionPane.PLAIN_MESSAGE);
 		if (result == JOptionPane.OK_OPTION) {
-			try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-				Transaction transaction = session.beginTransaction();
-				try {
-					Libro nuevoLibro = new Libro();
-					nuevoLibro.setTitulo(tituloField.getText());
-					nuevoLibro.setAutor(autorField.getText());
-					nuevoLibro.setGenero(generoField.getText());
-					nuevoLibro.setDisponibilidad(disponibilidadCheck.isSelected());
-
-					session.persist(nuevoLibro);
-					transaction.commit();
-					loadBooks();
-					JOptionPane.showMessageDialog(this, "Libro añadido con éxito");
-				} catch (Exception e) {
-					transaction.rollback();
-					throw e;
-				}
+			try {
+				LibraryService.addBook(tituloField.getText(), autorField.getText(), generoField.getText(),
+						disponibilidadCheck.isSelected());
+				JOptionPane.showMessageDialog(this, "Libro añadido con éxito");
 			} catch (Exception e) {
 				JOptionPane.showMessageDialog(this, "Error al añadir el libro: " + e.getMessage(), "Error",
 						JOptionPane.ERROR_MESSAGE);
@@ -283,6 +342,65 @@ public class BookManagementFrame extends JFrame implements Serializable {
 		}
 	}
 
+	/*
+	 * Importa libros desde un fichero CSV en segundo plano. Si una importación
+	 * anterior del mismo fichero se interrumpió, continúa donde se quedó.
+	 */
+	private void importBooks() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("Ficheros CSV", "csv"));
+		if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		CatalogImporter importer = new CatalogImporter(chooser.getSelectedFile().toPath());
+		loader.call(session -> {
+			try {
+				return importer.wasImported(session);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, imported -> {
+			if (imported && JOptionPane.showConfirmDialog(this,
+					"Este fichero ya se importó. ¿Desea importarlo de nuevo?", "Importar libros",
+					JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+				return;
+			}
+			startImport(importer);
+		}, e -> JOptionPane.showMessageDialog(this, "Error al leer el fichero: " + e.getMessage(), "Error",
+				JOptionPane.ERROR_MESSAGE));
+	}
+
+	private void startImport(CatalogImporter importer) {
+		ProgressDialog progress = new ProgressDialog(this, "Importar libros", "Importando libros...");
+		BackgroundLoader.Task<?, ?> task = loader.track(importer::run,
+				records -> progress.setStatus(String.format("%,d registros procesados", records)),
+				result -> {
+					progress.dispose();
+					tableModel.reload();
+					String message = String.format("Importación completada: %,d libros importados y %,d rechazados.",
+							result.imported(), result.rejected());
+					if (result.rejectedFile() != null) {
+						message += "\nLas filas rechazadas y su motivo están en " + result.rejectedFile();
+					}
+					JOptionPane.showMessageDialog(this, message);
+				}, e -> {
+					progress.dispose();
+					tableModel.reload();
+					JOptionPane.showMessageDialog(this, "Error al importar los libros: " + e.getMessage()
+							+ "\nLo importado hasta el error se conserva; vuelva a importar el fichero para continuar.",
+							"Error", JOptionPane.ERROR_MESSAGE);
+				});
+		progress.setOnCancel(() -> {
+			// El bloque en curso termina de confirmarse y la importación puede reanudarse
+			task.abort();
+			progress.dispose();
+			tableModel.reload();
+			JOptionPane.showMessageDialog(this,
+					"Importación detenida. Vuelva a importar el mismo fichero para continuar donde se quedó.");
+		});
+		progress.setVisible(true);
+	}
+
 	private void editBook() {
 		int selectedRow = bookTable.getSelectedRow();
 		if (selectedRow < 0) {
@@ -291,42 +409,30 @@ public class BookManagementFrame extends JFrame implements Serializable {
 		}
 
 		Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-		try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-			Transaction transaction = session.beginTransaction();
-			try {
-				Libro libro = session.get(Libro.class, id);
-				if (libro != null) {
-					JTextField tituloField = new JTextField(libro.getTitulo());
-					JTextField autorField = new JTextField(libro.getAutor());
-					JTextField generoField = new JTextField(libro.getGenero());
-					JCheckBox disponibilidadCheck = new JCheckBox("Disponible", libro.isDisponibilidad());
-
-					JPanel panel = new JPanel(new GridLayout(0, 1));
-					panel.add(new JLabel("Título:"));
-					panel.add(tituloField);
-					panel.add(new JLabel("Autor:"));
-					panel.add(autorField);
-					panel.add(new JLabel("Género:"));
-					panel.add(generoField);
-					panel.add(disponibilidadCheck);
-
-					int result = JOptionPane.showConfirmDialog(null, panel, "Editar Libro",
-							JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-					if (result == JOptionPane.OK_OPTION) {
-						libro.setTitulo(tituloField.getText());
-						libro.setAutor(autorField.getText());
-						libro.setGenero(generoField.getText());
-						libro.setDisponibilidad(disponibilidadCheck.isSelected());
-
-						session.merge(libro);
-						transaction.commit();
-						loadBooks();
-						JOptionPane.showMessageDialog(this, "Libro actualizado con éxito");
-					}
+		try {
+			Libro libro = LibraryService.getBook(id);
+			if (libro != null) {
+				JTextField tituloField = new JTextField(libro.getTitulo());
+				JTextField autorField = new JTextField(libro.getAutor());
+				JTextField generoField = new JTextField(libro.getGenero());
+				JCheckBox disponibilidadCheck = new JCheckBox("Disponible", libro.isDisponibilidad());
+
+				JPanel panel = new JPanel(new GridLayout(0, 1));
+				panel.add(new JLabel("Título:"));
+				panel.add(tituloField);
+				panel.add(new JLabel("Autor:"));
+				panel.add(autorField);
+				panel.add(new JLabel("Género:"));
+				panel.add(generoField);
+				panel.add(disponibilidadCheck);
+
+				int result = JOptionPane.showConfirmDialog(null, panel, "Editar Libro",
+						JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+				if (result == JOptionPane.OK_OPTION) {
+					LibraryService.updateBook(id, tituloField.getText(), autorField.getText(),
+							generoField.getText(), disponibilidadCheck.isSelected());
+					JOptionPane.showMessageDialog(this, "Libro actualizado con éxito");
 				}
-			} catch (Exception e) {
-				transaction.rollback();
-				throw e;
 			}
 		} catch (Exception e) {
 			JOptionPane.showMessageDialog(this, "Error al editar el libro: " + e.getMessage(), "Error",
@@ -346,19 +452,9 @@ public class BookManagementFrame extends JFrame implements Serializable {
 				"Confirmar eliminación", JOptionPane.YES_NO_OPTION);
 
 		if (confirm == JOptionPane.YES_OPTION) {
-			try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-				Transaction transaction = session.beginTransaction();
-				try {
-					Libro libro = session.get(Libro.class, id);
-					if (libro != null) {
-						session.remove(libro);
-						transaction.commit();
-						loadBooks();
-						JOptionPane.showMessageDialog(this, "Libro eliminado con éxito");
-					}
-				} catch (Exception e) {
-					transaction.rollback();
-					throw e;
+			try {
+				if (LibraryService.deleteBook(id)) {
+					JOptionPane.showMessageDialog(this, "Libro eliminado con éxito");
 				}
 			} catch (Exception e) {
 				JOptionPane.showMessageDialog(this, "Error al eliminar el libro: " + e.getMessage(), "Error",
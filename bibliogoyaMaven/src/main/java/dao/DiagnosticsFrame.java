@@ -0,0 +1,305 @@
+package dao;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.Serializable;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import dao.util.HibernateUtil;
+import dao.util.LatencyHistogram;
+import dao.util.LatencyStatistics;
+import dao.util.PoolMonitor;
+import dao.util.QueryResultCache;
+
+/**
+ * Panel de diagnóstico para el administrador: estadísticas de Hibernate
+ * (transacciones, sentencias, cargas de entidades, aciertos de la caché de
+ * segundo nivel y de la caché de consultas) y, por cada consulta HQL, sus
+ * ejecuciones, tiempos y filas. Permite ver qué consulta de una ventana es lenta
+ * en producción sin activar {@code hibernate.show_sql}.
+ *
+ * Los datos se leen cada {@value #REFRESH_SECONDS} segundos en un hilo propio y
+ * se aplican en el EDT celda a celda, así que la tabla conserva el orden y la
+ * selección mientras se actualiza.
+ */
+public class DiagnosticsFrame extends JFrame implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int REFRESH_SECONDS = 2;
+    private static final DateTimeFormatter SINCE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private final DefaultTableModel summaryModel = readOnlyModel(new String[] { "Métrica", "Valor" },
+            String.class, String.class);
+    private final DefaultTableModel queryModel = readOnlyModel(
+            new String[] { "Consulta HQL", "Ejecuciones", "Media (ms)", "Máx. (ms)", "p99 (ms)", "Filas" },
+            String.class, Long.class, Double.class, Long.class, Double.class, Long.class);
+    // Fila de cada consulta en queryModel
+    private final transient Map<String, Integer> queryRows = new HashMap<>();
+    private transient ScheduledExecutorService refresher;
+    private JLabel statusLabel;
+
+    public DiagnosticsFrame() {
+        initializeFrame();
+        setupComponents();
+        startRefreshing();
+    }
+
+    // Inicialización del frame
+    private void initializeFrame() {
+        setTitle("Diagnóstico");
+        setSize(1000, 650);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+    }
+
+    // Configuración de los componentes del frame
+    private void setupComponents() {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.setBackground(Color.WHITE);
+
+        JTable summaryTable = createTable(summaryModel);
+        summaryTable.getColumnModel().getColumn(0).setPreferredWidth(300);
+        summaryTable.getColumnModel().getColumn(1).setPreferredWidth(500);
+        JTable queryTable = createTable(queryModel);
+        queryTable.setAutoCreateRowSorter(true);
+        queryTable.getColumnModel().getColumn(0).setPreferredWidth(550);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(summaryTable),
+                new JScrollPane(queryTable));
+        splitPane.setResizeWeight(0.45);
+        mainPanel.add(splitPane, BorderLayout.CENTER);
+        mainPanel.add(createBottomPanel(), BorderLayout.SOUTH);
+
+        add(createTopPanel(), BorderLayout.NORTH);
+        add(mainPanel, BorderLayout.CENTER);
+    }
+
+    // Creación del panel superior
+    private JPanel createTopPanel() {
+        JPanel topPanel = new JPanel();
+        topPanel.setBackground(new Color(70, 130, 180));
+        JLabel titleLabel = new JLabel("📈 Diagnóstico", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        topPanel.add(titleLabel);
+        return topPanel;
+    }
+
+    // Creación del panel inferior con el periodo medido y los botones
+    private JPanel createBottomPanel() {
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBackground(Color.WHITE);
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        bottomPanel.add(statusLabel, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.setBackground(Color.WHITE);
+        JButton resetButton = createStyledButton("Reiniciar estadísticas");
+        resetButton.addActionListener(e -> resetStatistics());
+        JButton backButton = createStyledButton("Volver");
+        backButton.addActionListener(e -> {
+            new AdminFrame().setVisible(true);
+            dispose();
+        });
+        buttonPanel.add(resetButton);
+        buttonPanel.add(backButton);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+        return bottomPanel;
+    }
+
+    private void startRefreshing() {
+        refresher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+                .name("bibliogoya-diagnostico").factory());
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                Snapshot snapshot = takeSnapshot();
+                SwingUtilities.invokeLater(() -> apply(snapshot));
+            } catch (RuntimeException e) {
+                SwingUtilities.invokeLater(() -> statusLabel.setText("Error al leer las estadísticas: " + e));
+            }
+        }, 0, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void resetStatistics() {
+        if (JOptionPane.showConfirmDialog(this, "¿Desea poner a cero todas las estadísticas?",
+                "Reiniciar estadísticas", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+        refresher.execute(() -> {
+            HibernateUtil.getSessionFactory().getStatistics().clear();
+            SwingUtilities.invokeLater(() -> {
+                queryModel.setRowCount(0);
+                queryRows.clear();
+            });
+        });
+    }
+
+    // Lectura de las estadísticas, fuera del EDT
+    private static Snapshot takeSnapshot() {
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        List<String[]> summary = new ArrayList<>();
+        summary.add(row("Transacciones (confirmadas / total)",
+                "%,d / %,d", statistics.getSuccessfulTransactionCount(), statistics.getTransactionCount()));
+        summary.add(row("Sesiones (abiertas / cerradas)",
+                "%,d / %,d", statistics.getSessionOpenCount(), statistics.getSessionCloseCount()));
+        summary.add(row("Sentencias JDBC preparadas", "%,d", statistics.getPrepareStatementCount()));
+        summary.add(row("Consultas HQL ejecutadas", "%,d", statistics.getQueryExecutionCount()));
+        summary.add(row("Consulta más lenta", "%,d ms: %s", statistics.getQueryExecutionMaxTime(),
+                Objects.toString(statistics.getQueryExecutionMaxTimeQueryString(), "-")));
+        summary.add(row("Entidades cargadas / cargas sueltas (fetch)",
+                "%,d / %,d", statistics.getEntityLoadCount(), statistics.getEntityFetchCount()));
+        summary.add(row("Entidades insertadas / actualizadas / borradas", "%,d / %,d / %,d",
+                statistics.getEntityInsertCount(), statistics.getEntityUpdateCount(),
+                statistics.getEntityDeleteCount()));
+        summary.add(row("Caché de segundo nivel", ratio(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount())));
+        for (Map.Entry<String, CacheRegionStatistics> region : HibernateUtil.getCacheStatistics().entrySet()) {
+            CacheRegionStatistics regionStatistics = region.getValue();
+            summary.add(row("    región " + region.getKey(),
+                    ratio(regionStatistics.getHitCount(), regionStatistics.getMissCount())));
+        }
+        QueryResultCache queryCache = QueryResultCache.getInstance();
+        summary.add(row("Caché de consultas (QueryResultCache)",
+                ratio(queryCache.getHitCount(), queryCache.getMissCount()) + ", "
+                        + String.format("%,d entradas", queryCache.size())));
+        PoolMonitor pool = PoolMonitor.getInstance();
+        summary.add(row("Conexiones (activas / inactivas / en espera)", "%d / %d / %d",
+                pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingCheckout()));
+        summary.add(row("Espera por conexión", pool.getCheckoutWait().toString()));
+
+        LatencyStatistics latencies = statistics instanceof LatencyStatistics l ? l : null;
+        List<QueryRow> queries = new ArrayList<>();
+        for (String hql : statistics.getQueries()) {
+            QueryStatistics query = statistics.getQueryStatistics(hql);
+            // Las consultas con nombre aparecen desde el arranque aunque no se hayan ejecutado
+            if (query.getExecutionCount() == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = latencies == null ? null : latencies.getLatency(hql);
+            queries.add(new QueryRow(hql, query.getExecutionCount(), query.getExecutionAvgTimeAsDouble(),
+                    query.getExecutionMaxTime(), histogram == null ? null : histogram.getPercentileMillis(99),
+                    query.getExecutionRowCount()));
+        }
+        return new Snapshot(statistics.getStart().toEpochMilli(), summary, queries);
+    }
+
+    // Aplica una lectura a las tablas cambiando solo las celdas distintas
+    private void apply(Snapshot snapshot) {
+        if (!isDisplayable()) {
+            return;
+        }
+        for (int i = 0; i < snapshot.summary().size(); i++) {
+            String[] row = snapshot.summary().get(i);
+            if (i < summaryModel.getRowCount()) {
+                update(summaryModel, i, row);
+            } else {
+                summaryModel.addRow(row);
+            }
+        }
+        for (QueryRow query : snapshot.queries()) {
+            Object[] row = { query.hql(), query.executions(), round(query.meanMillis()), query.maxMillis(),
+                    query.p99Millis(), query.rows() };
+            Integer index = queryRows.get(query.hql());
+            if (index == null) {
+                queryRows.put(query.hql(), queryModel.getRowCount());
+                queryModel.addRow(row);
+            } else {
+                update(queryModel, index, row);
+            }
+        }
+        statusLabel.setText(String.format("Desde %s; %,d consultas distintas. Se actualiza cada %d s.",
+                SINCE.format(java.time.Instant.ofEpochMilli(snapshot.since())), snapshot.queries().size(),
+                REFRESH_SECONDS));
+    }
+
+    private static void update(DefaultTableModel model, int row, Object[] values) {
+        for (int column = 0; column < values.length; column++) {
+            if (!Objects.equals(model.getValueAt(row, column), values[column])) {
+                model.setValueAt(values[column], row, column);
+            }
+        }
+    }
+
+    private static String[] row(String name, String format, Object... values) {
+        return new String[] { name, String.format(format, values) };
+    }
+
+    private static String[] row(String name, String value) {
+        return new String[] { name, value };
+    }
+
+    private static String ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? "sin accesos"
+                : String.format("%.1f %% aciertos (%,d aciertos, %,d fallos)", 100.0 * hits / total, hits, misses);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 10) / 10.0;
+    }
+
+    private static DefaultTableModel readOnlyModel(String[] columns, Class<?>... types) {
+        return new DefaultTableModel(columns, 0) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return types[column];
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private static JTable createTable(DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 14));
+        table.setRowHeight(20);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
+        table.setSelectionBackground(new Color(210, 228, 238));
+        return table;
+    }
+
+    private JButton createStyledButton(String text) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 16));
+        button.setBackground(new Color(70, 130, 180));
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        return button;
+    }
+
+    @Override
+    public void dispose() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        super.dispose();
+    }
+
+    // Estadísticas leídas en un momento: resumen (métrica y valor) y una fila por consulta
+    private record Snapshot(long since, List<String[]> summary, List<QueryRow> queries) {
+    }
+
+    private record QueryRow(String hql, long executions, double meanMillis, long maxMillis, Double p99Millis,
+            long rows) {
+    }
+}
@@ -3,16 +3,24 @@ package dao;
 import javax.swing.*;
 import java.awt.*;
 import java.io.Serializable;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
+import java.lang.System.Logger.Level;
+import org.hibernate.StatelessSession;
+import dao.entity.Credencial;
 import dao.entity.Usuario;
+import dao.service.LibraryService;
+import dao.util.BackgroundLoader;
+import dao.util.Credentials;
 import dao.util.HibernateUtil;
+import dao.util.OverdueLoans;
 
 public class LoginFrame extends JFrame implements Serializable {
     private static final long serialVersionUID = 1L;
     private JTextField userField;
     private JPasswordField passField;
     private JButton loginButton;
+    private final transient BackgroundLoader loader = new BackgroundLoader();
+
+    private static final System.Logger LOG = System.getLogger(LoginFrame.class.getName());
 
     public LoginFrame() {
         setupLookAndFeel();
@@ -121,53 +129,85 @@ public class LoginFrame extends JFrame implements Serializable {
         loginButton.addActionListener(e -> handleLogin());
     }
 
-    // Manejo del proceso de inicio de sesión
+    // Manejo del proceso de inicio de sesión; la consulta se hace fuera del EDT
     private void handleLogin() {
         String username = userField.getText();
         String password = new String(passField.getPassword());
 
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Usuario WHERE nombre = :username AND apellidos = :password";
-            Query<Usuario> query = session.createQuery(hql, Usuario.class);
-            query.setParameter("username", username);
-            query.setParameter("password", password);
-            Usuario usuario = query.uniqueResult();
-
-            if (usuario != null) {
-                Long usuarioID = usuario.getId();  // Obtener el ID del usuario
-
-                // Si es un administrador
-                if ("Administrador".equals(usuario.getRol())) {
-                    new AdminFrame().setVisible(true);
-                    SessionManager.setIsUser(false);
-                    SessionManager.setClienteId(usuarioID);
-                } else {
-                    // Crear el UserFrame y pasarle el usuarioID
-                    UserFrame userFrame = new UserFrame();
-                    SessionManager.setClienteId(usuarioID);
-                    SessionManager.setIsUser(true);
-                    userFrame.setVisible(true);
-                }
-
-                // Cerrar la ventana de login
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Usuario o contraseña incorrectos",
-                    "Error de inicio de sesión",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception ex) {
+        loginButton.setEnabled(false);
+        loader.compute(() -> LibraryService.authenticate(username, password), this::completeLogin, ex -> {
+            loginButton.setEnabled(true);
             JOptionPane.showMessageDialog(this,
                 "Error al conectar con la base de datos: " + ex.getMessage(),
                 "Error de base de datos",
                 JOptionPane.ERROR_MESSAGE);
             ex.printStackTrace();
+        });
+    }
+
+    private void completeLogin(Credentials.Result resultado) {
+        loginButton.setEnabled(true);
+        if (resultado.outcome() == Credentials.Outcome.CORRECTO) {
+            Usuario usuario = resultado.usuario();
+            Long usuarioID = usuario.getId();  // Obtener el ID del usuario
+
+            // Si es un administrador
+            if ("Administrador".equals(usuario.getRol())) {
+                new AdminFrame().setVisible(true);
+                SessionManager.setIsUser(false);
+                SessionManager.setClienteId(usuarioID);
+            } else {
+                // Crear el UserFrame y pasarle el usuarioID
+                UserFrame userFrame = new UserFrame();
+                SessionManager.setClienteId(usuarioID);
+                SessionManager.setIsUser(true);
+                userFrame.setVisible(true);
+            }
+            LOG.log(Level.INFO, "Primera pantalla tras el inicio de sesión visible a los {0} ms del arranque",
+                    HibernateUtil.uptimeMillis());
+
+            // Cerrar la ventana de login
+            dispose();
+        } else if (resultado.outcome() == Credentials.Outcome.BLOQUEADO) {
+            JOptionPane.showMessageDialog(this,
+                "Demasiados intentos fallidos. Vuelva a intentarlo dentro de unos minutos.",
+                "Error de inicio de sesión",
+                JOptionPane.ERROR_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(this,
+                "Usuario o contraseña incorrectos",
+                "Error de inicio de sesión",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /*
+     * Precalienta las consultas más habituales en cuanto la SessionFactory está
+     * lista: la del inicio de sesión y la primera página del catálogo, tanto la
+     * completa como la de libros disponibles.
+     */
+    private static void warmUp() {
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            session.createNamedSelectionQuery(Credencial.POR_LOGIN, Credencial.class)
+                .setParameter("login", "")
+                .list();
+            LibraryService.bookQuery(null, null).prepare(session);
+            LibraryService.bookQuery(Boolean.TRUE, null).prepare(session);
+            LOG.log(Level.INFO, "Consultas precalentadas a los {0} ms del arranque", HibernateUtil.uptimeMillis());
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Error al precalentar las consultas", ex);
         }
     }
 
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new LoginFrame());
+        // La SessionFactory se construye en segundo plano mientras se muestra la ventana
+        // La revisión de préstamos vencidos empieza cuando ya están precalentadas las consultas
+        HibernateUtil.bootstrap().thenRunAsync(LoginFrame::warmUp).thenRun(OverdueLoans::start);
+        SwingUtilities.invokeLater(() -> {
+            new LoginFrame();
+            LOG.log(Level.INFO, "Ventana de inicio de sesión visible a los {0} ms del arranque",
+                    HibernateUtil.uptimeMillis());
+        });
     }
-}
\ No newline at end of file
+}
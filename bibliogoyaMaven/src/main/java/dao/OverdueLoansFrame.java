@@ -0,0 +1,160 @@
+package dao;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import dao.dto.OverdueRow;
+import dao.service.LibraryService;
+import dao.util.BackgroundLoader;
+import dao.util.LibraryEvent;
+import dao.util.LibraryEvents;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Column;
+import dao.util.UiActionEvent;
+
+/**
+ * Lista para los administradores de los préstamos cuya fecha de devolución ya
+ * pasó, con los días de retraso y la multa de la última revisión. La revisión
+ * se ejecuta sola cada cierto tiempo ({@code OverdueLoans}); "Revisar ahora" la
+ * lanza en segundo plano sin esperar a la siguiente.
+ */
+public class OverdueLoansFrame extends JFrame implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private JTable overdueTable;
+    private PagedTableModel<OverdueRow> tableModel;
+    private JButton scanButton;
+    private final transient BackgroundLoader loader = new BackgroundLoader();
+    private transient Runnable unsubscribe;
+
+    public OverdueLoansFrame() {
+        initializeFrame();
+        setupComponents();
+        tableModel.refresh();
+        unsubscribe = LibraryEvents.subscribeOnEdt(this::onLibraryEvent);
+    }
+
+    // Inicialización del frame
+    private void initializeFrame() {
+        setTitle("Préstamos vencidos");
+        setSize(900, 500);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+    }
+
+    // Configuración de los componentes del frame
+    private void setupComponents() {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.setBackground(Color.WHITE);
+
+        setupOverdueTable();
+        mainPanel.add(new JScrollPane(overdueTable), BorderLayout.CENTER);
+        mainPanel.add(createButtonPanel(), BorderLayout.SOUTH);
+
+        add(createTopPanel(), BorderLayout.NORTH);
+        add(mainPanel, BorderLayout.CENTER);
+    }
+
+    // Creación del panel superior
+    private JPanel createTopPanel() {
+        JPanel topPanel = new JPanel();
+        topPanel.setBackground(new Color(70, 130, 180));
+        JLabel titleLabel = new JLabel("📚 Préstamos vencidos", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        topPanel.add(titleLabel);
+        return topPanel;
+    }
+
+    // Configuración de la tabla; los días de retraso se calculan a partir de la fecha de devolución
+    private void setupOverdueTable() {
+        List<Column<OverdueRow>> columns = List.of(
+            Column.of("Fecha de devolución", "p.fechaDevolucion", OverdueRow::fechaDevolucion),
+            Column.of("Libro", "l.titulo", OverdueRow::titulo),
+            Column.of("Usuario", "u.nombre", OverdueRow::usuario),
+            Column.<OverdueRow>of("Días de retraso", null,
+                    row -> ChronoUnit.DAYS.between(row.fechaDevolucion(), LocalDate.now())),
+            Column.<OverdueRow>of("Multa", "p.multa", OverdueRow::multa)
+                    .displayedAs(multa -> String.format("%.2f €", multa)));
+        tableModel = new PagedTableModel<>(LibraryService.overdueQuery(), columns);
+        tableModel.setOnError(e -> {
+            JOptionPane.showMessageDialog(this,
+                "Error al recuperar los préstamos vencidos: " + e.getMessage(),
+                "Error de Base de Datos",
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
+        overdueTable = new JTable(tableModel);
+        overdueTable.setFont(new Font("Arial", Font.PLAIN, 14));
+        overdueTable.setRowHeight(20);
+        overdueTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
+        overdueTable.setSelectionBackground(new Color(210, 228, 238));
+        tableModel.installSortHeader(overdueTable);
+    }
+
+    // Creación del panel de botones
+    private JPanel createButtonPanel() {
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.setBackground(Color.WHITE);
+
+        scanButton = createStyledButton("Revisar ahora");
+        JButton backButton = createStyledButton("Volver");
+
+        scanButton.addActionListener(UiActionEvent.listener(this, "Revisar ahora", this::scanNow));
+        backButton.addActionListener(UiActionEvent.listener(this, "Volver", () -> {
+            new AdminFrame().setVisible(true);
+            dispose();
+        }));
+
+        buttonPanel.add(scanButton);
+        buttonPanel.add(backButton);
+
+        return buttonPanel;
+    }
+
+    // Método para crear botones con estilo consistente
+    private JButton createStyledButton(String text) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 16));
+        button.setBackground(new Color(70, 130, 180));
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        return button;
+    }
+
+    // Revisa los préstamos en segundo plano; la tabla se recarga con el evento de la revisión
+    private void scanNow() {
+        scanButton.setEnabled(false);
+        loader.compute(LibraryService::checkOverdue, total -> {
+            scanButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, String.format("Se han revisado %,d préstamos vencidos.", total));
+        }, e -> {
+            scanButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Error al revisar los préstamos vencidos: " + e.getMessage(),
+                    "Error de Base de Datos", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    // Los préstamos cerrados desaparecen de la lista; una revisión cambia las multas
+    private void onLibraryEvent(LibraryEvent event) {
+        switch (event) {
+            case LibraryEvent.BookReturned returned -> tableModel.rowDeleted(returned.prestamoId());
+            case LibraryEvent.LoanRemoved removed -> tableModel.rowDeleted(removed.prestamoId());
+            case LibraryEvent.OverdueScanned scanned -> tableModel.reload();
+            default -> {
+                // Los préstamos nuevos no vencen hasta dentro de un mes
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        unsubscribe.run();
+        loader.cancelAll();
+        tableModel.dispose();
+        super.dispose();
+    }
+}
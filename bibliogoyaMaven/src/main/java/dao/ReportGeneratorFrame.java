@@ -0,0 +1,190 @@
+package dao;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Vector;
+import dao.util.BackgroundLoader;
+import dao.util.ReportEngine;
+import dao.util.ReportEngine.Report;
+
+/**
+ * Generador de informes de préstamos para el administrador. Los informes se
+ * calculan en segundo plano sobre las tablas de resumen y se muestran junto con
+ * el tiempo que ha tardado la consulta.
+ */
+public class ReportGeneratorFrame extends JFrame implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient BackgroundLoader loader = new BackgroundLoader();
+    private final DefaultTableModel tableModel = new DefaultTableModel() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private JComboBox<Report> reportBox;
+    private JTextField desdeField;
+    private JTextField hastaField;
+    private JButton generateButton;
+    private JLabel statusLabel;
+
+    public ReportGeneratorFrame() {
+        initializeFrame();
+        setupComponents();
+        generateReport();
+    }
+
+    // Inicialización del frame
+    private void initializeFrame() {
+        setTitle("Generador de Informes");
+        setSize(900, 550);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+    }
+
+    // Configuración de los componentes del frame
+    private void setupComponents() {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.setBackground(Color.WHITE);
+
+        mainPanel.add(createOptionsPanel(), BorderLayout.NORTH);
+
+        JTable reportTable = new JTable(tableModel);
+        reportTable.setFont(new Font("Arial", Font.PLAIN, 14));
+        reportTable.setRowHeight(20);
+        reportTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
+        reportTable.setSelectionBackground(new Color(210, 228, 238));
+        reportTable.setAutoCreateRowSorter(true);
+        mainPanel.add(new JScrollPane(reportTable), BorderLayout.CENTER);
+
+        mainPanel.add(createBottomPanel(), BorderLayout.SOUTH);
+
+        add(createTopPanel(), BorderLayout.NORTH);
+        add(mainPanel, BorderLayout.CENTER);
+    }
+
+    // Creación del panel superior
+    private JPanel createTopPanel() {
+        JPanel topPanel = new JPanel();
+        topPanel.setBackground(new Color(70, 130, 180));
+        JLabel titleLabel = new JLabel("📊 Generador de Informes", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        topPanel.add(titleLabel);
+        return topPanel;
+    }
+
+    // Selección del informe y del periodo (por defecto, el último año)
+    private JPanel createOptionsPanel() {
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        optionsPanel.setBackground(Color.WHITE);
+
+        reportBox = new JComboBox<>(Report.values());
+        reportBox.addActionListener(e -> updatePeriodFields());
+        desdeField = new JTextField(LocalDate.now().minusYears(1).toString(), 10);
+        hastaField = new JTextField(LocalDate.now().toString(), 10);
+        generateButton = createStyledButton("Generar");
+        generateButton.addActionListener(e -> generateReport());
+
+        optionsPanel.add(new JLabel("Informe:"));
+        optionsPanel.add(reportBox);
+        optionsPanel.add(new JLabel("Desde:"));
+        optionsPanel.add(desdeField);
+        optionsPanel.add(new JLabel("Hasta:"));
+        optionsPanel.add(hastaField);
+        optionsPanel.add(generateButton);
+        updatePeriodFields();
+        return optionsPanel;
+    }
+
+    // Creación del panel inferior con el resumen y el botón de volver
+    private JPanel createBottomPanel() {
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBackground(Color.WHITE);
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        bottomPanel.add(statusLabel, BorderLayout.CENTER);
+
+        JButton backButton = createStyledButton("Volver");
+        backButton.addActionListener(e -> {
+            new AdminFrame().setVisible(true);
+            dispose();
+        });
+        bottomPanel.add(backButton, BorderLayout.EAST);
+        return bottomPanel;
+    }
+
+    // Método para crear botones con estilo consistente
+    private JButton createStyledButton(String text) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 16));
+        button.setBackground(new Color(70, 130, 180));
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        return button;
+    }
+
+    private void updatePeriodFields() {
+        boolean usesPeriod = ((Report) reportBox.getSelectedItem()).usesPeriod();
+        desdeField.setEnabled(usesPeriod);
+        hastaField.setEnabled(usesPeriod);
+    }
+
+    // Genera el informe seleccionado en segundo plano
+    private void generateReport() {
+        Report report = (Report) reportBox.getSelectedItem();
+        LocalDate desde;
+        LocalDate hasta;
+        try {
+            desde = LocalDate.parse(desdeField.getText().trim());
+            hasta = LocalDate.parse(hastaField.getText().trim());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Introduzca las fechas con el formato aaaa-mm-dd.",
+                    "Fecha no válida", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (desde.isAfter(hasta)) {
+            JOptionPane.showMessageDialog(this, "La fecha inicial es posterior a la final.",
+                    "Periodo no válido", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        loader.cancelAll();
+        generateButton.setEnabled(false);
+        statusLabel.setText("Generando informe...");
+        loader.call(session -> ReportEngine.generate(session, report, desde, hasta), this::showResult, e -> {
+            generateButton.setEnabled(true);
+            statusLabel.setText(" ");
+            JOptionPane.showMessageDialog(this, "Error al generar el informe: " + e.getMessage(),
+                    "Error de Base de Datos", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
+    }
+
+    // Carga el resultado en la tabla de una vez, con un único evento
+    private void showResult(ReportEngine.Result result) {
+        Vector<Vector<Object>> data = new Vector<>(result.rows().size());
+        for (Object[] row : result.rows()) {
+            data.add(new Vector<>(Arrays.asList(row)));
+        }
+        tableModel.setDataVector(data, new Vector<>(result.columns()));
+        statusLabel.setText(String.format("%s · %,d filas · generado en %d ms", result.summary(),
+                result.rows().size(), result.millis()));
+        generateButton.setEnabled(true);
+    }
+
+    @Override
+    public void dispose() {
+        loader.cancelAll();
+        super.dispose();
+    }
+}
@@ -1,29 +1,40 @@
 package dao;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.Serializable;
 import java.util.List;
-import java.util.Date;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
-import org.hibernate.query.Query;
+import dao.dto.LoanRow;
 import dao.entity.Reserva;
 import dao.entity.Libro;
-import dao.entity.Prestamo;
 import dao.entity.Usuario;
-import dao.util.HibernateUtil;
+import dao.service.LibraryService;
+import dao.util.BackgroundLoader;
+import dao.util.BookSearchIndex;
+import dao.util.LibraryEvent;
+import dao.util.LibraryEvents;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Column;
+import dao.util.SearchField;
+import dao.util.UiActionEvent;
+import dao.util.UserSearchIndex;
 
 public class ReservaManagementFrame extends JFrame implements Serializable {
     private static final long serialVersionUID = 1L;
+    // Número máximo de libros y de usuarios encontrados cuyos préstamos se muestran
+    private static final int SEARCH_LIMIT = 500;
     private JTable reservaTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<LoanRow> tableModel;
+    private SearchField searchField;
+    private final transient BackgroundLoader loader = new BackgroundLoader();
+    private transient BackgroundLoader.Task<?, ?> searchTask;
+    private transient Runnable unsubscribe;
 
     public ReservaManagementFrame() {
         initializeFrame();
         setupComponents();
         loadReservas();
+        unsubscribe = LibraryEvents.subscribeOnEdt(this::onLibraryEvent);
     }
 
     // Inicialización del frame
@@ -44,6 +55,7 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
         setupReservaTable();
         JScrollPane scrollPane = new JScrollPane(reservaTable);
         mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(createSearchPanel(), BorderLayout.NORTH);
 
         JPanel buttonPanel = createButtonPanel();
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
@@ -65,18 +77,71 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
 
     // Configuración de la tabla de reservas
     private void setupReservaTable() {
-        String[] columns = {"ID", "Libro", "Autor", "Fecha Reserva", "Estado", "Reservado por"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        List<Column<LoanRow>> columns = List.of(
+            Column.of("ID", "p.id", LoanRow::id),
+            Column.of("ID Libro", "l.id", LoanRow::libroId),
+            Column.of("Libro", "l.titulo", LoanRow::titulo),
+            Column.of("Autor", "l.autor", LoanRow::autor),
+            Column.of("Fecha Reserva", "l.genero", LoanRow::genero),
+            Column.of("Estado", "p.fechaPrestamo", LoanRow::fechaPrestamo),
+            Column.of("Reservado por", "u.nombre", LoanRow::usuario));
+        tableModel = new PagedTableModel<>(LibraryService.loanQuery(), columns);
+        tableModel.setOnError(e -> {
+            JOptionPane.showMessageDialog(this,
+                "Error al recuperar los libros prestados: " + e.getMessage(),
+                "Error de Base de Datos",
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         reservaTable = new JTable(tableModel);
         reservaTable.setFont(new Font("Arial", Font.PLAIN, 14));
         reservaTable.setRowHeight(20);
         reservaTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
         reservaTable.setSelectionBackground(new Color(210, 228, 238));
+        tableModel.installSortHeader(reservaTable);
+    }
+
+    // Panel con la caja de búsqueda, que busca mientras se escribe
+    private JPanel createSearchPanel() {
+        JPanel searchPanel = new JPanel(new BorderLayout(10, 0));
+        searchPanel.setBackground(Color.WHITE);
+        JLabel searchLabel = new JLabel("Buscar:");
+        searchLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        searchField = new SearchField(this::searchLoans);
+        searchField.setFont(new Font("Arial", Font.PLAIN, 14));
+        searchField.setToolTipText("Título, autor o género del libro, o nombre del usuario");
+        JButton searchButton = createStyledButton("Buscar");
+        searchButton.addActionListener(e -> searchField.searchNow());
+        searchPanel.add(searchLabel, BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchPanel.add(searchButton, BorderLayout.EAST);
+        return searchPanel;
+    }
+
+    /*
+     * Busca fuera del EDT en los índices de libros y de usuarios y muestra los
+     * préstamos de los libros o de los usuarios encontrados; sin texto se muestran
+     * todos. Una búsqueda nueva cancela la anterior.
+     */
+    private void searchLoans(String text) {
+        if (searchTask != null) {
+            searchTask.abort();
+        }
+        if (text.isBlank()) {
+            tableModel.setQuery(LibraryService.loanQuery());
+            return;
+        }
+        BookSearchIndex libros = BookSearchIndex.getInstance();
+        UserSearchIndex usuarios = UserSearchIndex.getInstance();
+        if (!libros.isReady() || !usuarios.isReady()) {
+            JOptionPane.showMessageDialog(this, "El índice de búsqueda todavía se está construyendo.");
+            return;
+        }
+        searchTask = loader.compute(
+                () -> LibraryService.loanQuery(libros.search(text, SEARCH_LIMIT), usuarios.search(text, SEARCH_LIMIT)),
+                tableModel::setQuery,
+                e -> JOptionPane.showMessageDialog(this, "Error al buscar: " + e.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE));
     }
 
     // Creación del panel de botones
@@ -89,13 +154,13 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
         JButton deleteButton = createStyledButton("Eliminar");
         JButton backButton = createStyledButton("Volver");
 
-        addButton.addActionListener(e -> addReserva());
-        editButton.addActionListener(e -> editReserva());
-        deleteButton.addActionListener(e -> deleteReserva());
-        backButton.addActionListener(e -> {
+        addButton.addActionListener(UiActionEvent.listener(this, "Añadir", this::addReserva));
+        editButton.addActionListener(UiActionEvent.listener(this, "Editar", this::editReserva));
+        deleteButton.addActionListener(UiActionEvent.listener(this, "Eliminar", this::deleteReserva));
+        backButton.addActionListener(UiActionEvent.listener(this, "Volver", () -> {
             new AdminFrame().setVisible(true);
             dispose();
-        });
+        }));
 
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
@@ -115,44 +180,48 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
         return button;
     }
 
-    // Carga de reservas desde la base de datos
+    // Carga de reservas desde la base de datos; las páginas se piden según se muestran
     private void loadReservas() {
-        tableModel.setRowCount(0);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            // Consulta HQL para incluir el usuario asociado
-            String hql = "SELECT p FROM Prestamo p JOIN FETCH p.libro l JOIN FETCH p.usuario u";
-            Query<Prestamo> query = session.createQuery(hql, Prestamo.class);
-            List<Prestamo> prestamos = query.list();
-
-            tableModel.setRowCount(0); // Limpiar tabla existente
-            
-            for (Prestamo prestamo : prestamos) {
-                Libro libro = prestamo.getLibro();
-                Usuario usuario = prestamo.getUsuario(); // Obtener el usuario del préstamo
-                tableModel.addRow(new Object[]{
-                    libro.getId(),
-                    libro.getTitulo(),
-                    libro.getAutor(),
-                    libro.getGenero(),
-                    prestamo.getFechaPrestamo(),
-                    usuario.getNombre() // Incluir el nombre del usuario en la tabla
-                });
+        tableModel.refresh();
+    }
+
+    /*
+     * Aplica a la tabla los préstamos creados y cerrados desde cualquier ventana.
+     * Las reservas pendientes no son préstamos y no aparecen aquí.
+     */
+    private void onLibraryEvent(LibraryEvent event) {
+        switch (event) {
+            case LibraryEvent.BookReserved reserved -> tableModel.rowInserted(reserved.prestamoId());
+            case LibraryEvent.BookReturned returned -> {
+                tableModel.rowDeleted(returned.prestamoId());
+                if (returned.entregado() != null) {
+                    tableModel.rowInserted(returned.entregado().prestamoId());
+                }
+            }
+            case LibraryEvent.LoanRemoved removed -> tableModel.rowDeleted(removed.prestamoId());
+            case LibraryEvent.BookEdited edited when edited.change() == LibraryEvent.Change.UPDATED ->
+                    tableModel.rowsUpdated(row -> row.libroId() == edited.libroId());
+            default -> {
+                // La fila no guarda el id del usuario: un cambio de nombre se ve al volver a cargar la página
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error al recuperar los libros prestados: " + e.getMessage(),
-                "Error de Base de Datos", 
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
         }
     }
 
+    @Override
+    public void dispose() {
+        unsubscribe.run();
+        loader.cancelAll();
+        tableModel.dispose();
+        super.dispose();
+    }
+
 
     // Método para añadir una nueva reserva
     private void addReserva() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            List<Libro> libros = session.createQuery("FROM Libro WHERE disponibilidad = true", Libro.class).list();
-            List<Usuario> usuarios = session.createQuery("FROM Usuario", Usuario.class).list();
+        try {
+            // Solo libros disponibles; si otro puesto se adelanta, el usuario pasa a la lista de espera
+            List<Libro> libros = LibraryService.availableBooks();
+            List<Usuario> usuarios = LibraryService.allUsers();
 
             if (libros.isEmpty() || usuarios.isEmpty()) {
                 JOptionPane.showMessageDialog(this, "No hay libros disponibles o usuarios registrados");
@@ -169,22 +238,13 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
                     JOptionPane.QUESTION_MESSAGE, null, usuarios.toArray(), usuarios.get(0));
 
                 if (usuarioSeleccionado != null) {
-                    Transaction transaction = session.beginTransaction();
-                    try {
-                        Reserva nuevaReserva = new Reserva();
-                        nuevaReserva.setLibro(libroSeleccionado);
-                        nuevaReserva.setUsuario(usuarioSeleccionado);
-                        nuevaReserva.setFechaReserva(new Date());
-                        nuevaReserva.setEstado(Reserva.EstadoReserva.Pendiente);
-
-                        session.persist(nuevaReserva);
-                        transaction.commit();
-
-                        loadReservas();
-                        JOptionPane.showMessageDialog(this, "Reserva añadida con éxito");
-                    } catch (Exception e) {
-                        transaction.rollback();
-                        throw e;
+                    switch (LibraryService.addReserva(libroSeleccionado.getId(), usuarioSeleccionado.getId())) {
+                        case RESERVADO -> JOptionPane.showMessageDialog(this, "Reserva añadida con éxito");
+                        case EN_ESPERA -> JOptionPane.showMessageDialog(this,
+                                "El libro ya no está disponible; el usuario se ha apuntado a su lista de espera");
+                        case YA_EN_ESPERA -> JOptionPane.showMessageDialog(this,
+                                "El usuario ya tiene este libro prestado o está en su lista de espera");
+                        case NO_DISPONIBLE -> JOptionPane.showMessageDialog(this, "El libro no está disponible");
                     }
                 }
             }
@@ -202,29 +262,29 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
             return;
         }
 
-        Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Transaction transaction = session.beginTransaction();
-            try {
-                Reserva reserva = session.get(Reserva.class, id);
-                if (reserva != null) {
-                    String[] estados = {"Pendiente", "Completada", "Cancelada"};
-                    String estadoSeleccionado = (String) JOptionPane.showInputDialog(this,
-                        "Seleccione el nuevo estado:", "Editar Reserva",
-                        JOptionPane.QUESTION_MESSAGE, null,
-                        estados, reserva.getEstado().toString());
-
-                    if (estadoSeleccionado != null) {
-                        reserva.setEstado(Reserva.EstadoReserva.valueOf(estadoSeleccionado));
-                        session.merge(reserva);
-                        transaction.commit();
-                        loadReservas();
-                        JOptionPane.showMessageDialog(this, "Reserva actualizada con éxito");
-                    }
+        LoanRow prestamo = tableModel.getRow(selectedRow);
+        if (prestamo == null) {
+            return;
+        }
+        try {
+            // La tabla lista préstamos: se edita la reserva con la que el usuario obtuvo el libro
+            Reserva reserva = LibraryService.getLoanReserva(prestamo.libroId(), prestamo.usuarioId());
+            if (reserva == null) {
+                JOptionPane.showMessageDialog(this, "No se encontró la reserva de este préstamo");
+            } else {
+                // Una reserva solo entra en la lista de espera al añadirla, no al editarla
+                String[] estados = reserva.getEstado() == Reserva.EstadoReserva.Pendiente
+                        ? new String[] {"Pendiente", "Completada", "Cancelada"}
+                        : new String[] {"Completada", "Cancelada"};
+                String estadoSeleccionado = (String) JOptionPane.showInputDialog(this,
+                    "Seleccione el nuevo estado:", "Editar Reserva",
+                    JOptionPane.QUESTION_MESSAGE, null,
+                    estados, reserva.getEstado().toString());
+
+                if (estadoSeleccionado != null
+                        && LibraryService.setReservaEstado(reserva.getId(), Reserva.EstadoReserva.valueOf(estadoSeleccionado))) {
+                    JOptionPane.showMessageDialog(this, "Reserva actualizada con éxito");
                 }
-            } catch (Exception e) {
-                transaction.rollback();
-                throw e;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error al editar la reserva: " + e.getMessage(),
@@ -240,15 +300,12 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
             return;
         }
 
-        Long id;
-        try {
-            // Obtén el ID del préstamo seleccionado en la tabla
-            id = Long.valueOf(tableModel.getValueAt(selectedRow, 0).toString());
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error al obtener el ID del préstamo seleccionado: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+        // Id del préstamo de la fila, no el del libro que se muestra en otra columna
+        LoanRow prestamo = tableModel.getRow(selectedRow);
+        if (prestamo == null) {
             return;
         }
+        long id = prestamo.id();
 
         int confirm = JOptionPane.showConfirmDialog(this,
             "¿Está seguro de que desea eliminar este préstamo?",
@@ -256,24 +313,15 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction transaction = session.beginTransaction();
-                try {		
-                    // Busca el préstamo en la base de datos usando su ID
-                    Prestamo prestamo = session.get(Prestamo.class, id);
-                    if (prestamo != null) {
-                        session.remove(prestamo); // Elimina el préstamo
-                        transaction.commit();
-                        loadReservas(); // Recarga la tabla de datos
-                        JOptionPane.showMessageDialog(this, "Préstamo eliminado con éxito");
-                    } else {
-                        JOptionPane.showMessageDialog(this, "El préstamo no fue encontrado en la base de datos");
-                    }
-                } catch (Exception e) {
-                    transaction.rollback();
-                    JOptionPane.showMessageDialog(this, "Error al eliminar el préstamo: " + e.getMessage(),
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                    e.printStackTrace();
+            try {
+                // Elimina el préstamo y lo descuenta de los resúmenes de informes
+                // El libro pasa al primero de la lista de espera o vuelve a estar disponible
+                switch (LibraryService.deleteLoan(id)) {
+                    case DISPONIBLE -> JOptionPane.showMessageDialog(this, "Préstamo eliminado con éxito");
+                    case ENTREGADO -> JOptionPane.showMessageDialog(this,
+                            "Préstamo eliminado; el libro se ha prestado al siguiente usuario en espera");
+                    case SIN_PRESTAMO -> JOptionPane.showMessageDialog(this,
+                            "El préstamo no fue encontrado en la base de datos");
                 }
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, "Error al eliminar el préstamo: " + e.getMessage(),
@@ -282,5 +330,4 @@ public class ReservaManagementFrame extends JFrame implements Serializable {
             }
         }
     }
-
-}
\ No newline at end of file
+}
@@ -1,15 +1,17 @@
 package dao;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
 import java.io.Serializable;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
-import dao.entity.Libro;
-import dao.entity.Prestamo;
-import dao.util.HibernateUtil;
+import dao.dto.BorrowedBookRow;
+import dao.service.LibraryService;
+import dao.util.LibraryEvent;
+import dao.util.LibraryEvents;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Column;
+import dao.util.Reservations;
+import dao.util.UiActionEvent;
 
 /**
  * Frame para mostrar los libros prestados a un usuario específico. Esta clase
@@ -21,7 +23,8 @@ public class UserBorrowedBooks extends JFrame implements Serializable {
 
 // Componentes de la UI
 	private JTable reservedBooksTable;
-	private DefaultTableModel tableModel;
+	private PagedTableModel<BorrowedBookRow> tableModel;
+	private transient Runnable unsubscribe;
 
 // Constantes visuales
 	private static final Color PRIMARY_COLOR = new Color(70, 130, 180);
@@ -36,6 +39,7 @@ public class UserBorrowedBooks extends JFrame implements Serializable {
 		initializeFrame();
 		setupComponents();
 		loadBorrowedBooks();
+		unsubscribe = LibraryEvents.subscribeOnEdt(this::onLibraryEvent);
 	}
 
 // Inicializa las propiedades básicas del frame
@@ -80,19 +84,25 @@ public class UserBorrowedBooks extends JFrame implements Serializable {
 // Configura la tabla de libros prestados
 
 	private void setupBorrowedBooksTable() {
-		String[] columns = { "ID", "Título", "Autor", "Género", "Fecha de Préstamo" };
-		tableModel = new DefaultTableModel(columns, 0) {
-			@Override
-			public boolean isCellEditable(int row, int column) {
-				return false;
-			}
-		};
+		List<Column<BorrowedBookRow>> columns = List.of(
+				Column.of("ID", "l.id", BorrowedBookRow::libroId),
+				Column.of("Título", "l.titulo", BorrowedBookRow::titulo),
+				Column.of("Autor", "l.autor", BorrowedBookRow::autor),
+				Column.of("Género", "l.genero", BorrowedBookRow::genero),
+				Column.of("Fecha de Préstamo", "p.fechaPrestamo", BorrowedBookRow::fechaPrestamo));
+		tableModel = new PagedTableModel<>(LibraryService.borrowedQuery(SessionManager.getClienteId()), columns);
+		tableModel.setOnError(e -> {
+			JOptionPane.showMessageDialog(this, "Error al recuperar los libros prestados: " + e.getMessage(),
+					"Error de Base de Datos", JOptionPane.ERROR_MESSAGE);
+			e.printStackTrace();
+		});
 
 		reservedBooksTable = new JTable(tableModel);
 		reservedBooksTable.setFont(TABLE_FONT);
 		reservedBooksTable.setRowHeight(20);
 		reservedBooksTable.getTableHeader().setFont(TABLE_HEADER_FONT);
 		reservedBooksTable.setSelectionBackground(new Color(210, 228, 238));
+		tableModel.installSortHeader(reservedBooksTable);
 	}
 
 // Crea el panel de botones inferior
@@ -101,13 +111,13 @@ public class UserBorrowedBooks extends JFrame implements Serializable {
 		buttonPanel.setBackground(BACKGROUND_COLOR);
 
 		JButton backButton = createStyledButton("Volver");
-		backButton.addActionListener(e -> {
+		backButton.addActionListener(UiActionEvent.listener(this, "Volver", () -> {
 			new UserFrame().setVisible(true);
 			dispose();
-		});
+		}));
 
 		JButton devolver = createStyledButton("Devolver");
-		devolver.addActionListener(e -> devolverLibro());
+		devolver.addActionListener(UiActionEvent.listener(this, "Devolver", this::devolverLibro));
 		buttonPanel.add(devolver);
 
 		buttonPanel.add(backButton);
@@ -127,29 +137,48 @@ public class UserBorrowedBooks extends JFrame implements Serializable {
 
 	/*
 	 * Carga los libros prestados desde la base de datos Utiliza Hibernate para
-	 * obtener los préstamos del usuario
+	 * obtener los préstamos del usuario. Las páginas se piden según se muestran
 	 */
 	private void loadBorrowedBooks() {
-		try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-			String hql = "SELECT p FROM Prestamo p JOIN FETCH p.libro l WHERE p.usuario.id = :usuarioId";
-			Query<Prestamo> query = session.createQuery(hql, Prestamo.class);
-			query.setParameter("usuarioId", SessionManager.getClienteId());
-			List<Prestamo> prestamos = query.list();
-
-			tableModel.setRowCount(0); // Limpiar tabla existente
-
-			for (Prestamo prestamo : prestamos) {
-				Libro libro = prestamo.getLibro();
-				tableModel.addRow(new Object[] { libro.getId(), libro.getTitulo(), libro.getAutor(), libro.getGenero(),
-						prestamo.getFechaPrestamo() });
+		tableModel.refresh();
+	}
+
+// Aplica a la tabla los préstamos del usuario creados y cerrados desde cualquier ventana
+
+	private void onLibraryEvent(LibraryEvent event) {
+		switch (event) {
+			case LibraryEvent.BookReserved reserved when isMine(reserved.usuarioId()) ->
+					tableModel.rowInserted(reserved.prestamoId());
+			case LibraryEvent.BookReturned returned -> {
+				if (isMine(returned.usuarioId())) {
+					tableModel.rowDeleted(returned.prestamoId());
+				}
+				// El libro le llega desde la lista de espera
+				if (returned.entregado() != null && isMine(returned.entregado().usuarioId())) {
+					tableModel.rowInserted(returned.entregado().prestamoId());
+				}
+			}
+			case LibraryEvent.LoanRemoved removed when isMine(removed.usuarioId()) ->
+					tableModel.rowDeleted(removed.prestamoId());
+			case LibraryEvent.BookEdited edited when edited.change() == LibraryEvent.Change.UPDATED ->
+					tableModel.rowsUpdated(row -> row.libroId() == edited.libroId());
+			default -> {
+				// Préstamos de otros usuarios
 			}
-		} catch (Exception e) {
-			JOptionPane.showMessageDialog(this, "Error al recuperar los libros prestados: " + e.getMessage(),
-					"Error de Base de Datos", JOptionPane.ERROR_MESSAGE);
-			e.printStackTrace();
 		}
 	}
 
+	private static boolean isMine(long usuarioId) {
+		return Long.valueOf(usuarioId).equals(SessionManager.getClienteId());
+	}
+
+	@Override
+	public void dispose() {
+		unsubscribe.run();
+		tableModel.dispose();
+		super.dispose();
+	}
+
 	private void devolverLibro() {
 		int selectedRow = reservedBooksTable.getSelectedRow();
 
@@ -161,32 +190,15 @@ public class UserBorrowedBooks extends JFrame implements Serializable {
 
 		Long libroId = (Long) tableModel.getValueAt(selectedRow, 0); // ID del libro
 
-		try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-			session.beginTransaction();
-
-// Buscar el préstamo correspondiente
-			String hql = "SELECT p FROM Prestamo p WHERE p.libro.id = :libroId AND p.usuario.id = :usuarioId";
-			Query<Prestamo> query = session.createQuery(hql, Prestamo.class);
-			query.setParameter("libroId", libroId);
-			query.setParameter("usuarioId", SessionManager.getClienteId());
-			Prestamo prestamo = query.uniqueResult();
-
-			if (prestamo != null) {
-// Eliminar el préstamo
-				session.remove(prestamo);
-
-// Actualizar la disponibilidad del libro
-				Libro libro = prestamo.getLibro();
-				libro.setDisponibilidad(true);
-				session.update(libro);
-
-				session.getTransaction().commit();
-
-// Quitar la fila de la tabla
-				tableModel.removeRow(selectedRow);
+		try {
+// Devolver el préstamo; si hay lista de espera, el libro pasa al primero de ella
+			Reservations.Devolucion devolucion = LibraryService.giveBack(libroId, SessionManager.getClienteId());
 
-				JOptionPane.showMessageDialog(this, "El libro ha sido devuelto con éxito y está disponible nuevamente.",
-						"Operación exitosa", JOptionPane.INFORMATION_MESSAGE);
+			if (devolucion != Reservations.Devolucion.SIN_PRESTAMO) {
+				String mensaje = devolucion == Reservations.Devolucion.ENTREGADO
+						? "El libro ha sido devuelto con éxito y se ha prestado al siguiente usuario en espera."
+						: "El libro ha sido devuelto con éxito y está disponible nuevamente.";
+				JOptionPane.showMessageDialog(this, mensaje, "Operación exitosa", JOptionPane.INFORMATION_MESSAGE);
 			} else {
 				JOptionPane.showMessageDialog(this, "No se encontró el préstamo correspondiente.", "Error",
 						JOptionPane.ERROR_MESSAGE);
@@ -6,6 +6,7 @@ import java.io.Serializable;
 import org.hibernate.Session;
 import dao.entity.Usuario;
 import dao.util.HibernateUtil;
+import dao.util.UiActionEvent;
 
 
 public class UserFrame extends JFrame implements Serializable {
@@ -85,7 +86,7 @@ public class UserFrame extends JFrame implements Serializable {
     /*Método utilitario para añadir botones al panel*/
     private void addButton(JPanel panel, GridBagConstraints gbc, String text, int y, Runnable action) {
         JButton button = createStyledButton(text);
-        button.addActionListener(e -> action.run());
+        button.addActionListener(UiActionEvent.listener(this, text, action));
         gbc.gridx = 0;
         gbc.gridy = y;
         panel.add(button, gbc);
@@ -1,24 +1,37 @@
 package dao;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.Serializable;
 import java.util.List;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import dao.dto.UserRow;
 import dao.entity.Usuario;
-import dao.util.HibernateUtil;
+import dao.service.LibraryService;
+import dao.util.BackgroundLoader;
+import dao.util.LibraryEvent;
+import dao.util.LibraryEvents;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.Column;
+import dao.util.SearchField;
+import dao.util.UiActionEvent;
+import dao.util.UserSearchIndex;
 
 public class UserManagementFrame extends JFrame implements Serializable {
     private static final long serialVersionUID = 1L;
+    // Número máximo de resultados de búsqueda que se muestran
+    private static final int SEARCH_LIMIT = 500;
     private JTable userTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<UserRow> tableModel;
+    private SearchField searchField;
+    private final transient BackgroundLoader loader = new BackgroundLoader();
+    private transient BackgroundLoader.Task<?, ?> searchTask;
+    private transient Runnable unsubscribe;
 
     public UserManagementFrame() {
         initializeFrame();
         setupComponents();
         loadUsers();
+        unsubscribe = LibraryEvents.subscribeOnEdt(this::onLibraryEvent);
     }
 
     private void initializeFrame() {
@@ -37,6 +50,7 @@ public class UserManagementFrame extends JFrame implements Serializable {
         setupUserTable();
         JScrollPane scrollPane = new JScrollPane(userTable);
         mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(createSearchPanel(), BorderLayout.NORTH);
 
         JPanel buttonPanel = createButtonPanel();
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
@@ -56,20 +70,65 @@ public class UserManagementFrame extends JFrame implements Serializable {
     }
 
     private void setupUserTable() {
-        String[] columns = {"ID", "Nombre", "Apellidos", "Email", "DNI", "Teléfono", "Rol"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        List<Column<UserRow>> columns = List.of(
+            Column.of("ID", "u.id", UserRow::id),
+            Column.of("Nombre", "u.nombre", UserRow::nombre),
+            Column.of("Apellidos", "u.apellidos", UserRow::apellidos),
+            Column.of("Email", "u.email", UserRow::email),
+            Column.of("DNI", "u.dni", UserRow::dni),
+            Column.of("Teléfono", "u.telefono", UserRow::telefono),
+            Column.of("Rol", "u.rol", UserRow::rol));
+        tableModel = new PagedTableModel<>(LibraryService.userQuery(), columns);
+        tableModel.setOnError(e -> JOptionPane.showMessageDialog(this, "Error al cargar los usuarios: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
         userTable = new JTable(tableModel);
         userTable.setFont(new Font("Arial", Font.PLAIN, 14));
         userTable.setRowHeight(20);
         userTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
         userTable.setSelectionBackground(new Color(210, 228, 238));
+        tableModel.installSortHeader(userTable);
     }
 
+    // Panel con la caja de búsqueda, que busca mientras se escribe
+    private JPanel createSearchPanel() {
+        JPanel searchPanel = new JPanel(new BorderLayout(10, 0));
+        searchPanel.setBackground(Color.WHITE);
+        JLabel searchLabel = new JLabel("Buscar:");
+        searchLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        searchField = new SearchField(this::searchUsers);
+        searchField.setFont(new Font("Arial", Font.PLAIN, 14));
+        searchField.setToolTipText("Nombre, apellidos, DNI, email o teléfono");
+        JButton searchButton = createStyledButton("Buscar");
+        searchButton.addActionListener(e -> searchField.searchNow());
+        searchPanel.add(searchLabel, BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchPanel.add(searchButton, BorderLayout.EAST);
+        return searchPanel;
+    }
+
+    /*
+     * Busca en el índice en memoria fuera del EDT y muestra los usuarios
+     * encontrados; sin texto se muestran todos. Una búsqueda nueva cancela la
+     * anterior.
+     */
+    private void searchUsers(String text) {
+        if (searchTask != null) {
+            searchTask.abort();
+        }
+        if (text.isBlank()) {
+            tableModel.setQuery(LibraryService.userQuery());
+            return;
+        }
+        UserSearchIndex index = UserSearchIndex.getInstance();
+        if (!index.isReady()) {
+            JOptionPane.showMessageDialog(this, "El índice de búsqueda todavía se está construyendo.");
+            return;
+        }
+        searchTask = loader.compute(() -> index.search(text, SEARCH_LIMIT),
+                ids -> tableModel.setQuery(LibraryService.userQuery(ids)),
+                e -> JOptionPane.showMessageDialog(this, "Error al buscar: " + e.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE));
+    }
 
     private JPanel createButtonPanel() {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -80,13 +139,13 @@ public class UserManagementFrame extends JFrame implements Serializable {
         JButton deleteButton = createStyledButton("Eliminar");
         JButton backButton = createStyledButton("Volver");
 
-        addButton.addActionListener(e -> addUser());
-        editButton.addActionListener(e -> editUser());
-        deleteButton.addActionListener(e -> deleteUser());
-        backButton.addActionListener(e -> {
+        addButton.addActionListener(UiActionEvent.listener(this, "Añadir", this::addUser));
+        editButton.addActionListener(UiActionEvent.listener(this, "Editar", this::editUser));
+        deleteButton.addActionListener(UiActionEvent.listener(this, "Eliminar", this::deleteUser));
+        backButton.addActionListener(UiActionEvent.listener(this, "Volver", () -> {
             new AdminFrame().setVisible(true);
             dispose();
-        });
+        }));
 
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
@@ -105,27 +164,30 @@ public class UserManagementFrame extends JFrame implements Serializable {
         return button;
     }
 
+    // Recarga la tabla; las páginas de usuarios se piden según se muestran
     private void loadUsers() {
-        tableModel.setRowCount(0);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            List<Usuario> usuarios = session.createQuery("FROM Usuario", Usuario.class).list();
-            for (Usuario usuario : usuarios) {
-                tableModel.addRow(new Object[]{
-                    usuario.getId(),
-                    usuario.getNombre(),
-                    usuario.getApellidos(),
-                    usuario.getEmail(),
-                    usuario.getDni(),
-                    usuario.getTelefono(),
-                    usuario.getRol()
-                });
+        tableModel.refresh();
+    }
+
+    // Aplica a la tabla las altas, cambios y bajas de usuarios confirmados desde cualquier ventana
+    private void onLibraryEvent(LibraryEvent event) {
+        if (event instanceof LibraryEvent.UserChanged changed) {
+            switch (changed.change()) {
+                case CREATED -> tableModel.rowInserted(changed.usuarioId());
+                case UPDATED -> tableModel.rowUpdated(changed.usuarioId());
+                case DELETED -> tableModel.rowDeleted(changed.usuarioId());
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error al cargar los usuarios: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    @Override
+    public void dispose() {
+        unsubscribe.run();
+        loader.cancelAll();
+        tableModel.dispose();
+        super.dispose();
+    }
+
 
     private void addUser() {
         JTextField nombreField = new JTextField();
@@ -133,10 +195,11 @@ public class UserManagementFrame extends JFrame implements Serializable {
         JTextField emailField = new JTextField();
         JTextField dniField = new JTextField();
         JTextField telefonoField = new JTextField();
+        JPasswordField passwordField = new JPasswordField();
         JComboBox<String> rolComboBox = new JComboBox<>(new String[]{"Usuario", "Administrador"});
 
         JPanel panel = new JPanel(new GridLayout(0, 1));
-        panel.add(new JLabel("Nombre:"));
+        panel.add(new JLabel("Nombre (acceso):"));
         panel.add(nombreField);
         panel.add(new JLabel("Apellidos:"));
         panel.add(apellidosField);
@@ -146,31 +209,31 @@ public class UserManagementFrame extends JFrame implements Serializable {
         panel.add(dniField);
         panel.add(new JLabel("Teléfono:"));
         panel.add(telefonoField);
+        panel.add(new JLabel("Contraseña:"));
+        panel.add(passwordField);
         panel.add(new JLabel("Rol:"));
         panel.add(rolComboBox);
 
         int result = JOptionPane.showConfirmDialog(this, panel, "Añadir Usuario",
             JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
         if (result == JOptionPane.OK_OPTION) {
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction transaction = session.beginTransaction();
-                try {
-                    Usuario nuevoUsuario = new Usuario();
-                    nuevoUsuario.setNombre(nombreField.getText());
-                    nuevoUsuario.setApellidos(apellidosField.getText());
-                    nuevoUsuario.setEmail(emailField.getText());
-                    nuevoUsuario.setDni(dniField.getText());
-                    nuevoUsuario.setTelefono(telefonoField.getText());
-                    nuevoUsuario.setRol((String) rolComboBox.getSelectedItem());
-
-                    session.persist(nuevoUsuario);
-                    transaction.commit();
-                    loadUsers();
-                    JOptionPane.showMessageDialog(this, "Usuario añadido con éxito");
-                } catch (Exception e) {
-                    transaction.rollback();
-                    throw e;
-                }
+            if (passwordField.getPassword().length == 0) {
+                JOptionPane.showMessageDialog(this, "La contraseña es obligatoria");
+                return;
+            }
+            try {
+                Usuario nuevoUsuario = new Usuario();
+                nuevoUsuario.setNombre(nombreField.getText());
+                nuevoUsuario.setApellidos(apellidosField.getText());
+                nuevoUsuario.setEmail(emailField.getText());
+                nuevoUsuario.setDni(dniField.getText());
+                nuevoUsuario.setTelefono(telefonoField.getText());
+                nuevoUsuario.setRol((String) rolComboBox.getSelectedItem());
+
+                // Credencial con hash de la contraseña; con un nombre repetido el acceso es nombre.id
+                Usuario alta = LibraryService.addUser(nuevoUsuario, new String(passwordField.getPassword()));
+                JOptionPane.showMessageDialog(this, "Usuario añadido con éxito. Nombre de acceso: "
+                        + LibraryService.getLogin(alta.getId()));
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, "Error al añadir el usuario: " + e.getMessage(),
                         "Error", JOptionPane.ERROR_MESSAGE);
@@ -187,52 +250,48 @@ public class UserManagementFrame extends JFrame implements Serializable {
         }
 
         Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Transaction transaction = session.beginTransaction();
-            try {
-                Usuario usuario = session.get(Usuario.class, id);
-                if (usuario != null) {
-                    JTextField nombreField = new JTextField(usuario.getNombre());
-                    JTextField apellidosField = new JTextField(usuario.getApellidos());
-                    JTextField emailField = new JTextField(usuario.getEmail());
-                    JTextField dniField = new JTextField(usuario.getDni());
-                    JTextField telefonoField = new JTextField(usuario.getTelefono());
-                    JComboBox<String> rolComboBox = new JComboBox<>(new String[]{"Usuario", "Administrador"});
-                    rolComboBox.setSelectedItem(usuario.getRol());
-
-                    JPanel panel = new JPanel(new GridLayout(0, 1));
-                    panel.add(new JLabel("Nombre:"));
-                    panel.add(nombreField);
-                    panel.add(new JLabel("Apellidos:"));
-                    panel.add(apellidosField);
-                    panel.add(new JLabel("Email:"));
-                    panel.add(emailField);
-                    panel.add(new JLabel("DNI:"));
-                    panel.add(dniField);
-                    panel.add(new JLabel("Teléfono:"));
-                    panel.add(telefonoField);
-                    panel.add(new JLabel("Rol:"));
-                    panel.add(rolComboBox);
-
-                    int result = JOptionPane.showConfirmDialog(this, panel, "Editar Usuario",
-                        JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-                    if (result == JOptionPane.OK_OPTION) {
-                        usuario.setNombre(nombreField.getText());
-                        usuario.setApellidos(apellidosField.getText());
-                        usuario.setEmail(emailField.getText());
-                        usuario.setDni(dniField.getText());
-                        usuario.setTelefono(telefonoField.getText());
-                        usuario.setRol((String) rolComboBox.getSelectedItem());
-
-                        session.merge(usuario);
-                        transaction.commit();
-                        loadUsers();
-                        JOptionPane.showMessageDialog(this, "Usuario actualizado con éxito");
-                    }
+        try {
+            Usuario usuario = LibraryService.getUser(id);
+            if (usuario != null) {
+                JTextField nombreField = new JTextField(usuario.getNombre());
+                JTextField apellidosField = new JTextField(usuario.getApellidos());
+                JTextField emailField = new JTextField(usuario.getEmail());
+                JTextField dniField = new JTextField(usuario.getDni());
+                JTextField telefonoField = new JTextField(usuario.getTelefono());
+                JPasswordField passwordField = new JPasswordField();
+                JComboBox<String> rolComboBox = new JComboBox<>(new String[]{"Usuario", "Administrador"});
+                rolComboBox.setSelectedItem(usuario.getRol());
+
+                JPanel panel = new JPanel(new GridLayout(0, 1));
+                panel.add(new JLabel("Nombre:"));
+                panel.add(nombreField);
+                panel.add(new JLabel("Apellidos:"));
+                panel.add(apellidosField);
+                panel.add(new JLabel("Email:"));
+                panel.add(emailField);
+                panel.add(new JLabel("DNI:"));
+                panel.add(dniField);
+                panel.add(new JLabel("Teléfono:"));
+                panel.add(telefonoField);
+                panel.add(new JLabel("Nueva contraseña (vacía para no cambiarla):"));
+                panel.add(passwordField);
+                panel.add(new JLabel("Rol:"));
+                panel.add(rolComboBox);
+
+                int result = JOptionPane.showConfirmDialog(this, panel, "Editar Usuario",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+                if (result == JOptionPane.OK_OPTION) {
+                    usuario.setNombre(nombreField.getText());
+                    usuario.setApellidos(apellidosField.getText());
+                    usuario.setEmail(emailField.getText());
+                    usuario.setDni(dniField.getText());
+                    usuario.setTelefono(telefonoField.getText());
+                    usuario.setRol((String) rolComboBox.getSelectedItem());
+
+                    LibraryService.updateUser(id, usuario, new String(passwordField.getPassword()));
+                    JOptionPane.showMessageDialog(this, "Usuario actualizado con éxito. Nombre de acceso: "
+                            + LibraryService.getLogin(id));
                 }
-            } catch (Exception e) {
-                transaction.rollback();
-                throw e;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error al editar el usuario: " + e.getMessage(),
@@ -255,19 +314,9 @@ public class UserManagementFrame extends JFrame implements Serializable {
             JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Transaction transaction = session.beginTransaction();
-                try {
-                    Usuario usuario = session.get(Usuario.class, id);
-                    if (usuario != null) {
-                        session.remove(usuario);
-                        transaction.commit();
-                        loadUsers();
-                        JOptionPane.showMessageDialog(this, "Usuario eliminado con éxito");
-                    }
-                } catch (Exception e) {
-                    transaction.rollback();
-                    throw e;
+            try {
+                if (LibraryService.deleteUser(id)) {
+                    JOptionPane.showMessageDialog(this, "Usuario eliminado con éxito");
                 }
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, "Error al eliminar el usuario: " + e.getMessage(),
@@ -276,4 +325,3 @@ public class UserManagementFrame extends JFrame implements Serializable {
         }
       }
    }
-   
@@ -0,0 +1,10 @@
+package dao.dto;
+
+/**
+ * Fila de solo lectura del listado de libros. Se construye directamente desde la
+ * consulta HQL, sin cargar entidades gestionadas.
+ */
+public record BookRow(Long id, String titulo, String autor, String genero, boolean disponibilidad) {
+
+    public static final String SELECT = "new dao.dto.BookRow(l.id, l.titulo, l.autor, l.genero, l.disponibilidad)";
+}
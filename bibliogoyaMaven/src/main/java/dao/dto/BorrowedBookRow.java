@@ -0,0 +1,13 @@
+package dao.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de solo lectura de un libro prestado al usuario de la sesión. La consulta
+ * debe unir {@code p.libro l}.
+ */
+public record BorrowedBookRow(Long id, Long libroId, String titulo, String autor, String genero,
+        LocalDate fechaPrestamo) {
+
+    public static final String SELECT = "new dao.dto.BorrowedBookRow(p.id, l.id, l.titulo, l.autor, l.genero, p.fechaPrestamo)";
+}
@@ -0,0 +1,14 @@
+package dao.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de solo lectura de un préstamo con los datos del libro y del usuario.
+ * La consulta debe unir {@code p.libro l} y {@code p.usuario u}.
+ */
+public record LoanRow(Long id, Long libroId, String titulo, String autor, String genero, LocalDate fechaPrestamo,
+        Long usuarioId, String usuario) {
+
+    public static final String SELECT =
+            "new dao.dto.LoanRow(p.id, l.id, l.titulo, l.autor, l.genero, p.fechaPrestamo, u.id, u.nombre)";
+}
@@ -0,0 +1,14 @@
+package dao.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila de solo lectura de un préstamo vencido con su multa. La consulta debe unir
+ * {@code p.libro l} y {@code p.usuario u}.
+ */
+public record OverdueRow(Long id, Long libroId, String titulo, String usuario, LocalDate fechaDevolucion,
+        BigDecimal multa) {
+
+    public static final String SELECT = "new dao.dto.OverdueRow(p.id, l.id, l.titulo, u.nombre, p.fechaDevolucion, p.multa)";
+}
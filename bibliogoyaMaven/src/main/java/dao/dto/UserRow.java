@@ -0,0 +1,10 @@
+package dao.dto;
+
+/**
+ * Fila de solo lectura del listado de usuarios.
+ */
+public record UserRow(Long id, String nombre, String apellidos, String email, String dni, String telefono,
+        String rol) {
+
+    public static final String SELECT = "new dao.dto.UserRow(u.id, u.nombre, u.apellidos, u.email, u.dni, u.telefono, u.rol)";
+}
@@ -0,0 +1,52 @@
+package dao.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Table;
+
+/**
+ * Credenciales de acceso de un usuario (migración V6). Las filas migradas de la
+ * versión anterior no tienen sal ni hash hasta el primer inicio de sesión.
+ */
+@Entity
+@Table(name = "credenciales")
+@NamedQuery(name = Credencial.POR_LOGIN, query = "FROM Credencial c WHERE c.login = :login")
+public class Credencial {
+    public static final String POR_LOGIN = "Credencial.porLogin";
+
+    @Id
+    @Column(name = "usuarioID")
+    private Long usuarioId;
+
+    @Column(nullable = false, unique = true)
+    private String login;
+
+    private byte[] sal;
+    private byte[] hash;
+    private Integer iteraciones;
+
+    public Credencial() {}
+
+    public Credencial(Long usuarioId, String login) {
+        this.usuarioId = usuarioId;
+        this.login = login;
+    }
+
+    // Getters y Setters
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+
+    public String getLogin() { return login; }
+    public void setLogin(String login) { this.login = login; }
+
+    public byte[] getSal() { return sal; }
+    public void setSal(byte[] sal) { this.sal = sal; }
+
+    public byte[] getHash() { return hash; }
+    public void setHash(byte[] hash) { this.hash = hash; }
+
+    public Integer getIteraciones() { return iteraciones; }
+    public void setIteraciones(Integer iteraciones) { this.iteraciones = iteraciones; }
+}
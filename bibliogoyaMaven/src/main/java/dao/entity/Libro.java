@@ -1,11 +1,18 @@
 package dao.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Date;
 
 @Entity
-@Table(name = "libros")
+// Listados de libros disponibles o prestados, paginados por id (migración V5)
+@Table(name = "libros", indexes = @Index(name = "idx_libros_disponibilidad", columnList = "disponibilidad, id"))
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "libros")
+@NamedQuery(name = Libro.DISPONIBLES, query = "FROM Libro l WHERE l.disponibilidad = true ORDER BY l.id")
 public class Libro {
+    public static final String DISPONIBLES = "Libro.disponibles";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -1,20 +1,48 @@
 package dao.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "prestamos")
+// Préstamos de un usuario y préstamo de un libro a un usuario (migración V5); préstamos vencidos (V7)
+@Table(name = "prestamos", indexes = {
+        @Index(name = "idx_prestamos_usuario_libro", columnList = "usuarioID, libroID"),
+        @Index(name = "idx_prestamos_devolucion", columnList = "fechadevolucion, id") })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "prestamos")
+@NamedQuery(name = Prestamo.DE_USUARIO, query = "FROM Prestamo p WHERE p.libro.id = :libroId AND p.usuario.id = :usuarioId")
+@NamedQuery(name = Prestamo.CUENTA_DE_USUARIO,
+        query = "SELECT count(p) FROM Prestamo p WHERE p.libro.id = :libroId AND p.usuario.id = :usuarioId")
+@NamedQuery(name = Prestamo.CUENTA_DE_LIBRO, query = "SELECT count(p) FROM Prestamo p WHERE p.libro.id = :libroId")
+/*
+ * Siguiente tramo de préstamos vencidos sin multa calculada hoy, por el índice de
+ * (fechadevolucion, id) a partir de la última fila del tramo anterior. La cota
+ * inferior repetida deja que el índice empiece en ella y no al principio.
+ */
+@NamedQuery(name = Prestamo.VENCIDOS, query = "SELECT p.id, p.fechaDevolucion FROM Prestamo p "
+        + "WHERE p.fechaDevolucion >= :fecha AND p.fechaDevolucion < :hoy "
+        + "AND (p.fechaDevolucion > :fecha OR p.id > :id) "
+        + "AND (p.fechaMulta IS NULL OR p.fechaMulta < :hoy) ORDER BY p.fechaDevolucion, p.id")
+// Devolución y borrado de un préstamo: necesitan el libro (disponibilidad, autor y género), del usuario solo el id
+@NamedEntityGraph(name = Prestamo.CON_LIBRO, attributeNodes = @NamedAttributeNode("libro"))
 public class Prestamo {
+    public static final String DE_USUARIO = "Prestamo.deUsuario";
+    public static final String CUENTA_DE_USUARIO = "Prestamo.cuentaDeUsuario";
+    public static final String CUENTA_DE_LIBRO = "Prestamo.cuentaDeLibro";
+    public static final String CON_LIBRO = "Prestamo.conLibro";
+    public static final String VENCIDOS = "Prestamo.vencidos";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "libroID")
     private Libro libro;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuarioID")
     private Usuario usuario;
     
@@ -26,6 +54,17 @@ public class Prestamo {
     @Temporal(TemporalType.DATE)  // Puedes usar @Temporal para mapear LocalDate
     private LocalDate fechaDevolucion;
 
+    // Los calcula la revisión de préstamos vencidos (OverdueLoans)
+    @Column(name = "vencido")
+    private boolean vencido;
+
+    @Column(name = "multa")
+    private BigDecimal multa = BigDecimal.ZERO;
+
+    // Día del último cálculo de la multa
+    @Column(name = "fechamulta")
+    private LocalDate fechaMulta;
+
     // Getters y Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -41,4 +80,13 @@ public class Prestamo {
     
     public LocalDate getFechaDevolucion() { return fechaDevolucion; }
     public void setFechaDevolucion(LocalDate fechaDevolucion) { this.fechaDevolucion = fechaDevolucion; }
+
+    public boolean isVencido() { return vencido; }
+    public void setVencido(boolean vencido) { this.vencido = vencido; }
+
+    public BigDecimal getMulta() { return multa; }
+    public void setMulta(BigDecimal multa) { this.multa = multa; }
+
+    public LocalDate getFechaMulta() { return fechaMulta; }
+    public void setFechaMulta(LocalDate fechaMulta) { this.fechaMulta = fechaMulta; }
 }
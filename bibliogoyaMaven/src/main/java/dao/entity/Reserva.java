@@ -4,29 +4,56 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 
 @Entity
-@Table(name = "reservas")
+// Lista de espera por libro: la cabeza es la reserva pendiente de menor id (migración V4)
+@Table(name = "reservas", indexes = {
+        @Index(name = "idx_reservas_cola", columnList = "LibroID, Estado, id"),
+        @Index(name = "idx_reservas_usuario", columnList = "UsuarioID, LibroID, Estado") })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "reservas")
+// Ordenar por todo el índice de la cola permite leer solo su primera entrada
+@NamedQuery(name = Reserva.CABEZA, query = "FROM Reserva r WHERE r.libro.id = :libroId AND r.estado = :estado "
+        + "ORDER BY r.libro.id, r.estado, r.id")
+@NamedQuery(name = Reserva.CUENTA_DE_USUARIO, query = "SELECT count(r) FROM Reserva r WHERE r.usuario.id = :usuarioId "
+        + "AND r.libro.id = :libroId AND r.estado = :estado")
+// Última reserva del usuario para el libro: la que originó su préstamo
+@NamedQuery(name = Reserva.DE_PRESTAMO, query = "FROM Reserva r WHERE r.usuario.id = :usuarioId "
+        + "AND r.libro.id = :libroId ORDER BY r.id DESC")
+// Reserva abierta desde la gestión de reservas, que se muestra con su libro y su usuario
+@NamedEntityGraph(name = Reserva.CON_LIBRO_Y_USUARIO,
+        attributeNodes = { @NamedAttributeNode("libro"), @NamedAttributeNode("usuario") })
 public class Reserva {
+    public static final String CABEZA = "Reserva.cabeza";
+    public static final String CUENTA_DE_USUARIO = "Reserva.cuentaDeUsuario";
+    public static final String DE_PRESTAMO = "Reserva.dePrestamo";
+    public static final String CON_LIBRO_Y_USUARIO = "Reserva.conLibroYUsuario";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "LibroID")
     private Libro libro;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "UsuarioID")
     private Usuario usuario;
 
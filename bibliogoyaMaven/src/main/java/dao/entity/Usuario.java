@@ -4,14 +4,20 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 
 @Entity
 @Table(name = "usuarios")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "usuarios")
+@NamedQuery(name = Usuario.TODOS, query = "FROM Usuario u ORDER BY u.id")
 public class Usuario implements Serializable {
     private static final long serialVersionUID = 1L;
+    public static final String TODOS = "Usuario.todos";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,48 @@
+package dao.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Session;
+import dao.dto.BookRow;
+import dao.entity.Libro;
+import dao.util.HibernateUtil;
+import dao.util.PagedTableModel.PageQuery;
+import dao.util.QueryResultCache;
+
+// Consultas de libros
+public final class LibroRepository {
+
+    private LibroRepository() {
+    }
+
+    // Consulta paginada de libros, filtrada por disponibilidad y por resultados de búsqueda si se indican
+    public static PageQuery<BookRow> page(Boolean disponibilidad, List<Long> ids) {
+        PageQuery<BookRow> query = new PageQuery<>(BookRow.class, BookRow.SELECT, "FROM Libro l", null, "l.id",
+                BookRow::id).cached(QueryResultCache.LIBROS);
+        List<String> filters = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (disponibilidad != null) {
+            filters.add("l.disponibilidad = :disponibilidad");
+            parameters.put("disponibilidad", disponibilidad);
+        }
+        if (ids != null) {
+            // Una lista vacía no es válida en un IN, se usa un id inexistente
+            filters.add("l.id IN :ids");
+            parameters.put("ids", ids.isEmpty() ? List.of(-1L) : ids);
+        }
+        return filters.isEmpty() ? query : query.where(String.join(" AND ", filters), parameters);
+    }
+
+    public static List<Libro> available() {
+        return Repositories.list(Libro.DISPONIBLES, Libro.class, Map.of());
+    }
+
+    // Con sesión normal para servirlo desde la caché de segundo nivel
+    public static Libro find(long id) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.get(Libro.class, id);
+        }
+    }
+}
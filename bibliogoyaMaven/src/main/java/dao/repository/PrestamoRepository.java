@@ -0,0 +1,112 @@
+package dao.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Session;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.graph.RootGraph;
+import dao.dto.BorrowedBookRow;
+import dao.dto.LoanRow;
+import dao.dto.OverdueRow;
+import dao.entity.Prestamo;
+import dao.util.PagedTableModel.PageQuery;
+
+/**
+ * Consultas de préstamos. Las que reciben una sesión se ejecutan dentro de la
+ * transacción de quien llama, como las de {@code Reservations}.
+ */
+public final class PrestamoRepository {
+
+    private PrestamoRepository() {
+    }
+
+    // Todos los préstamos con su libro y su usuario
+    public static PageQuery<LoanRow> page() {
+        return new PageQuery<>(LoanRow.class, LoanRow.SELECT, "FROM Prestamo p", "JOIN p.libro l JOIN p.usuario u",
+                "p.id", LoanRow::id);
+    }
+
+    /*
+     * Préstamos de los libros o de los usuarios indicados, resultado de una
+     * búsqueda. Una lista vacía no es válida en un IN y un OR impide usar los
+     * índices de las claves ajenas, así que solo se une lo que ha encontrado algo.
+     */
+    public static PageQuery<LoanRow> page(List<Long> libroIds, List<Long> usuarioIds) {
+        if (libroIds.isEmpty() && usuarioIds.isEmpty()) {
+            return page().where("p.id = -1", Map.of());
+        }
+        if (usuarioIds.isEmpty()) {
+            return page().where("p.libro.id IN :libroIds", Map.of("libroIds", libroIds));
+        }
+        if (libroIds.isEmpty()) {
+            return page().where("p.usuario.id IN :usuarioIds", Map.of("usuarioIds", usuarioIds));
+        }
+        return page().where("p.libro.id IN :libroIds OR p.usuario.id IN :usuarioIds",
+                Map.of("libroIds", libroIds, "usuarioIds", usuarioIds));
+    }
+
+    // Préstamos del usuario indicado
+    public static PageQuery<BorrowedBookRow> borrowedBy(Long usuarioId) {
+        return new PageQuery<>(BorrowedBookRow.class, BorrowedBookRow.SELECT, "FROM Prestamo p", "JOIN p.libro l",
+                "p.id", BorrowedBookRow::id)
+                .where("p.usuario.id = :usuarioId", Map.of("usuarioId", usuarioId));
+    }
+
+    /*
+     * Préstamos cuya fecha de devolución ya pasó, con su multa. Se filtra por la
+     * fecha y no por el indicador para que la lista sea correcta aunque la revisión
+     * aún no haya pasado hoy, y para recorrer el índice de fechadevolucion.
+     */
+    public static PageQuery<OverdueRow> overdue() {
+        return new PageQuery<>(OverdueRow.class, OverdueRow.SELECT, "FROM Prestamo p", "JOIN p.libro l JOIN p.usuario u",
+                "p.id", OverdueRow::id)
+                .where("p.fechaDevolucion < :hoy", Map.of("hoy", LocalDate.now()));
+    }
+
+    /**
+     * Hasta {@code limit} préstamos vencidos antes de {@code hoy} cuya multa no se
+     * ha calculado hoy, posteriores a ({@code fecha}, {@code id}) en el orden de
+     * (fechadevolucion, id). Cada fila es el id y la fecha de devolución.
+     */
+    public static List<Object[]> overdue(Session session, LocalDate hoy, LocalDate fecha, long id, int limit) {
+        return session.createNamedSelectionQuery(Prestamo.VENCIDOS, Object[].class)
+                .setParameter("hoy", hoy)
+                .setParameter("fecha", fecha)
+                .setParameter("id", id)
+                .setMaxResults(limit)
+                .list();
+    }
+
+    // Préstamo del libro al usuario con su libro, o null si no lo tiene
+    public static Prestamo find(Session session, long libroId, long usuarioId) {
+        return session.createNamedSelectionQuery(Prestamo.DE_USUARIO, Prestamo.class)
+                .setEntityGraph(withLibro(session), GraphSemantic.FETCH)
+                .setParameter("libroId", libroId)
+                .setParameter("usuarioId", usuarioId)
+                .uniqueResult();
+    }
+
+    // Préstamo con su libro, o null si no existe
+    public static Prestamo find(Session session, long id) {
+        return session.byId(Prestamo.class).with(withLibro(session), GraphSemantic.FETCH).load(id);
+    }
+
+    public static long count(Session session, long libroId, long usuarioId) {
+        return session.createNamedSelectionQuery(Prestamo.CUENTA_DE_USUARIO, Long.class)
+                .setParameter("libroId", libroId)
+                .setParameter("usuarioId", usuarioId)
+                .uniqueResult();
+    }
+
+    // Préstamos abiertos del libro
+    public static long count(Session session, long libroId) {
+        return session.createNamedSelectionQuery(Prestamo.CUENTA_DE_LIBRO, Long.class)
+                .setParameter("libroId", libroId)
+                .uniqueResult();
+    }
+
+    private static RootGraph<Prestamo> withLibro(Session session) {
+        return session.createEntityGraph(Prestamo.class, Prestamo.CON_LIBRO);
+    }
+}
@@ -0,0 +1,67 @@
+package dao.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.SelectionQuery;
+import dao.util.HibernateUtil;
+
+/**
+ * Apertura de sesiones y transacciones común a los repositorios. Las lecturas de
+ * listados usan una {@link StatelessSession}: sin contexto de persistencia ni
+ * comprobación de cambios, las entidades leídas no se copian para el dirty
+ * checking ni pasan por la caché de segundo nivel. Las escrituras usan una sesión
+ * normal dentro de una transacción que se deshace si el trabajo lanza una
+ * excepción.
+ *
+ * Los parámetros de lectura y escritura (filas por ida y vuelta, tamaño de lote)
+ * se ajustan aquí y no en cada ventana. Las consultas con nombre de las entidades
+ * se validan al construir la SessionFactory ({@code hibernate.query.startup_check}),
+ * así que un error en una de ellas impide arrancar en lugar de aparecer al usarla.
+ */
+public final class Repositories {
+    // Filas por ida y vuelta al recorrer tablas completas (useCursorFetch en la URL)
+    public static final int FETCH_SIZE = 1000;
+    // Sentencias UPDATE y DELETE agrupadas por lote en las escrituras
+    public static final int BATCH_SIZE = 50;
+
+    private Repositories() {
+    }
+
+    // Ejecuta una lectura en una sesión sin estado
+    public static <T> T read(Function<StatelessSession, T> work) {
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            return work.apply(session);
+        }
+    }
+
+    // Ejecuta una escritura en su propia transacción y la confirma si no falla
+    public static <T> T write(Function<Session, T> work) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.setJdbcBatchSize(BATCH_SIZE);
+            Transaction transaction = session.beginTransaction();
+            try {
+                T result = work.apply(session);
+                transaction.commit();
+                return result;
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Todas las filas de una consulta con nombre, leídas sin estado
+    static <T> List<T> list(String name, Class<T> type, Map<String, Object> parameters) {
+        return read(session -> {
+            SelectionQuery<T> query = session.createNamedSelectionQuery(name, type);
+            parameters.forEach(query::setParameter);
+            return query.list();
+        });
+    }
+}
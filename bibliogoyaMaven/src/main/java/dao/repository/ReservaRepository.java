@@ -0,0 +1,63 @@
+package dao.repository;
+
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.graph.GraphSemantic;
+import dao.entity.Reserva;
+import dao.util.HibernateUtil;
+
+/**
+ * Consultas de reservas. Las que reciben una sesión se ejecutan dentro de la
+ * transacción de quien llama, como las de {@code Reservations}.
+ */
+public final class ReservaRepository {
+
+    private ReservaRepository() {
+    }
+
+    // Reserva con su libro y su usuario, para usarla fuera de la sesión
+    public static Reserva find(long id) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.byId(Reserva.class)
+                    .with(session.createEntityGraph(Reserva.class, Reserva.CON_LIBRO_Y_USUARIO), GraphSemantic.FETCH)
+                    .load(Math.toIntExact(id));
+        }
+    }
+
+    // Reserva con la que el usuario obtuvo el préstamo del libro, con su libro y su usuario, o null
+    public static Reserva findForLoan(long libroId, long usuarioId) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.createNamedSelectionQuery(Reserva.DE_PRESTAMO, Reserva.class)
+                    .setEntityGraph(session.createEntityGraph(Reserva.class, Reserva.CON_LIBRO_Y_USUARIO),
+                            GraphSemantic.FETCH)
+                    .setParameter("libroId", libroId)
+                    .setParameter("usuarioId", usuarioId)
+                    .setMaxResults(1)
+                    .uniqueResult();
+        }
+    }
+
+    /*
+     * Primera reserva de la lista de espera del libro, o null si está vacía. Es
+     * una lectura con bloqueo: lee la última versión confirmada y no la foto de
+     * la transacción, que en REPEATABLE READ puede ser anterior a una reserva
+     * confirmada mientras se esperaba el bloqueo del libro.
+     */
+    public static Reserva head(Session session, long libroId) {
+        return session.createNamedSelectionQuery(Reserva.CABEZA, Reserva.class)
+                .setHibernateLockMode(LockMode.PESSIMISTIC_WRITE)
+                .setParameter("libroId", libroId)
+                .setParameter("estado", Reserva.EstadoReserva.Pendiente)
+                .setMaxResults(1)
+                .uniqueResult();
+    }
+
+    // Reservas pendientes del usuario para el libro
+    public static long countWaiting(Session session, long libroId, long usuarioId) {
+        return session.createNamedSelectionQuery(Reserva.CUENTA_DE_USUARIO, Long.class)
+                .setParameter("libroId", libroId)
+                .setParameter("usuarioId", usuarioId)
+                .setParameter("estado", Reserva.EstadoReserva.Pendiente)
+                .uniqueResult();
+    }
+}
@@ -0,0 +1,37 @@
+package dao.repository;
+
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Session;
+import dao.dto.UserRow;
+import dao.entity.Usuario;
+import dao.util.HibernateUtil;
+import dao.util.PagedTableModel.PageQuery;
+
+// Consultas de usuarios
+public final class UsuarioRepository {
+
+    private UsuarioRepository() {
+    }
+
+    public static PageQuery<UserRow> page() {
+        return new PageQuery<>(UserRow.class, UserRow.SELECT, "FROM Usuario u", null, "u.id", UserRow::id);
+    }
+
+    // Usuarios con los ids indicados, resultado de una búsqueda
+    public static PageQuery<UserRow> page(List<Long> ids) {
+        // Una lista vacía no es válida en un IN, se usa un id inexistente
+        return page().where("u.id IN :ids", Map.of("ids", ids.isEmpty() ? List.of(-1L) : ids));
+    }
+
+    public static List<Usuario> all() {
+        return Repositories.list(Usuario.TODOS, Usuario.class, Map.of());
+    }
+
+    // Con sesión normal para servirlo desde la caché de segundo nivel
+    public static Usuario find(long id) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.get(Usuario.class, id);
+        }
+    }
+}
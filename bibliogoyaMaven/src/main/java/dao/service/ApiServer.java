@@ -0,0 +1,499 @@
+package dao.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.System.Logger.Level;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.hibernate.exception.ConstraintViolationException;
+import dao.dto.BookRow;
+import dao.dto.UserRow;
+import dao.entity.Libro;
+import dao.entity.Reserva;
+import dao.entity.Usuario;
+import dao.util.Credentials;
+import dao.util.HibernateUtil;
+import dao.util.Json;
+import dao.util.OverdueLoans;
+import dao.util.PagedTableModel;
+import dao.util.PagedTableModel.PageQuery;
+import dao.util.Reservations;
+
+/**
+ * API HTTP de {@link LibraryService} para puestos de préstamo y quioscos que
+ * comparten un único servidor. Escucha solo en localhost (un proxy delante se
+ * encarga de TLS si se expone) y atiende cada petición en su propio hilo
+ * virtual, así que las peticiones que esperan a la base de datos no ocupan
+ * hilos del sistema.
+ *
+ * Los hilos virtuales no limitan la concurrencia, y el pool c3p0 espera sus
+ * conexiones dentro de bloques synchronized, que fijan el hilo virtual a su
+ * hilo portador. Por eso las peticiones entran por un semáforo con tantos
+ * permisos como conexiones tiene el pool: las que sobran esperan en el semáforo
+ * sin ocupar un hilo portador.
+ *
+ * Cada puesto inicia sesión con {@code POST /api/sesiones} (login y password)
+ * y envía el token recibido en la cabecera {@code Authorization: Bearer}. Los
+ * cuerpos se envían como formulario (application/x-www-form-urlencoded) y las
+ * respuestas son JSON:
+ *
+ * <pre>
+ * POST   /api/sesiones                      iniciar sesión
+ * DELETE /api/sesiones                      cerrar sesión
+ * GET    /api/libros?disponible=&desde=&limite=
+ * GET    /api/libros/{id}
+ * POST   /api/libros                        (admin) titulo, autor, genero, disponible
+ * PUT    /api/libros/{id}                   (admin) igual que POST
+ * DELETE /api/libros/{id}                   (admin)
+ * POST   /api/libros/{id}/reserva           espera=true para la lista de espera
+ * POST   /api/libros/{id}/devolucion
+ * GET    /api/usuarios?desde=&limite=       (admin)
+ * GET    /api/usuarios/{id}                 (admin o el propio usuario)
+ * POST   /api/usuarios                      (admin) nombre, apellidos, email, dni, telefono, rol, password
+ * PUT    /api/usuarios/{id}                 (admin) igual que POST, password opcional
+ * DELETE /api/usuarios/{id}                 (admin)
+ * GET    /api/prestamos?desde=&limite=      los del usuario; un admin ve todos o los de ?usuario=
+ * DELETE /api/prestamos/{id}                (admin)
+ * POST   /api/reservas                      (admin) libro, usuario
+ * PUT    /api/reservas/{id}                 (admin) estado
+ * </pre>
+ *
+ * En las reservas y devoluciones un administrador puede indicar
+ * {@code usuario} para actuar en nombre de un lector, como en el mostrador.
+ * El servidor se arranca con la clase {@code dao.service.ApiServer} como
+ * principal; el puerto se cambia con {@code -Dbibliogoya.api.port}.
+ */
+public final class ApiServer {
+    public static final int DEFAULT_PORT = 8085;
+
+    private static final System.Logger LOG = System.getLogger(ApiServer.class.getName());
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int MAX_LIMIT = 1000;
+    private static final long SESSION_HOURS = 12;
+    private static final long QUEUE_TIMEOUT_SECONDS = 30;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore connections;
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+
+    private record Sesion(long usuarioId, boolean admin, long expires) {
+    }
+
+    // Respuesta de un alta: se contesta con 201, el id creado y, en los usuarios, su nombre de acceso
+    private record Created(Long id, String login) {
+
+        Created(Long id) {
+            this(id, null);
+        }
+    }
+
+    // Error con su código HTTP, respondido como {"error": mensaje}
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private ApiServer(int port, int permits) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-", 0).factory());
+        connections = new Semaphore(permits, true);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Arranca el servidor en el puerto indicado (0 para uno libre). Espera a que la
+     * SessionFactory esté lista.
+     */
+    public static ApiServer start(int port) throws IOException {
+        Object poolSize = HibernateUtil.getSessionFactory().getProperties().get("hibernate.c3p0.max_size");
+        ApiServer api = new ApiServer(port, poolSize == null ? 10 : Integer.parseInt(poolSize.toString()));
+        api.server.start();
+        return api;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        HibernateUtil.bootstrap();
+        ApiServer api = start(Integer.getInteger("bibliogoya.api.port", DEFAULT_PORT));
+        LOG.log(Level.INFO, "API escuchando en http://localhost:{0}/api/ a los {1} ms del arranque",
+                api.getPort(), HibernateUtil.uptimeMillis());
+        OverdueLoans.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            OverdueLoans.stop();
+            HibernateUtil.shutdown();
+        }));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int status;
+            Object body;
+            try {
+                if (!connections.tryAcquire(QUEUE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new ApiException(503, "Servidor ocupado, vuelva a intentarlo");
+                }
+                try {
+                    body = route(exchange);
+                } finally {
+                    connections.release();
+                }
+                status = 200;
+                if (body instanceof Created created) {
+                    status = 201;
+                    body = created.login() == null ? Map.of("id", created.id())
+                            : Map.of("id", created.id(), "login", created.login());
+                }
+            } catch (ApiException e) {
+                status = e.status;
+                body = Map.of("error", e.getMessage());
+            } catch (ConstraintViolationException e) {
+                // Fila repetida o con préstamos o reservas que dependen de ella; la transacción se ha deshecho
+                status = 409;
+                body = Map.of("error", "La operación entra en conflicto con otros datos");
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = Map.of("error", String.valueOf(e.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.log(Level.ERROR, "Error en " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+                status = 500;
+                body = Map.of("error", "Error interno del servidor");
+            }
+            respond(exchange, status, body);
+        }
+    }
+
+    private Object route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parse(exchange.getRequestURI().getRawQuery());
+        Map<String, String> form = "POST".equals(method) || "PUT".equals(method) ? parse(readBody(exchange)) : Map.of();
+
+        if (path[0].equals("sesiones") && path.length == 1) {
+            return switch (method) {
+                case "POST" -> login(form);
+                case "DELETE" -> {
+                    sesiones.remove(token(exchange));
+                    yield Map.of();
+                }
+                default -> throw notAllowed();
+            };
+        }
+
+        Sesion sesion = authenticated(exchange);
+        Long id = path.length > 1 ? Long.valueOf(path[1]) : null;
+        String action = path.length > 2 ? path[2] : null;
+        // Solo las altas y los listados van sin id
+        if (id == null && !"GET".equals(method) && !"POST".equals(method)) {
+            throw notAllowed();
+        }
+        return switch (path[0]) {
+            case "libros" -> books(method, sesion, id, action, query, form);
+            case "usuarios" -> users(method, sesion, id, query, form);
+            case "prestamos" -> loans(method, sesion, id, query);
+            case "reservas" -> reservas(method, sesion, id, form);
+            default -> throw new ApiException(404, "Recurso no encontrado");
+        };
+    }
+
+    private Object login(Map<String, String> form) {
+        Credentials.Result result = LibraryService.authenticate(required(form, "login"), required(form, "password"));
+        switch (result.outcome()) {
+            case BLOQUEADO -> throw new ApiException(429, "Demasiados intentos fallidos");
+            case INCORRECTO -> throw new ApiException(401, "Usuario o contraseña incorrectos");
+            case CORRECTO -> {
+                // La vida de las sesiones está acotada; las caducadas se descartan al iniciar otras
+                long now = System.nanoTime();
+                sesiones.values().removeIf(s -> s.expires() - now < 0);
+                byte[] bytes = new byte[32];
+                RANDOM.nextBytes(bytes);
+                String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+                Usuario usuario = result.usuario();
+                boolean admin = "Administrador".equalsIgnoreCase(usuario.getRol());
+                sesiones.put(token, new Sesion(usuario.getId(), admin, now + TimeUnit.HOURS.toNanos(SESSION_HOURS)));
+                return Map.of("token", token, "usuario", usuario.getId(), "admin", admin);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private Object books(String method, Sesion sesion, Long id, String action, Map<String, String> query,
+            Map<String, String> form) {
+        if (action != null) {
+            if (!"POST".equals(method)) {
+                throw notAllowed();
+            }
+            long usuarioId = actingUser(sesion, form);
+            return switch (action) {
+                case "reserva" -> {
+                    Reservations.Outcome outcome = LibraryService.reserve(id, usuarioId);
+                    if (outcome == Reservations.Outcome.NO_DISPONIBLE && Boolean.parseBoolean(form.get("espera"))) {
+                        outcome = LibraryService.enqueue(id, usuarioId);
+                    }
+                    yield Map.of("resultado", outcome);
+                }
+                case "devolucion" -> Map.of("resultado", LibraryService.giveBack(id, usuarioId));
+                default -> throw new ApiException(404, "Recurso no encontrado");
+            };
+        }
+        switch (method) {
+            case "GET" -> {
+                if (id == null) {
+                    String disponible = query.get("disponible");
+                    return page(LibraryService.bookQuery(disponible == null ? null : Boolean.valueOf(disponible), null),
+                            "l.id", query);
+                }
+                Libro libro = found(LibraryService.getBook(id));
+                return new BookRow(libro.getId(), libro.getTitulo(), libro.getAutor(), libro.getGenero(),
+                        libro.isDisponibilidad());
+            }
+            case "POST" -> {
+                requireAdmin(sesion);
+                Libro libro = LibraryService.addBook(required(form, "titulo"), form.get("autor"), form.get("genero"),
+                        !"false".equals(form.get("disponible")));
+                return new Created(libro.getId());
+            }
+            case "PUT" -> {
+                requireAdmin(sesion);
+                found(LibraryService.updateBook(id, required(form, "titulo"), form.get("autor"), form.get("genero"),
+                        !"false".equals(form.get("disponible"))));
+                return Map.of();
+            }
+            case "DELETE" -> {
+                requireAdmin(sesion);
+                found(LibraryService.deleteBook(id));
+                return Map.of();
+            }
+            default -> throw notAllowed();
+        }
+    }
+
+    private Object users(String method, Sesion sesion, Long id, Map<String, String> query, Map<String, String> form) {
+        if (!("GET".equals(method) && id != null && id == sesion.usuarioId())) {
+            requireAdmin(sesion);
+        }
+        switch (method) {
+            case "GET" -> {
+                if (id == null) {
+                    return page(LibraryService.userQuery(), "u.id", query);
+                }
+                Usuario usuario = found(LibraryService.getUser(id));
+                return new UserRow(usuario.getId(), usuario.getNombre(), usuario.getApellidos(), usuario.getEmail(),
+                        usuario.getDni(), usuario.getTelefono(), usuario.getRol());
+            }
+            case "POST" -> {
+                // Con un nombre repetido el nombre de acceso es nombre.id
+                long usuarioId = LibraryService.addUser(usuario(form), form.get("password")).getId();
+                return new Created(usuarioId, LibraryService.getLogin(usuarioId));
+            }
+            case "PUT" -> {
+                found(LibraryService.updateUser(id, usuario(form), form.get("password")));
+                return Map.of();
+            }
+            case "DELETE" -> {
+                found(LibraryService.deleteUser(id));
+                return Map.of();
+            }
+            default -> throw notAllowed();
+        }
+    }
+
+    private Object loans(String method, Sesion sesion, Long id, Map<String, String> query) {
+        switch (method) {
+            case "GET" -> {
+                String usuario = query.get("usuario");
+                if (sesion.admin() && usuario == null) {
+                    return page(LibraryService.loanQuery(), "p.id", query);
+                }
+                long usuarioId = sesion.admin() ? Long.parseLong(usuario) : sesion.usuarioId();
+                return page(LibraryService.borrowedQuery(usuarioId), "p.id", query);
+            }
+            case "DELETE" -> {
+                requireAdmin(sesion);
+                found(LibraryService.deleteLoan(id) != Reservations.Devolucion.SIN_PRESTAMO);
+                return Map.of();
+            }
+            default -> throw notAllowed();
+        }
+    }
+
+    private Object reservas(String method, Sesion sesion, Long id, Map<String, String> form) {
+        requireAdmin(sesion);
+        switch (method) {
+            case "POST" -> {
+                // Presta el libro si está disponible y, si no, apunta al usuario a la lista de espera
+                return Map.of("resultado", LibraryService.addReserva(Long.parseLong(required(form, "libro")),
+                        Long.parseLong(required(form, "usuario"))));
+            }
+            case "PUT" -> {
+                found(LibraryService.setReservaEstado(id, Reserva.EstadoReserva.valueOf(required(form, "estado"))));
+                return Map.of();
+            }
+            default -> throw notAllowed();
+        }
+    }
+
+    private static <T> List<T> page(PageQuery<T> query, String idPath, Map<String, String> parameters) {
+        String desde = parameters.get("desde");
+        String limite = parameters.get("limite");
+        int limit = limite == null ? PagedTableModel.PAGE_SIZE : Math.clamp(Integer.parseInt(limite), 1, MAX_LIMIT);
+        return LibraryService.page(query, idPath, desde == null ? null : Long.valueOf(desde), limit);
+    }
+
+    private static Usuario usuario(Map<String, String> form) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(required(form, "nombre"));
+        usuario.setApellidos(form.get("apellidos"));
+        usuario.setEmail(form.get("email"));
+        usuario.setDni(form.get("dni"));
+        usuario.setTelefono(form.get("telefono"));
+        usuario.setRol(form.getOrDefault("rol", "Usuario"));
+        return usuario;
+    }
+
+    private Sesion authenticated(HttpExchange exchange) {
+        String token = token(exchange);
+        Sesion sesion = token == null ? null : sesiones.get(token);
+        if (sesion == null || sesion.expires() - System.nanoTime() < 0) {
+            throw new ApiException(401, "Inicie sesión");
+        }
+        return sesion;
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring("Bearer ".length()) : null;
+    }
+
+    // El usuario de la sesión o, para un administrador, el indicado en la petición
+    private static long actingUser(Sesion sesion, Map<String, String> form) {
+        String usuario = form.get("usuario");
+        if (usuario == null) {
+            return sesion.usuarioId();
+        }
+        requireAdmin(sesion);
+        return Long.parseLong(usuario);
+    }
+
+    private static void requireAdmin(Sesion sesion) {
+        if (!sesion.admin()) {
+            throw new ApiException(403, "Operación reservada a administradores");
+        }
+    }
+
+    private static <T> T found(T value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            throw new ApiException(404, "No encontrado");
+        }
+        return value;
+    }
+
+    private static String required(Map<String, String> form, String name) {
+        String value = form.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Falta el parámetro " + name);
+        }
+        return value;
+    }
+
+    private static ApiException notAllowed() {
+        return new ApiException(405, "Método no permitido");
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new ApiException(413, "Petición demasiado grande");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> parse(String encoded) {
+        Map<String, String> values = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return values;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            values.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        StringBuilder json = new StringBuilder();
+        write(json, body);
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void write(StringBuilder json, Object value) throws IOException {
+        if (value instanceof Map<?, ?> map) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                Json.writeString(json, entry.getKey().toString());
+                json.append(':');
+                write(json, entry.getValue());
+            }
+            json.append('}');
+        } else if (value instanceof List<?> list) {
+            json.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                write(json, list.get(i));
+            }
+            json.append(']');
+        } else {
+            Json.writeValue(json, value);
+        }
+    }
+}
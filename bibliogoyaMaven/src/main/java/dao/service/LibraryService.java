@@ -0,0 +1,339 @@
+package dao.service;
+
+import java.util.List;
+import java.util.Objects;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import dao.dto.BookRow;
+import dao.dto.BorrowedBookRow;
+import dao.dto.LoanRow;
+import dao.dto.OverdueRow;
+import dao.dto.UserRow;
+import dao.entity.Credencial;
+import dao.entity.Libro;
+import dao.entity.Reserva;
+import dao.entity.Usuario;
+import dao.repository.LibroRepository;
+import dao.repository.PrestamoRepository;
+import dao.repository.Repositories;
+import dao.repository.ReservaRepository;
+import dao.repository.UsuarioRepository;
+import dao.util.BookSearchIndex;
+import dao.util.Credentials;
+import dao.util.HibernateUtil;
+import dao.util.LibraryEvent.BookEdited;
+import dao.util.LibraryEvent.Change;
+import dao.util.LibraryEvent.UserChanged;
+import dao.util.LibraryEvents;
+import dao.util.OverdueLoans;
+import dao.util.PersistenceEvent;
+import dao.util.PagedTableModel.Key;
+import dao.util.PagedTableModel.PageQuery;
+import dao.util.QueryResultCache;
+import dao.util.ReportRollups;
+import dao.util.Reservations;
+import dao.util.UserSearchIndex;
+
+/**
+ * Operaciones de la biblioteca sin interfaz: libros, usuarios, préstamos y
+ * reservas. Las usan tanto las ventanas Swing como la API HTTP de
+ * {@link ApiServer}, de modo que un mismo proceso puede atender a muchos puestos
+ * con una sola SessionFactory y un solo pool de conexiones.
+ *
+ * Ninguna operación depende del usuario de la sesión Swing
+ * ({@code SessionManager}): quien llama indica siempre el usuario. Las consultas
+ * están en los repositorios de {@code dao.repository}; cada escritura va en su
+ * propia transacción ({@link Repositories#write}) y mantiene al día la caché de
+ * consultas y el índice de búsqueda igual que hacían las ventanas. Cada
+ * operación se registra como {@link PersistenceEvent} en las grabaciones de
+ * Java Flight Recorder.
+ */
+public final class LibraryService {
+
+    private LibraryService() {
+    }
+
+    // Consulta paginada de libros, filtrada por disponibilidad y por resultados de búsqueda si se indican
+    public static PageQuery<BookRow> bookQuery(Boolean disponibilidad, List<Long> ids) {
+        return LibroRepository.page(disponibilidad, ids);
+    }
+
+    public static PageQuery<UserRow> userQuery() {
+        return UsuarioRepository.page();
+    }
+
+    // Usuarios encontrados en el índice de búsqueda
+    public static PageQuery<UserRow> userQuery(List<Long> ids) {
+        return UsuarioRepository.page(ids);
+    }
+
+    // Todos los préstamos con su libro y su usuario
+    public static PageQuery<LoanRow> loanQuery() {
+        return PrestamoRepository.page();
+    }
+
+    // Préstamos de los libros o de los usuarios encontrados en los índices de búsqueda
+    public static PageQuery<LoanRow> loanQuery(List<Long> libroIds, List<Long> usuarioIds) {
+        return PrestamoRepository.page(libroIds, usuarioIds);
+    }
+
+    // Consulta de los préstamos del usuario indicado
+    public static PageQuery<BorrowedBookRow> borrowedQuery(Long usuarioId) {
+        return PrestamoRepository.borrowedBy(usuarioId);
+    }
+
+    // Préstamos cuya fecha de devolución ya pasó, con su multa
+    public static PageQuery<OverdueRow> overdueQuery() {
+        return PrestamoRepository.overdue();
+    }
+
+    // Página de una consulta en orden de id, a partir del id indicado (null para la primera)
+    public static <T> List<T> page(PageQuery<T> query, String idPath, Long afterId, int limit) {
+        return PersistenceEvent.record("Cargar página", query.entity(), () -> Repositories.read(session -> query.page(
+                session, idPath, true, afterId == null ? null : new Key(null, afterId), 0, limit)), List::size);
+    }
+
+    public static Credentials.Result authenticate(String login, String password) {
+        return PersistenceEvent.record("Iniciar sesión", "Credencial", () -> {
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                return Credentials.authenticate(session, login, password);
+            }
+        }, result -> 1);
+    }
+
+    // Libros
+
+    public static Libro getBook(long id) {
+        return PersistenceEvent.record("Cargar", "Libro", () -> LibroRepository.find(id), LibraryService::rows);
+    }
+
+    // Libros disponibles para elegir en una reserva
+    public static List<Libro> availableBooks() {
+        return PersistenceEvent.record("Cargar lista", "Libro", LibroRepository::available, List::size);
+    }
+
+    public static Libro addBook(String titulo, String autor, String genero, boolean disponibilidad) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setAutor(autor);
+        libro.setGenero(genero);
+        libro.setDisponibilidad(disponibilidad);
+        PersistenceEvent.record("Añadir", "Libro", () -> Repositories.write(session -> {
+            session.persist(libro);
+            LibraryEvents.afterCommit(session, new BookEdited(libro.getId(), Change.CREATED));
+            return libro;
+        }), result -> 1);
+        bookChanged(libro);
+        return libro;
+    }
+
+    // Devuelve false si el libro ya no existe
+    public static boolean updateBook(long id, String titulo, String autor, String genero, boolean disponibilidad) {
+        Libro libro = PersistenceEvent.record("Editar", "Libro", () -> Repositories.write(session -> {
+            // Bloqueado como en un préstamo o una devolución, para que la cuenta de préstamos abiertos no cambie
+            Libro encontrado = session.get(Libro.class, id, LockMode.PESSIMISTIC_WRITE);
+            if (encontrado != null) {
+                String autorAnterior = encontrado.getAutor();
+                String generoAnterior = encontrado.getGenero();
+                encontrado.setTitulo(titulo);
+                encontrado.setAutor(autor);
+                encontrado.setGenero(genero);
+                encontrado.setDisponibilidad(disponibilidad);
+                if (!Objects.equals(autorAnterior, autor) || !Objects.equals(generoAnterior, genero)) {
+                    ReportRollups.recordBookChange(session, autorAnterior, generoAnterior, encontrado,
+                            PrestamoRepository.count(session, id));
+                }
+                LibraryEvents.afterCommit(session, new BookEdited(id, Change.UPDATED));
+            }
+            return encontrado;
+        }), LibraryService::rows);
+        if (libro == null) {
+            return false;
+        }
+        bookChanged(libro);
+        return true;
+    }
+
+    public static boolean deleteBook(long id) {
+        boolean removed = PersistenceEvent.record("Eliminar", "Libro", () -> Repositories.write(session -> {
+            Libro libro = session.get(Libro.class, id);
+            if (libro == null) {
+                return false;
+            }
+            session.remove(libro);
+            LibraryEvents.afterCommit(session, new BookEdited(id, Change.DELETED));
+            return true;
+        }), LibraryService::rows);
+        if (removed) {
+            QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+            BookSearchIndex.getInstance().remove(id);
+        }
+        return removed;
+    }
+
+    private static void bookChanged(Libro libro) {
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        BookSearchIndex.getInstance().put(libro.getId(), libro.getTitulo(), libro.getAutor(), libro.getGenero());
+    }
+
+    // Usuarios
+
+    public static Usuario getUser(long id) {
+        return PersistenceEvent.record("Cargar", "Usuario", () -> UsuarioRepository.find(id), LibraryService::rows);
+    }
+
+    public static List<Usuario> allUsers() {
+        return PersistenceEvent.record("Cargar lista", "Usuario", UsuarioRepository::all, List::size);
+    }
+
+    /**
+     * Da de alta al usuario con su credencial en la misma transacción. El nombre de
+     * acceso es el nombre o, si otro usuario ya lo tiene, nombre.id
+     * ({@link Credentials#loginFor}).
+     */
+    public static Usuario addUser(Usuario usuario, String password) {
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("La contraseña es obligatoria");
+        }
+        PersistenceEvent.record("Añadir", "Usuario", () -> Repositories.write(session -> {
+            session.persist(usuario);
+            Credentials.setPassword(session, usuario, password);
+            LibraryEvents.afterCommit(session, new UserChanged(usuario.getId(), Change.CREATED));
+            return usuario;
+        }), result -> 1);
+        UserSearchIndex.getInstance().put(usuario);
+        return usuario;
+    }
+
+    /**
+     * Copia los datos personales y el rol de {@code datos}. Si cambia el nombre
+     * cambia también el nombre de acceso, con la misma regla que en el alta; la
+     * contraseña solo se cambia si se indica.
+     */
+    public static boolean updateUser(long id, Usuario datos, String password) {
+        Usuario editado = PersistenceEvent.record("Editar", "Usuario", () -> Repositories.write(session -> {
+            Usuario usuario = session.get(Usuario.class, id);
+            if (usuario == null) {
+                return null;
+            }
+            if (datos.getNombre() != null && !datos.getNombre().equals(usuario.getNombre())) {
+                Credentials.rename(session, usuario, datos.getNombre());
+            }
+            if (password != null && !password.isEmpty()) {
+                Credentials.setPassword(session, usuario, password);
+            }
+            usuario.setNombre(datos.getNombre());
+            usuario.setApellidos(datos.getApellidos());
+            usuario.setEmail(datos.getEmail());
+            usuario.setDni(datos.getDni());
+            usuario.setTelefono(datos.getTelefono());
+            usuario.setRol(datos.getRol());
+            LibraryEvents.afterCommit(session, new UserChanged(id, Change.UPDATED));
+            return usuario;
+        }), LibraryService::rows);
+        if (editado == null) {
+            return false;
+        }
+        UserSearchIndex.getInstance().put(editado);
+        return true;
+    }
+
+    // Nombre de acceso del usuario, o null si no tiene credencial
+    public static String getLogin(long usuarioId) {
+        return PersistenceEvent.record("Cargar", "Credencial", () -> Repositories.read(session -> {
+            Credencial credencial = session.get(Credencial.class, usuarioId);
+            return credencial == null ? null : credencial.getLogin();
+        }), LibraryService::rows);
+    }
+
+    public static boolean deleteUser(long id) {
+        boolean removed = PersistenceEvent.record("Eliminar", "Usuario", () -> Repositories.write(session -> {
+            Usuario usuario = session.get(Usuario.class, id);
+            if (usuario == null) {
+                return false;
+            }
+            session.remove(usuario);
+            LibraryEvents.afterCommit(session, new UserChanged(id, Change.DELETED));
+            return true;
+        }), LibraryService::rows);
+        if (removed) {
+            UserSearchIndex.getInstance().remove(id);
+        }
+        return removed;
+    }
+
+    // Préstamos y reservas
+
+    // Revisa ahora los préstamos vencidos; devuelve cuántas multas ha recalculado
+    public static int checkOverdue() {
+        return OverdueLoans.scan();
+    }
+
+    public static Reservations.Outcome reserve(long libroId, long usuarioId) {
+        return PersistenceEvent.record("Reservar", "Prestamo", () -> Reservations.reserve(libroId, usuarioId),
+                result -> 1);
+    }
+
+    public static Reservations.Outcome enqueue(long libroId, long usuarioId) {
+        return PersistenceEvent.record("Lista de espera", "Reserva", () -> Reservations.enqueue(libroId, usuarioId),
+                result -> 1);
+    }
+
+    public static Reservations.Devolucion giveBack(long libroId, long usuarioId) {
+        return PersistenceEvent.record("Devolver", "Prestamo", () -> Reservations.giveBack(libroId, usuarioId),
+                result -> 1);
+    }
+
+    /*
+     * Reserva creada por un administrador: sigue el mismo camino que la del
+     * catálogo, así que presta el libro si está disponible y, si no, apunta al
+     * usuario a la lista de espera con el libro bloqueado y sin duplicados.
+     */
+    public static Reservations.Outcome addReserva(long libroId, long usuarioId) {
+        return PersistenceEvent.record("Añadir", "Reserva", () -> {
+            Reservations.Outcome outcome = Reservations.reserve(libroId, usuarioId);
+            return outcome == Reservations.Outcome.NO_DISPONIBLE ? Reservations.enqueue(libroId, usuarioId) : outcome;
+        }, result -> 1);
+    }
+
+    public static Reserva getReserva(long id) {
+        return PersistenceEvent.record("Cargar", "Reserva", () -> ReservaRepository.find(id), LibraryService::rows);
+    }
+
+    // Reserva de la que procede un préstamo, para editarla desde el listado de préstamos
+    public static Reserva getLoanReserva(long libroId, long usuarioId) {
+        return PersistenceEvent.record("Cargar", "Reserva", () -> ReservaRepository.findForLoan(libroId, usuarioId),
+                LibraryService::rows);
+    }
+
+    public static boolean setReservaEstado(long id, Reserva.EstadoReserva estado) {
+        return PersistenceEvent.record("Editar", "Reserva", () -> Repositories.write(session -> {
+            Reserva reserva = session.get(Reserva.class, Math.toIntExact(id));
+            if (reserva == null) {
+                return false;
+            }
+            // Una reserva pendiente es un puesto en la lista de espera: solo se entra con addReserva
+            if (estado == Reserva.EstadoReserva.Pendiente && reserva.getEstado() != estado) {
+                throw new IllegalArgumentException(
+                        "Una reserva no puede volver a Pendiente; añada una reserva nueva para la lista de espera");
+            }
+            reserva.setEstado(estado);
+            return true;
+        }), LibraryService::rows);
+    }
+
+    /*
+     * Elimina un préstamo sin devolverlo, descontándolo de los resúmenes de
+     * informes. El libro pasa al primero de su lista de espera o vuelve a estar
+     * disponible, como en una devolución.
+     */
+    public static Reservations.Devolucion deleteLoan(long id) {
+        return PersistenceEvent.record("Eliminar", "Prestamo", () -> Reservations.remove(id),
+                result -> result == Reservations.Devolucion.SIN_PRESTAMO ? 0 : 1);
+    }
+
+    // Filas afectadas para PersistenceEvent: ninguna si la operación no encontró la fila
+    private static long rows(Object result) {
+        return result == null || Boolean.FALSE.equals(result) ? 0 : 1;
+    }
+}
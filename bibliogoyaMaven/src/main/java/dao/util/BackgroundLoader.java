@@ -0,0 +1,211 @@
+package dao.util;
+
+import java.lang.System.Logger.Level;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import javax.swing.SwingWorker;
+import org.hibernate.Session;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Capa común de trabajo asíncrono para las ventanas. Cada tarea se ejecuta fuera
+ * del hilo de eventos de Swing (EDT) en un hilo virtual y su resultado, o su
+ * error, se entrega al EDT: {@link #read} para las lecturas sin estado (las
+ * páginas de {@link PagedTableModel}), {@link #call} para el trabajo que necesita
+ * una sesión normal, {@link #compute} para el que no necesita ninguna y
+ * {@link #track} para los trabajos largos que informan de su avance.
+ *
+ * Cada ventana mantiene su propio cargador y llama a {@link #cancelAll()} al
+ * cambiar de vista o al cerrarse, lo que aborta las consultas en curso.
+ */
+public class BackgroundLoader {
+    private static final System.Logger LOG = System.getLogger(BackgroundLoader.class.getName());
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bibliogoya-loader-", 0).factory());
+
+    private final Set<Task<?, ?>> tasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Ejecuta una unidad de trabajo en segundo plano y entrega su resultado al EDT.
+     */
+    public <R> Task<R, Void> call(Function<Session, R> work, Consumer<R> onSuccess, Consumer<Exception> onError) {
+        Task<R, Void> task = new Task<>(onError) {
+            @Override
+            protected R doInBackground() {
+                try (Session session = open()) {
+                    return work.apply(session);
+                }
+            }
+
+            @Override
+            protected void succeeded(R result) {
+                onSuccess.accept(result);
+            }
+        };
+        return submit(task);
+    }
+
+    /**
+     * Como {@link #call}, pero en una sesión sin estado: para las lecturas de
+     * listados, que no necesitan contexto de persistencia.
+     */
+    public <R> Task<R, Void> read(Function<StatelessSession, R> work, Consumer<R> onSuccess,
+            Consumer<Exception> onError) {
+        Task<R, Void> task = new Task<>(onError) {
+            @Override
+            protected R doInBackground() {
+                try (StatelessSession session = openStateless()) {
+                    return work.apply(session);
+                }
+            }
+
+            @Override
+            protected void succeeded(R result) {
+                onSuccess.accept(result);
+            }
+        };
+        return submit(task);
+    }
+
+    /**
+     * Ejecuta en segundo plano un trabajo que no necesita una sesión, como una
+     * búsqueda en un índice en memoria o uno que abre las suyas, y entrega su
+     * resultado al EDT.
+     */
+    public <R> Task<R, Void> compute(Supplier<R> work, Consumer<R> onSuccess, Consumer<Exception> onError) {
+        Task<R, Void> task = new Task<>(onError) {
+            @Override
+            protected R doInBackground() {
+                return work.get();
+            }
+
+            @Override
+            protected void succeeded(R result) {
+                onSuccess.accept(result);
+            }
+        };
+        return submit(task);
+    }
+
+    /**
+     * Ejecuta en segundo plano un trabajo largo que informa de su avance, como una
+     * importación o una exportación. El trabajo gestiona sus propias sesiones; al
+     * EDT solo llega el último avance de cada ráfaga.
+     */
+    public <R> Task<R, Long> track(Job<R> work, LongConsumer onProgress, Consumer<R> onSuccess,
+            Consumer<Exception> onError) {
+        Task<R, Long> task = new Task<>(onError) {
+            @Override
+            protected R doInBackground() throws Exception {
+                return work.run(this::publish);
+            }
+
+            @Override
+            protected void process(List<Long> progress) {
+                if (!isCancelled()) {
+                    onProgress.accept(progress.get(progress.size() - 1));
+                }
+            }
+
+            @Override
+            protected void succeeded(R result) {
+                onSuccess.accept(result);
+            }
+        };
+        return submit(task);
+    }
+
+    // Cancela todas las cargas en curso de este cargador
+    public void cancelAll() {
+        for (Task<?, ?> task : tasks) {
+            task.abort();
+        }
+        tasks.clear();
+    }
+
+    private <T extends Task<?, ?>> T submit(T task) {
+        tasks.add(task);
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    // Trabajo de larga duración que notifica su avance
+    @FunctionalInterface
+    public interface Job<R> {
+        R run(LongConsumer progress) throws Exception;
+    }
+
+    /**
+     * Tarea de carga. Al cancelarla se aborta también la sentencia JDBC en curso,
+     * ya que una lectura bloqueada en el socket no responde a la interrupción.
+     */
+    public abstract class Task<R, V> extends SwingWorker<R, V> {
+        private final Consumer<Exception> onError;
+        private volatile SharedSessionContract session;
+
+        private Task(Consumer<Exception> onError) {
+            this.onError = onError;
+        }
+
+        protected Session open() {
+            Session opened = HibernateUtil.getSessionFactory().openSession();
+            session = opened;
+            return opened;
+        }
+
+        protected StatelessSession openStateless() {
+            StatelessSession opened = HibernateUtil.getSessionFactory().openStatelessSession();
+            session = opened;
+            return opened;
+        }
+
+        protected abstract void succeeded(R result);
+
+        @Override
+        protected final void done() {
+            tasks.remove(this);
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                succeeded(get());
+            } catch (CancellationException e) {
+                // Cancelada entre la comprobación y la obtención del resultado
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                if (onError != null) {
+                    onError.accept(cause);
+                } else {
+                    LOG.log(Level.WARNING, "Error en una tarea en segundo plano", cause);
+                }
+            }
+        }
+
+        // Cancela la tarea y la consulta que esté ejecutando
+        public void abort() {
+            SharedSessionContract current = session;
+            if (current != null && current.isOpen()) {
+                try {
+                    // Lo mismo que Session.cancelQuery(), que StatelessSession no ofrece
+                    ((SharedSessionContractImplementor) current).getJdbcCoordinator().cancelLastQuery();
+                } catch (RuntimeException e) {
+                    // La sesión puede haberse cerrado mientras tanto
+                }
+            }
+            cancel(true);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dao.util;
+
+import java.util.stream.Stream;
+import org.hibernate.StatelessSession;
+import dao.repository.Repositories;
+
+/**
+ * Índice de búsqueda ({@link SearchIndex}) sobre el título, el autor y el género
+ * de los libros, pesando más el título que el autor y este más que el género.
+ *
+ * El índice se construye en segundo plano la primera vez que se usa y después
+ * se mantiene al día llamando a {@link #put} y {@link #remove} tras cada commit.
+ */
+public class BookSearchIndex extends SearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int GENRE_WEIGHT = 1;
+
+    private static final BookSearchIndex INSTANCE = new BookSearchIndex();
+
+    private BookSearchIndex() {
+        super("libros", TITLE_WEIGHT, AUTHOR_WEIGHT, GENRE_WEIGHT);
+        start();
+    }
+
+    public static BookSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Indexa o reindexa un libro; se llama tras confirmar su alta o edición
+    public void put(Long id, String titulo, String autor, String genero) {
+        super.put(id, titulo, autor, genero);
+    }
+
+    // Solo las columnas indexadas
+    @Override
+    protected Stream<Object[]> rows(StatelessSession session) {
+        return session.createQuery("SELECT l.id, l.titulo, l.autor, l.genero FROM Libro l", Object[].class)
+                .setFetchSize(Repositories.FETCH_SIZE)
+                .stream();
+    }
+}
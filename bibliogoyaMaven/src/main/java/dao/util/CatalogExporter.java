@@ -0,0 +1,206 @@
+package dao.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import dao.repository.Repositories;
+
+/**
+ * Exportación completa de las tablas de libros, usuarios y préstamos a CSV o
+ * JSON, opcionalmente comprimida con gzip.
+ *
+ * Las filas se leen con un cursor de solo avance en una sesión sin estado y se
+ * escriben según llegan, sin cargar entidades ni acumular resultados, de modo que
+ * la memoria usada no depende del tamaño de la tabla. Con MySQL el cursor solo
+ * trae {@link Repositories#FETCH_SIZE} filas cada vez gracias a
+ * {@code useCursorFetch} en la URL de conexión.
+ *
+ * El fichero se escribe primero con otro nombre y se renombra al terminar, así
+ * que una exportación detenida o fallida no deja un fichero a medias.
+ */
+public class CatalogExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Cada cuántas filas se informa del avance y se comprueba si se ha detenido
+    private static final int PROGRESS_INTERVAL = 5000;
+
+    public enum Dataset {
+        LIBROS("Libros", "SELECT l.id, l.titulo, l.autor, l.genero, l.fechaPublicacion, l.disponibilidad "
+                + "FROM Libro l ORDER BY l.id",
+                "id", "titulo", "autor", "genero", "fechapublicacion", "disponibilidad"),
+        USUARIOS("Usuarios", "SELECT u.id, u.nombre, u.apellidos, u.email, u.rol, u.dni, u.telefono "
+                + "FROM Usuario u ORDER BY u.id",
+                "id", "nombre", "apellidos", "email", "rol", "dni", "telefono"),
+        PRESTAMOS("Préstamos", "SELECT p.id, p.libro.id, p.usuario.id, p.fechaPrestamo, p.fechaDevolucion "
+                + "FROM Prestamo p ORDER BY p.id",
+                "id", "libroID", "usuarioID", "fechaprestamo", "fechadevolucion");
+
+        private final String label;
+        private final String hql;
+        private final List<String> columns;
+
+        Dataset(String label, String hql, String... columns) {
+            this.label = label;
+            this.hql = hql;
+            this.columns = List.of(columns);
+        }
+
+        String countHql() {
+            return "SELECT COUNT(*) " + hql.substring(hql.indexOf("FROM "), hql.indexOf(" ORDER BY"));
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public enum Format {
+        CSV("csv"), JSON("json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final Dataset dataset;
+    private final Format format;
+    private final boolean gzip;
+
+    public CatalogExporter(Dataset dataset, Format format, boolean gzip) {
+        this.dataset = dataset;
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    // Nombre de fichero propuesto, por ejemplo libros.csv.gz
+    public String defaultFileName() {
+        return dataset.name().toLowerCase() + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * Número de filas que se van a exportar, para mostrar el avance sobre el
+     * total.
+     */
+    public long count(Session session) {
+        return session.createQuery(dataset.countHql(), Long.class).getSingleResult();
+    }
+
+    /**
+     * Exporta la tabla al fichero indicado y devuelve el número de filas
+     * escritas. {@code onProgress} recibe las filas escritas hasta el momento. Si
+     * el hilo se interrumpe la exportación se abandona y no se crea el fichero.
+     */
+    public long run(Path target, LongConsumer onProgress) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".parcial");
+        long rows = 0;
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession();
+                FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                BufferedWriter out = writer(channel);
+                ScrollableResults<Object[]> results = session.createQuery(dataset.hql, Object[].class)
+                        .setFetchSize(Repositories.FETCH_SIZE)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+            begin(out);
+            while (results.next()) {
+                write(out, results.get(), rows);
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Exportación detenida");
+                    }
+                    onProgress.accept(rows);
+                }
+            }
+            end(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        onProgress.accept(rows);
+        return rows;
+    }
+
+    private BufferedWriter writer(FileChannel channel) throws IOException {
+        OutputStream out = Channels.newOutputStream(channel);
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void begin(BufferedWriter out) throws IOException {
+        if (format == Format.CSV) {
+            out.write(String.join(",", dataset.columns));
+            out.newLine();
+        } else {
+            out.write('[');
+        }
+    }
+
+    private void end(BufferedWriter out) throws IOException {
+        if (format == Format.JSON) {
+            out.newLine();
+            out.write(']');
+            out.newLine();
+        }
+    }
+
+    private void write(BufferedWriter out, Object[] row, long index) throws IOException {
+        if (format == Format.CSV) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeCsv(out, row[i]);
+            }
+            out.newLine();
+            return;
+        }
+        out.write(index == 0 ? "\n{" : ",\n{");
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Json.writeString(out, dataset.columns.get(i));
+            out.write(':');
+            Json.writeValue(out, row[i]);
+        }
+        out.write('}');
+    }
+
+    private static void writeCsv(BufferedWriter out, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = Json.text(value);
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
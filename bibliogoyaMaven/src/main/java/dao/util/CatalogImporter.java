@@ -0,0 +1,378 @@
+package dao.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+import org.hibernate.Session;
+
+/**
+ * Importación masiva de libros desde un fichero CSV.
+ *
+ * El fichero se lee registro a registro y los libros válidos se insertan con
+ * lotes JDBC en bloques de {@link #CHUNK_SIZE}, cada uno en su propia
+ * transacción. Los ids de Libro se generan con IDENTITY, lo que impide a
+ * Hibernate agrupar los INSERT; por eso se usa JDBC directamente.
+ *
+ * Cada bloque se confirma junto con el número de registros leídos del fichero en
+ * la tabla {@code importaciones}; si la importación se interrumpe, al volver a
+ * lanzarla sobre el mismo fichero se continúa tras el último bloque confirmado.
+ * Un fichero importado por completo se importa de nuevo desde el principio.
+ *
+ * Las filas rechazadas, por no superar la validación o por un error de la base
+ * de datos, se escriben con su número de línea y el motivo en un fichero
+ * {@code .rechazados.csv} junto al original.
+ *
+ * Formato: cabecera con las columnas {@code titulo}, {@code autor},
+ * {@code genero} y, opcionalmente, {@code fechapublicacion} (aaaa-mm-dd o
+ * dd/mm/aaaa) y {@code disponibilidad} (sí/no, true/false o 1/0; por defecto
+ * disponible). El orden de las columnas es libre.
+ */
+public class CatalogImporter {
+    public static final int CHUNK_SIZE = 1000;
+
+    private static final int MAX_LENGTH = 255;
+    private static final DateTimeFormatter SPANISH_DATE = DateTimeFormatter.ofPattern("d/M/uuuu");
+    private static final String INSERT = "INSERT INTO libros (titulo, autor, genero, fechapublicacion, disponibilidad) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private final Path file;
+    private final Path rejectedFile;
+
+    public CatalogImporter(Path file) {
+        this.file = file;
+        this.rejectedFile = file.resolveSibling(file.getFileName() + ".rechazados.csv");
+    }
+
+    // Resumen de una importación; los contadores incluyen lo importado en ejecuciones anteriores
+    public record Result(long records, long imported, long rejected, boolean resumed, Path rejectedFile) {
+    }
+
+    private record Row(long line, String titulo, String autor, String genero, LocalDate fecha,
+            boolean disponibilidad) {
+    }
+
+    // Indica si este mismo fichero ya se importó por completo
+    public boolean wasImported(Session session) throws IOException {
+        long size = Files.size(file);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT completada FROM importaciones WHERE fichero = ? AND tamano = ?")) {
+                select.setString(1, file.getFileName().toString());
+                select.setLong(2, size);
+                try (ResultSet rs = select.executeQuery()) {
+                    return rs.next() && rs.getBoolean(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Importa el fichero y devuelve el resumen. {@code onProgress} recibe el
+     * número de registros procesados tras cada bloque. Si el hilo se interrumpe
+     * se detiene tras el bloque en curso; lo confirmado hasta entonces se
+     * conserva y la importación puede reanudarse.
+     */
+    public Result run(LongConsumer onProgress) throws IOException {
+        long size = Files.size(file);
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.doReturningWork(connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    return importInto(connection, size, onProgress);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Result importInto(Connection connection, long size, LongConsumer onProgress)
+            throws SQLException, IOException {
+        String name = file.getFileName().toString();
+        long[] progress = loadProgress(connection, name, size);
+        boolean resumed = progress != null;
+        if (!resumed) {
+            progress = new long[] { 0, 0, 0 };
+            Files.deleteIfExists(rejectedFile);
+        }
+        long records = progress[0];
+        long imported = progress[1];
+        long rejected = progress[2];
+
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+                BufferedWriter rejects = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                PreparedStatement insert = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            int[] columns = columns(csv.getHeader());
+            // Saltar los registros ya confirmados en una ejecución anterior
+            for (long skipped = 0; skipped < records; skipped++) {
+                if (csv.next() == null) {
+                    break;
+                }
+            }
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            List<Long> ids = new ArrayList<>(CHUNK_SIZE);
+            long chunkRecords = 0;
+            long chunkRejected = 0;
+            List<String> fields;
+            boolean interrupted = false;
+            while (!interrupted && (fields = csv.next()) != null) {
+                chunkRecords++;
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    // Línea vacía
+                } else {
+                    try {
+                        chunk.add(parse(csv.getLine(), fields, columns));
+                    } catch (IllegalArgumentException e) {
+                        reject(rejects, csv.getLine(), e.getMessage(), fields);
+                        chunkRejected++;
+                    }
+                }
+                if (chunkRecords == CHUNK_SIZE) {
+                    chunkRejected += insert(connection, insert, chunk, ids, rejects);
+                    records += chunkRecords;
+                    imported += chunk.size();
+                    rejected += chunkRejected;
+                    commit(connection, name, size, records, imported, rejected, false, chunk, ids, rejects);
+                    onProgress.accept(records);
+                    chunk.clear();
+                    chunkRecords = 0;
+                    chunkRejected = 0;
+                    interrupted = Thread.currentThread().isInterrupted();
+                }
+            }
+            chunkRejected += insert(connection, insert, chunk, ids, rejects);
+            records += chunkRecords;
+            imported += chunk.size();
+            rejected += chunkRejected;
+            commit(connection, name, size, records, imported, rejected, !interrupted, chunk, ids, rejects);
+            onProgress.accept(records);
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+        return new Result(records, imported, rejected, resumed, rejected > 0 ? rejectedFile : null);
+    }
+
+    /*
+     * Inserta el bloque en un lote y deja en {@code ids} las claves generadas. Si
+     * la base de datos rechaza alguna fila se deshace el lote y se insertan una a
+     * una para identificar las erróneas, que se retiran del bloque; devuelve
+     * cuántas son.
+     */
+    private int insert(Connection connection, PreparedStatement insert, List<Row> chunk, List<Long> ids,
+            BufferedWriter rejects) throws SQLException, IOException {
+        ids.clear();
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        try {
+            for (Row row : chunk) {
+                bind(insert, row);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            readKeys(insert, ids);
+            return 0;
+        } catch (BatchUpdateException e) {
+            connection.rollback();
+            insert.clearBatch();
+            ids.clear();
+        }
+        int rejected = 0;
+        for (var iterator = chunk.iterator(); iterator.hasNext();) {
+            Row row = iterator.next();
+            try {
+                bind(insert, row);
+                insert.executeUpdate();
+                readKeys(insert, ids);
+            } catch (SQLException e) {
+                reject(rejects, row.line(), e.getMessage(), List.of(row.titulo(), nonNull(row.autor()),
+                        nonNull(row.genero())));
+                iterator.remove();
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    private static void readKeys(PreparedStatement insert, List<Long> ids) throws SQLException {
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getLong(1));
+            }
+        }
+    }
+
+    // Confirma el bloque junto con el avance y actualiza la caché y el índice de búsqueda
+    private void commit(Connection connection, String name, long size, long records, long imported, long rejected,
+            boolean completed, List<Row> chunk, List<Long> ids, BufferedWriter rejects)
+            throws SQLException, IOException {
+        saveProgress(connection, name, size, records, imported, rejected, completed);
+        rejects.flush();
+        connection.commit();
+        if (chunk.isEmpty()) {
+            return;
+        }
+        QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        if (ids.size() == chunk.size()) {
+            BookSearchIndex index = BookSearchIndex.getInstance();
+            for (int i = 0; i < ids.size(); i++) {
+                Row row = chunk.get(i);
+                index.put(ids.get(i), row.titulo(), row.autor(), row.genero());
+            }
+        }
+    }
+
+    private long[] loadProgress(Connection connection, String name, long size) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT registros, importados, rechazados, "
+                + "completada FROM importaciones WHERE fichero = ? AND tamano = ?")) {
+            select.setString(1, name);
+            select.setLong(2, size);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next() || rs.getBoolean(4)) {
+                    return null;
+                }
+                return new long[] { rs.getLong(1), rs.getLong(2), rs.getLong(3) };
+            }
+        }
+    }
+
+    private void saveProgress(Connection connection, String name, long size, long records, long imported,
+            long rejected, boolean completed) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE importaciones SET registros = ?, "
+                + "importados = ?, rechazados = ?, completada = ?, actualizada = ? WHERE fichero = ? AND tamano = ?")) {
+            update.setLong(1, records);
+            update.setLong(2, imported);
+            update.setLong(3, rejected);
+            update.setBoolean(4, completed);
+            update.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            update.setString(6, name);
+            update.setLong(7, size);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO importaciones (fichero, tamano, "
+                + "registros, importados, rechazados, completada, actualizada) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            insert.setString(1, name);
+            insert.setLong(2, size);
+            insert.setLong(3, records);
+            insert.setLong(4, imported);
+            insert.setLong(5, rejected);
+            insert.setBoolean(6, completed);
+            insert.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+            insert.executeUpdate();
+        }
+    }
+
+    // Posición de cada columna en la cabecera: título, autor, género, fecha y disponibilidad (-1 si falta)
+    private static int[] columns(List<String> header) throws IOException {
+        String[] names = { "titulo", "autor", "genero", "fechapublicacion", "disponibilidad" };
+        int[] columns = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                String column = BookSearchIndex.tokenize(header.get(j)).stream().reduce("", String::concat);
+                if (column.equals(names[i])) {
+                    columns[i] = j;
+                }
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            if (columns[i] < 0) {
+                throw new IOException("Falta la columna '" + names[i] + "' en la cabecera del fichero");
+            }
+        }
+        return columns;
+    }
+
+    private static Row parse(long line, List<String> fields, int[] columns) {
+        String titulo = text(fields, columns[0], "título", true);
+        String autor = text(fields, columns[1], "autor", false);
+        String genero = text(fields, columns[2], "género", false);
+        String fecha = text(fields, columns[3], "fecha de publicación", false);
+        String disponible = text(fields, columns[4], "disponibilidad", false);
+        return new Row(line, titulo, autor, genero, fecha == null ? null : date(fecha),
+                disponible == null || availability(disponible));
+    }
+
+    private static String text(List<String> fields, int column, String name, boolean required) {
+        String value = column >= 0 && column < fields.size() ? fields.get(column).strip() : "";
+        if (value.isEmpty()) {
+            if (required) {
+                throw new IllegalArgumentException("Falta el " + name);
+            }
+            return null;
+        }
+        if (value.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("El " + name + " supera los " + MAX_LENGTH + " caracteres");
+        }
+        return value;
+    }
+
+    private static LocalDate date(String value) {
+        try {
+            return value.contains("/") ? LocalDate.parse(value, SPANISH_DATE) : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha de publicación no válida: " + value);
+        }
+    }
+
+    private static boolean availability(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "si", "sí", "true", "1", "disponible" -> true;
+            case "no", "false", "0", "no disponible" -> false;
+            default -> throw new IllegalArgumentException("Disponibilidad no válida: " + value);
+        };
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static void bind(PreparedStatement insert, Row row) throws SQLException {
+        insert.setString(1, row.titulo());
+        insert.setString(2, row.autor());
+        insert.setString(3, row.genero());
+        if (row.fecha() == null) {
+            insert.setNull(4, Types.DATE);
+        } else {
+            insert.setDate(4, java.sql.Date.valueOf(row.fecha()));
+        }
+        insert.setBoolean(5, row.disponibilidad());
+    }
+
+    private static void reject(BufferedWriter rejects, long line, String reason, List<String> fields)
+            throws IOException {
+        rejects.write(line + ",\"" + reason.replace("\"", "\"\"") + "\"");
+        for (String field : fields) {
+            rejects.write(",\"" + (field == null ? "" : field.replace("\"", "\"\"")) + "\"");
+        }
+        rejects.newLine();
+    }
+}
@@ -0,0 +1,246 @@
+package dao.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import dao.entity.Credencial;
+import dao.entity.Usuario;
+
+/**
+ * Autenticación contra la tabla de credenciales: búsqueda por el nombre de acceso
+ * (índice único) y comprobación de la contraseña con PBKDF2-HMAC-SHA256 y sal
+ * propia de cada usuario. Las credenciales migradas sin hash se comprueban una vez
+ * con el esquema anterior (los apellidos) y se guardan ya con hash.
+ *
+ * PBKDF2 es lento a propósito. Para que los inicios de sesión repetidos en el
+ * mismo puesto sean rápidos se recuerdan las últimas verificaciones correctas
+ * como un HMAC, con una clave aleatoria de cada arranque, del hash guardado y de
+ * la contraseña: nunca la contraseña. La credencial se sigue leyendo en cada
+ * intento, así que un cambio de contraseña invalida la entrada aunque se haga
+ * desde otro puesto, y las entradas caducan a los {@value #CACHE_TTL_MINUTES}
+ * minutos.
+ *
+ * Tras {@value #MAX_FAILURES} fallos seguidos el nombre de acceso queda bloqueado
+ * {@value #LOCKOUT_MINUTES} minutos. Los contadores están en un ConcurrentHashMap,
+ * que solo bloquea la entrada de cada nombre, así que los intentos de distintos
+ * puestos no esperan unos a otros.
+ */
+public final class Credentials {
+    public static final int ITERATIONS = 600_000;
+
+    private static final int MAX_FAILURES = 5;
+    private static final long LOCKOUT_MINUTES = 15;
+    private static final long CACHE_TTL_MINUTES = 10;
+    private static final int CACHE_ENTRIES = 64;
+    // Por encima de este número de nombres con fallos se descartan los caducados
+    private static final int MAX_TRACKED = 10_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final byte[] CACHE_KEY = randomBytes(32);
+    // Sal fija para gastar el mismo tiempo cuando el nombre de acceso no existe
+    private static final byte[] DUMMY_SALT = randomBytes(SALT_BYTES);
+
+    private static final Map<String, Verified> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+            return size() > CACHE_ENTRIES;
+        }
+    };
+    private static final ConcurrentHashMap<String, Failures> failures = new ConcurrentHashMap<>();
+
+    public enum Outcome {
+        CORRECTO, INCORRECTO, BLOQUEADO
+    }
+
+    public record Result(Outcome outcome, Usuario usuario) {
+    }
+
+    private record Verified(byte[] mac, long expires) {
+    }
+
+    private record Failures(int count, long since) {
+    }
+
+    private Credentials() {
+    }
+
+    public static Result authenticate(Session session, String login, String password) {
+        if (isLocked(login)) {
+            return new Result(Outcome.BLOQUEADO, null);
+        }
+        Credencial credencial = session.createNamedSelectionQuery(Credencial.POR_LOGIN, Credencial.class)
+                .setParameter("login", login)
+                .uniqueResult();
+        Usuario usuario = null;
+        if (credencial == null) {
+            hash(password, DUMMY_SALT, ITERATIONS);
+        } else if (credencial.getHash() == null) {
+            usuario = session.get(Usuario.class, credencial.getUsuarioId());
+            if (usuario == null || !password.equals(usuario.getApellidos())) {
+                usuario = null;
+            } else {
+                store(session, credencial, password);
+            }
+        } else if (isCached(login, credencial, password)
+                || MessageDigest.isEqual(credencial.getHash(),
+                        hash(password, credencial.getSal(), credencial.getIteraciones()))) {
+            usuario = session.get(Usuario.class, credencial.getUsuarioId());
+            if (usuario != null && credencial.getIteraciones() < ITERATIONS) {
+                store(session, credencial, password);
+            }
+        }
+
+        if (usuario == null) {
+            return new Result(recordFailure(login), null);
+        }
+        failures.remove(login);
+        remember(login, credencial, password);
+        return new Result(Outcome.CORRECTO, usuario);
+    }
+
+    /**
+     * Cambia la contraseña del usuario dentro de la transacción en curso. Si aún no
+     * tiene credencial, se crea con el nombre de acceso que indica {@link #loginFor}.
+     */
+    public static void setPassword(Session session, Usuario usuario, String password) {
+        Credencial credencial = session.get(Credencial.class, usuario.getId());
+        if (credencial == null) {
+            credencial = new Credencial(usuario.getId(), loginFor(session, usuario.getId(), usuario.getNombre()));
+            session.persist(credencial);
+        }
+        forget(credencial.getLogin());
+        setHash(credencial, password);
+    }
+
+    // Cambia el nombre de acceso al del nuevo nombre ({@link #loginFor}) conservando la contraseña
+    public static void rename(Session session, Usuario usuario, String nombre) {
+        Credencial credencial = session.get(Credencial.class, usuario.getId());
+        if (credencial == null) {
+            return;
+        }
+        String login = loginFor(session, usuario.getId(), nombre);
+        if (!credencial.getLogin().equals(login)) {
+            forget(credencial.getLogin());
+            credencial.setLogin(login);
+        }
+    }
+
+    /**
+     * Nombre de acceso de un usuario con el nombre indicado, con la misma regla que
+     * la migración V6: el propio nombre si ningún otro usuario lo tiene ya como
+     * nombre de acceso y, si no, {@code nombre.id}. Así un nombre repetido no
+     * choca con el índice único de credenciales.login.
+     */
+    public static String loginFor(Session session, long usuarioId, String nombre) {
+        if (nombre == null) {
+            return "usuario." + usuarioId;
+        }
+        Credencial owner = session.createNamedSelectionQuery(Credencial.POR_LOGIN, Credencial.class)
+                .setParameter("login", nombre)
+                .uniqueResult();
+        return owner == null || owner.getUsuarioId() == usuarioId ? nombre : nombre + "." + usuarioId;
+    }
+
+    // Guarda el hash en su propia transacción (migración o iteraciones antiguas)
+    private static void store(Session session, Credencial credencial, String password) {
+        Transaction transaction = session.beginTransaction();
+        try {
+            setHash(credencial, password);
+            transaction.commit();
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        }
+    }
+
+    private static void setHash(Credencial credencial, String password) {
+        byte[] sal = randomBytes(SALT_BYTES);
+        credencial.setSal(sal);
+        credencial.setIteraciones(ITERATIONS);
+        credencial.setHash(hash(password, sal, ITERATIONS));
+    }
+
+    private static boolean isCached(String login, Credencial credencial, String password) {
+        Verified entry;
+        synchronized (verified) {
+            entry = verified.get(login);
+        }
+        return entry != null && entry.expires() - System.nanoTime() > 0
+                && MessageDigest.isEqual(entry.mac(), mac(credencial, password));
+    }
+
+    private static void remember(String login, Credencial credencial, String password) {
+        Verified entry = new Verified(mac(credencial, password),
+                System.nanoTime() + TimeUnit.MINUTES.toNanos(CACHE_TTL_MINUTES));
+        synchronized (verified) {
+            verified.put(login, entry);
+        }
+    }
+
+    private static void forget(String login) {
+        synchronized (verified) {
+            verified.remove(login);
+        }
+    }
+
+    private static boolean isLocked(String login) {
+        Failures entry = failures.get(login);
+        return entry != null && entry.count() >= MAX_FAILURES && !expired(entry);
+    }
+
+    private static Outcome recordFailure(String login) {
+        if (failures.size() > MAX_TRACKED) {
+            failures.values().removeIf(Credentials::expired);
+        }
+        Failures entry = failures.merge(login, new Failures(1, System.nanoTime()),
+                (old, first) -> expired(old) ? first : new Failures(old.count() + 1, old.since()));
+        return entry.count() >= MAX_FAILURES ? Outcome.BLOQUEADO : Outcome.INCORRECTO;
+    }
+
+    private static boolean expired(Failures entry) {
+        return System.nanoTime() - entry.since() > TimeUnit.MINUTES.toNanos(LOCKOUT_MINUTES);
+    }
+
+    private static byte[] hash(String password, byte[] sal, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), sal, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 no disponible", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] mac(Credencial credencial, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(CACHE_KEY, "HmacSHA256"));
+            mac.update(credencial.getHash());
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC no disponible", e);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,126 @@
+package dao.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV en streaming: devuelve un registro cada vez, sin cargar el
+ * fichero en memoria. Admite campos entre comillas dobles con separadores,
+ * saltos de línea y comillas duplicadas en su interior.
+ *
+ * El separador se deduce de la cabecera: punto y coma si la cabecera lo
+ * contiene y no contiene comas (el formato que exporta Excel en castellano) y
+ * coma en otro caso.
+ */
+public class CsvReader implements Closeable {
+    private final Reader reader;
+    private char separator;
+    private final List<String> header;
+    private int pending = -2;
+    // Línea del fichero en la que empieza el último registro leído
+    private long line;
+    private long nextLine = 1;
+
+    public CsvReader(Reader reader) throws IOException {
+        this.reader = reader;
+        skipBom();
+        this.separator = ',';
+        List<String> first = readRaw();
+        if (first != null && first.size() == 1 && first.get(0).contains(";")) {
+            separator = ';';
+            first = List.of(first.get(0).split(";", -1));
+        }
+        this.header = first == null ? List.of() : List.copyOf(first);
+    }
+
+    public List<String> getHeader() {
+        return header;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    // Siguiente registro, o null al final del fichero
+    public List<String> next() throws IOException {
+        return readRaw();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readRaw() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        line = nextLine;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + line);
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') {
+                        pending = n;
+                    }
+                }
+                if (c != -1) {
+                    nextLine++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    // Descarta la marca de orden de bytes que añaden algunos editores
+    private void skipBom() throws IOException {
+        int c = reader.read();
+        if (c != '\uFEFF') {
+            pending = c;
+        }
+    }
+}
@@ -1,34 +1,125 @@
 package dao.util;
 
+import java.lang.System.Logger.Level;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.flywaydb.core.Flyway;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.CacheRegionStatistics;
 import dao.entity.*;
 
+/**
+ * Arranque y acceso a la SessionFactory. El arranque se lanza en segundo plano
+ * con {@link #bootstrap()} para que la ventana de inicio de sesión aparezca al
+ * momento; {@link #getSessionFactory()} espera a que termine.
+ *
+ * Antes de construir la SessionFactory se aplican las migraciones versionadas de
+ * {@code db/migration} con Flyway, que solo comprueba su historial y sus sumas de
+ * verificación: Hibernate ya no inspecciona ni compara el esquema al arrancar.
+ */
 public class HibernateUtil {
-    private static final SessionFactory sessionFactory = buildSessionFactory();
-    
+    // Regiones de la caché de segundo nivel, definidas en ehcache.xml
+    public static final List<String> CACHE_REGIONS = List.of("libros", "usuarios", "prestamos", "reservas");
+
+    private static final System.Logger LOG = System.getLogger(HibernateUtil.class.getName());
+    private static final CompletableFuture<SessionFactory> sessionFactory = new CompletableFuture<>();
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Lanza el arranque en un hilo de fondo si no se ha lanzado ya y devuelve el
+     * futuro de la SessionFactory.
+     */
+    public static CompletableFuture<SessionFactory> bootstrap() {
+        if (started.compareAndSet(false, true)) {
+            Thread.ofPlatform().name("bibliogoya-bootstrap").start(() -> {
+                try {
+                    sessionFactory.complete(buildSessionFactory());
+                } catch (Throwable ex) {
+                    LOG.log(Level.ERROR, "Error al crear SessionFactory", ex);
+                    sessionFactory.completeExceptionally(ex);
+                }
+            });
+        }
+        return sessionFactory;
+    }
+
     private static SessionFactory buildSessionFactory() {
+        long start = System.nanoTime();
+        Configuration configuration = new Configuration().configure();
+        // Las propiedades -Dhibernate.* de la línea de comandos prevalecen sobre hibernate.cfg.xml
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("hibernate."))
+                .forEach(name -> configuration.setProperty(name, System.getProperty(name)));
+
+        // Agregar las clases de entidad
+        configuration.addAnnotatedClass(Libro.class);
+        configuration.addAnnotatedClass(Usuario.class);
+        configuration.addAnnotatedClass(Prestamo.class);
+        configuration.addAnnotatedClass(Reserva.class);
+        configuration.addAnnotatedClass(Credencial.class);
+
+        migrate(configuration.getProperties());
+        long migrated = System.nanoTime();
+        SessionFactory factory = configuration.buildSessionFactory();
+        LOG.log(Level.INFO, "SessionFactory lista en {0} ms (migraciones {1} ms), {2} ms desde el arranque de la JVM",
+                (System.nanoTime() - start) / 1_000_000, (migrated - start) / 1_000_000, uptimeMillis());
+        return factory;
+    }
+
+    /*
+     * Aplica las migraciones pendientes. Una base de datos creada antes de usar
+     * migraciones (con hbm2ddl) se marca como versión 1 sin ejecutar el script
+     * inicial.
+     */
+    private static void migrate(Properties properties) {
+        Flyway.configure()
+                .dataSource(properties.getProperty("hibernate.connection.url"),
+                        properties.getProperty("hibernate.connection.username"),
+                        properties.getProperty("hibernate.connection.password"))
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    public static SessionFactory getSessionFactory() {
         try {
-            Configuration configuration = new Configuration().configure();
-            
-            // Agregar las clases de entidad
-            configuration.addAnnotatedClass(Libro.class);
-            configuration.addAnnotatedClass(Usuario.class);
-            configuration.addAnnotatedClass(Prestamo.class);
-            configuration.addAnnotatedClass(Reserva.class);
-            
-            return configuration.buildSessionFactory();
-        } catch (Throwable ex) {
-            System.err.println("Error al crear SessionFactory: " + ex);
-            throw new ExceptionInInitializerError(ex);
+            return bootstrap().join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("Error al crear SessionFactory", ex.getCause());
         }
     }
-    
-    public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+
+    public static boolean isReady() {
+        return sessionFactory.isDone() && !sessionFactory.isCompletedExceptionally();
     }
-    
+
+    // Milisegundos transcurridos desde el arranque de la JVM
+    public static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Contadores de aciertos, fallos y escrituras de cada región de la caché de
+     * segundo nivel, para dimensionar las regiones en ehcache.xml.
+     */
+    public static Map<String, CacheRegionStatistics> getCacheStatistics() {
+        Map<String, CacheRegionStatistics> statistics = new LinkedHashMap<>();
+        for (String region : CACHE_REGIONS) {
+            statistics.put(region, getSessionFactory().getStatistics().getDomainDataRegionStatistics(region));
+        }
+        return statistics;
+    }
+
     public static void shutdown() {
         getSessionFactory().close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package dao.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import org.hibernate.c3p0.internal.C3P0ConnectionProvider;
+
+/**
+ * Proveedor de conexiones c3p0 que registra en {@link PoolMonitor} cuánto se
+ * espera para obtener cada conexión y cuánto tiempo se retiene. Se activa con
+ * {@code hibernate.connection.provider_class} en hibernate.cfg.xml.
+ */
+public class InstrumentedConnectionProvider extends C3P0ConnectionProvider {
+    private static final long serialVersionUID = 1L;
+
+    // Tiempo a partir del cual una conexión retenida se considera una fuga
+    public static final String LEAK_THRESHOLD = "bibliogoya.pool.leak_threshold_ms";
+
+    @Override
+    public void configure(Map<String, Object> props) {
+        super.configure(props);
+        Object threshold = props.get(LEAK_THRESHOLD);
+        PoolMonitor.getInstance().start(this,
+                threshold == null ? PoolMonitor.DEFAULT_LEAK_THRESHOLD_MS : Long.parseLong(threshold.toString()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        PoolMonitor.getInstance().checkedOut(connection, System.nanoTime() - start);
+        return connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        PoolMonitor.getInstance().checkedIn(connection);
+        super.closeConnection(connection);
+    }
+
+    @Override
+    public void stop() {
+        PoolMonitor.getInstance().stop();
+        super.stop();
+    }
+}
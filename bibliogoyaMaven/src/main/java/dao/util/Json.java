@@ -0,0 +1,80 @@
+package dao.util;
+
+import java.io.IOException;
+import java.lang.reflect.RecordComponent;
+import java.util.Date;
+
+/**
+ * Escritura de valores JSON sin dependencias externas, compartida por las
+ * exportaciones y la API HTTP. Los números y booleanos se escriben tal cual, las
+ * fechas en formato ISO y el resto como texto.
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    public static void writeValue(Appendable out, Object value) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value.toString());
+        } else if (value instanceof Record record) {
+            writeRecord(out, record);
+        } else {
+            writeString(out, text(value));
+        }
+    }
+
+    // Objeto con un campo por cada componente del registro (las filas de dao.dto)
+    public static void writeRecord(Appendable out, Record record) throws IOException {
+        out.append('{');
+        RecordComponent[] components = record.getClass().getRecordComponents();
+        for (int i = 0; i < components.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            writeString(out, components[i].getName());
+            out.append(':');
+            try {
+                writeValue(out, components[i].getAccessor().invoke(record));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("No se puede leer " + components[i], e);
+            }
+        }
+        out.append('}');
+    }
+
+    public static void writeString(Appendable out, String text) throws IOException {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    // Las fechas se escriben en formato ISO (aaaa-mm-dd)
+    public static String text(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        }
+        if (value instanceof Date date) {
+            return new java.sql.Date(date.getTime()).toLocalDate().toString();
+        }
+        return value.toString();
+    }
+}
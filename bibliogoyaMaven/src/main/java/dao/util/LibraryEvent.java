@@ -0,0 +1,40 @@
+package dao.util;
+
+/**
+ * Cambios confirmados en la biblioteca que publica {@link LibraryEvents}. Llevan
+ * solo los ids afectados; quien los recibe vuelve a leer las filas que muestra.
+ */
+public sealed interface LibraryEvent {
+
+    enum Change {
+        CREATED, UPDATED, DELETED
+    }
+
+    // Préstamo de un libro disponible
+    record BookReserved(long libroId, long usuarioId, long prestamoId) implements LibraryEvent {
+    }
+
+    /**
+     * Devolución del préstamo {@code prestamoId}. Si había lista de espera,
+     * {@code entregado} es el préstamo nuevo al primero de ella; si no, null.
+     */
+    record BookReturned(long libroId, long usuarioId, long prestamoId, Loan entregado) implements LibraryEvent {
+    }
+
+    record BookEdited(long libroId, Change change) implements LibraryEvent {
+    }
+
+    record UserChanged(long usuarioId, Change change) implements LibraryEvent {
+    }
+
+    // Préstamo eliminado por un administrador sin devolver el libro
+    record LoanRemoved(long prestamoId, long libroId, long usuarioId) implements LibraryEvent {
+    }
+
+    // Revisión de préstamos vencidos terminada; {@code prestamos} son las multas recalculadas
+    record OverdueScanned(int prestamos) implements LibraryEvent {
+    }
+
+    record Loan(long prestamoId, long usuarioId) {
+    }
+}
@@ -0,0 +1,81 @@
+package dao.util;
+
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.Session;
+
+/**
+ * Bus de eventos del proceso: las operaciones de escritura anuncian lo que han
+ * cambiado y las ventanas abiertas actualizan solo esas filas, sin volver a
+ * cargar el listado.
+ *
+ * Los eventos se registran dentro de la transacción con {@link #afterCommit} y
+ * solo se entregan si esta se confirma; un intento que se deshace y se reintenta
+ * (como en {@link Reservations}) no anuncia nada. La lista de suscriptores es
+ * inmutable y se sustituye con compareAndSet, así que publicar no toma
+ * ningún bloqueo ni espera a que otra ventana se suscriba o se cierre.
+ */
+public final class LibraryEvents {
+    private static final System.Logger LOG = System.getLogger(LibraryEvents.class.getName());
+
+    private static final AtomicReference<List<Consumer<LibraryEvent>>> SUBSCRIBERS =
+            new AtomicReference<>(List.of());
+
+    private LibraryEvents() {
+    }
+
+    // Suscriptor que se invoca en el hilo que confirma la transacción; devuelve cómo darlo de baja
+    public static Runnable subscribe(Consumer<LibraryEvent> subscriber) {
+        SUBSCRIBERS.updateAndGet(current -> {
+            List<Consumer<LibraryEvent>> next = new ArrayList<>(current);
+            next.add(subscriber);
+            return List.copyOf(next);
+        });
+        return () -> unsubscribe(subscriber);
+    }
+
+    // Suscriptor de una ventana: recibe los eventos en el EDT, después de la acción que los produjo
+    public static Runnable subscribeOnEdt(Consumer<LibraryEvent> subscriber) {
+        return subscribe(event -> SwingUtilities.invokeLater(() -> subscriber.accept(event)));
+    }
+
+    // Publica el evento cuando se confirme la transacción en curso de la sesión
+    public static void afterCommit(Session session, LibraryEvent event) {
+        session.getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    publish(event);
+                }
+            }
+        });
+    }
+
+    private static void publish(LibraryEvent event) {
+        for (Consumer<LibraryEvent> subscriber : SUBSCRIBERS.get()) {
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Error al notificar " + event, e);
+            }
+        }
+    }
+
+    private static void unsubscribe(Consumer<LibraryEvent> subscriber) {
+        SUBSCRIBERS.updateAndGet(current -> {
+            List<Consumer<LibraryEvent>> next = new ArrayList<>(current);
+            // Los suscriptores son lambdas: equals compara la identidad
+            return next.remove(subscriber) ? List.copyOf(next) : current;
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package dao.util;
+
+import java.lang.System.Logger.Level;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Cache;
+import dao.entity.Prestamo;
+import dao.repository.PrestamoRepository;
+import dao.repository.Repositories;
+
+/**
+ * Revisión periódica de los préstamos cuya fecha de devolución ya pasó: los marca
+ * como vencidos y les calcula la multa por los días de retraso (migración V7).
+ *
+ * Los préstamos se recorren por el índice de (fechadevolucion, id) en tramos de
+ * {@link #CHUNK_SIZE}, cada uno en su propia transacción y con un único lote de
+ * UPDATE, así que ninguna transacción retiene bloqueos sobre toda la tabla. Cada
+ * préstamo revisado queda con la fecha del cálculo, de modo que una revisión
+ * interrumpida continúa donde se quedó y, tras días sin ejecutarse, la primera
+ * revisión pone al día todas las multas con los días transcurridos.
+ *
+ * La revisión se lanza al arrancar y después cada
+ * {@code bibliogoya.vencimientos.intervalo_min} minutos (60 por defecto; 0 la
+ * desactiva).
+ */
+public final class OverdueLoans {
+    public static final int CHUNK_SIZE = 500;
+    public static final BigDecimal DAILY_FINE = new BigDecimal("0.20");
+    public static final BigDecimal MAX_FINE = new BigDecimal("20.00");
+
+    private static final System.Logger LOG = System.getLogger(OverdueLoans.class.getName());
+    private static final String INTERVAL_PROPERTY = "bibliogoya.vencimientos.intervalo_min";
+    private static final long DEFAULT_INTERVAL_MIN = 60;
+    // Anterior a cualquier fecha de devolución (el mínimo de DATE en MySQL)
+    private static final LocalDate START = LocalDate.of(1000, 1, 1);
+    private static final String UPDATE = "UPDATE prestamos SET vencido = TRUE, multa = ?, fechamulta = ? WHERE id = ?";
+
+    // Separado del monitor de la clase para que start y stop no esperen a una revisión
+    private static final Object SCAN_LOCK = new Object();
+
+    private static ScheduledExecutorService scheduler;
+
+    private OverdueLoans() {
+    }
+
+    // Programa la revisión periódica; la primera se ejecuta enseguida
+    public static synchronized void start() {
+        long interval = Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MIN);
+        if (scheduler != null || interval <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+                .name("bibliogoya-vencimientos").factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                scan();
+            } catch (RuntimeException e) {
+                // Una excepción cancelaría las siguientes ejecuciones
+                LOG.log(Level.WARNING, "Error al revisar los préstamos vencidos", e);
+            }
+        }, 0, interval, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Revisa los préstamos vencidos cuya multa no se ha calculado hoy y devuelve
+     * cuántos ha actualizado. Se sincroniza para que la revisión programada y la
+     * que lanza un administrador no recorran la tabla a la vez.
+     */
+    public static int scan() {
+        synchronized (SCAN_LOCK) {
+            return PersistenceEvent.record("Revisar vencidos", "Prestamo", OverdueLoans::scanAll, total -> total);
+        }
+    }
+
+    // Multa de un préstamo devuelto {@code fechaDevolucion} y revisado {@code hoy}
+    public static BigDecimal fine(LocalDate fechaDevolucion, LocalDate hoy) {
+        long days = Math.max(0, ChronoUnit.DAYS.between(fechaDevolucion, hoy));
+        BigDecimal fine = DAILY_FINE.multiply(BigDecimal.valueOf(days));
+        return fine.min(MAX_FINE).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static int scanAll() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate fecha = START;
+        long id = 0;
+        int total = 0;
+        long start = System.nanoTime();
+        while (true) {
+            List<Fine> fines = chunk(hoy, fecha, id, total);
+            total += fines.size();
+            if (fines.size() < CHUNK_SIZE) {
+                break;
+            }
+            Fine last = fines.get(fines.size() - 1);
+            fecha = last.fechaDevolucion();
+            id = last.id();
+        }
+        if (total > 0) {
+            LOG.log(Level.INFO, "Revisados {0} préstamos vencidos en {1} ms", total,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return total;
+    }
+
+    /*
+     * Un tramo en su propia transacción: lee los préstamos, calcula las multas en
+     * paralelo y las guarda en un lote. El último tramo publica el evento con el
+     * total si ha habido cambios.
+     */
+    private static List<Fine> chunk(LocalDate hoy, LocalDate fecha, long id, int previous) {
+        List<Fine> chunk = Repositories.write(session -> {
+            List<Fine> fines = PrestamoRepository.overdue(session, hoy, fecha, id, CHUNK_SIZE).parallelStream()
+                    .map(row -> {
+                        LocalDate devolucion = (LocalDate) row[1];
+                        return new Fine((Long) row[0], devolucion, fine(devolucion, hoy));
+                    })
+                    .toList();
+            if (!fines.isEmpty()) {
+                Date revision = Date.valueOf(hoy);
+                session.doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+                        for (Fine fine : fines) {
+                            statement.setBigDecimal(1, fine.multa());
+                            statement.setDate(2, revision);
+                            statement.setLong(3, fine.id());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                });
+            }
+            if (fines.size() < CHUNK_SIZE && previous + fines.size() > 0) {
+                LibraryEvents.afterCommit(session, new LibraryEvent.OverdueScanned(previous + fines.size()));
+            }
+            return fines;
+        });
+        // El UPDATE no pasa por Hibernate: la caché de segundo nivel aún tiene los valores anteriores
+        Cache cache = HibernateUtil.getSessionFactory().getCache();
+        chunk.forEach(fine -> cache.evictEntityData(Prestamo.class, fine.id()));
+        return chunk;
+    }
+
+    private record Fine(long id, LocalDate fechaDevolucion, BigDecimal multa) {
+    }
+}
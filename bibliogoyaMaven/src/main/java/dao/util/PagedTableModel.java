@@ -0,0 +1,888 @@
+package dao.util;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.lang.System.Logger.Level;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+
+/**
+ * Modelo de tabla perezoso que carga las filas por páginas según el usuario se
+ * desplaza. Las páginas se piden con paginación por clave (keyset) sobre la
+ * columna de ordenación y el id, por lo que cada página cuesta lo mismo
+ * independientemente de su posición.
+ *
+ * Solo se mantiene en memoria una ventana acotada de {@link #MAX_PAGES} páginas;
+ * de las demás se recuerda únicamente la clave con la que empiezan. Si el
+ * usuario salta a una página cuya clave aún no se conoce (por ejemplo
+ * arrastrando la barra de desplazamiento) se recurre una vez a un OFFSET para
+ * alcanzarla.
+ *
+ * Las consultas se ejecutan fuera del EDT con {@link BackgroundLoader}, en
+ * sesiones sin estado; mientras una página no ha llegado sus celdas se muestran
+ * vacías. Cada lectura se registra como {@link PersistenceEvent}.
+ *
+ * Los cambios hechos desde otras ventanas ({@link LibraryEvents}) se aplican fila
+ * a fila con {@link #rowUpdated}, {@link #rowInserted} y {@link #rowDeleted}: se
+ * lee solo la fila afectada y las páginas cargadas se desplazan una posición, sin
+ * volver a contar ni a pedir el listado. Para cambios de los que no hay aviso,
+ * como una importación, {@link #reload} vuelve a leer las páginas cargadas y
+ * notifica solo las diferencias; {@link #refresh} lo descarta todo y se reserva
+ * para cambios de consulta u orden.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final System.Logger LOG = System.getLogger(PagedTableModel.class.getName());
+
+    public static final int PAGE_SIZE = 200;
+    public static final int MAX_PAGES = 10;
+
+    // Aproxima el orden de MySQL para el texto (utf8mb4_0900_ai_ci): sin distinguir mayúsculas ni acentos
+    private static final Collator TEXT_ORDER = Collator.getInstance(Locale.forLanguageTag("es"));
+
+    static {
+        TEXT_ORDER.setStrength(Collator.PRIMARY);
+    }
+
+    private transient PageQuery<T> query;
+    private final transient List<Column<T>> columns;
+    private final transient BackgroundLoader loader = new BackgroundLoader();
+
+    // Páginas cargadas, en orden de acceso para descartar la menos usada
+    private final transient Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    // Clave de la última fila de la página anterior a cada página conocida
+    private final transient Map<Integer, Key> pageStarts = new HashMap<>();
+    private final transient Set<Integer> pending = new HashSet<>();
+
+    private int rowCount;
+    private int sortColumn;
+    private boolean ascending = true;
+    private int generation;
+    // Cambia al insertar o quitar filas cargadas: las páginas pedidas antes ya no encajan
+    private int layout;
+    private transient Consumer<Exception> onError =
+            e -> LOG.log(Level.WARNING, "Error al cargar las filas de la tabla", e);
+
+    public PagedTableModel(PageQuery<T> query, List<Column<T>> columns) {
+        this.query = query;
+        this.columns = List.copyOf(columns);
+    }
+
+    // Manejador de errores de carga, invocado en el EDT
+    public void setOnError(Consumer<Exception> onError) {
+        this.onError = onError;
+    }
+
+    // Cambia la consulta del modelo (por ejemplo otro filtro) y recarga
+    public void setQuery(PageQuery<T> query) {
+        this.query = query;
+        refresh();
+    }
+
+    /**
+     * Descarta las páginas cargadas, vuelve a contar las filas y pide de nuevo las
+     * páginas visibles.
+     */
+    public void refresh() {
+        int current = ++generation;
+        loader.cancelAll();
+        pending.clear();
+        pages.clear();
+        pageStarts.clear();
+        PageQuery<T> counted = query;
+        read("Contar", counted, counted::count, Long::longValue, count -> {
+            if (current != generation) {
+                return;
+            }
+            rowCount = (int) Math.min(count, Integer.MAX_VALUE);
+            fireTableDataChanged();
+        }, this::failed);
+    }
+
+    /**
+     * Vuelve a leer las páginas cargadas y la cuenta sin descartar nada y notifica
+     * solo las filas que han cambiado, de modo que la tabla conserva la selección y
+     * la posición. Las páginas contiguas se leen juntas a partir de la clave con la
+     * que empiezan; las filas de delante que no están cargadas solo se cuentan.
+     */
+    public void reload() {
+        int current = generation;
+        int requestedLayout = layout;
+        Column<T> sort = columns.get(sortColumn);
+        boolean asc = ascending;
+        PageQuery<T> query = this.query;
+        List<Span> spans = spans();
+        read("Recargar", query, session -> {
+            // Todas las lecturas en la misma transacción para que cuadren entre sí
+            Transaction snapshot = session.beginTransaction();
+            try {
+                long total = query.countUncached(session);
+                List<Window<T>> windows = new ArrayList<>();
+                for (Span span : spans) {
+                    long before = span.start() == null ? 0
+                            : total - query.countAfter(session, sort.sortPath(), asc, span.start());
+                    windows.add(new Window<>(span, (int) before, query.pageUncached(session, sort.sortPath(), asc,
+                            span.start(), span.pageCount() * PAGE_SIZE)));
+                }
+                return new Reread<>(total, windows);
+            } finally {
+                snapshot.rollback();
+            }
+        }, reread -> reread.windows().stream().mapToLong(window -> window.rows().size()).sum(), reread -> {
+            if (current != generation) {
+                return;
+            }
+            if (requestedLayout != layout || !spans().equals(spans)) {
+                // Han cambiado las páginas cargadas mientras tanto: la lectura no corresponde
+                reload();
+                return;
+            }
+            apply(reread);
+        }, this::failed);
+    }
+
+    // Ordena en el servidor por la columna indicada; repetir la columna invierte el sentido
+    public void sortBy(int column) {
+        if (columns.get(column).sortPath() == null) {
+            return;
+        }
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        refresh();
+    }
+
+    // Cancela las cargas pendientes; se llama al cerrar la ventana
+    public void dispose() {
+        generation++;
+        loader.cancelAll();
+        pending.clear();
+    }
+
+    // Devuelve la fila indicada, o null si su página todavía no se ha cargado
+    public T getRow(int rowIndex) {
+        int page = rowIndex / PAGE_SIZE;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        int offset = rowIndex % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).name();
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row == null ? null : columns.get(columnIndex).display(row);
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    /**
+     * Hace que al pulsar la cabecera de la tabla se ordene en el servidor en lugar
+     * de en memoria.
+     */
+    public void installSortHeader(JTable table) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+    }
+
+    private void request(int page) {
+        if (page * PAGE_SIZE >= rowCount || !pending.add(page)) {
+            return;
+        }
+        int current = generation;
+        Column<T> sort = columns.get(sortColumn);
+        boolean asc = ascending;
+        Key start = page == 0 ? null : pageStarts.get(page);
+        int offset = page != 0 && start == null ? page * PAGE_SIZE : 0;
+        int requestedLayout = layout;
+        PageQuery<T> query = this.query;
+        Function<StatelessSession, List<T>> work = session -> query.page(session, sort.sortPath(), asc, start, offset,
+                PAGE_SIZE);
+        read("Cargar página", query, work, List::size, rows -> {
+            if (current != generation) {
+                return;
+            }
+            pending.remove(page);
+            if (requestedLayout != layout) {
+                // Se volverá a pedir al repintarse
+                int first = page * PAGE_SIZE;
+                fireTableRowsUpdated(first, Math.min(first + PAGE_SIZE, rowCount) - 1);
+                return;
+            }
+            pages.put(page, rows);
+            if (!rows.isEmpty()) {
+                T last = rows.get(rows.size() - 1);
+                pageStarts.put(page + 1, new Key(sort.value().apply(last), query.id().apply(last)));
+            }
+            int first = page * PAGE_SIZE;
+            fireTableRowsUpdated(first, Math.min(first + PAGE_SIZE, rowCount) - 1);
+        }, e -> {
+            pending.remove(page);
+            failed(e);
+        });
+    }
+
+    /**
+     * Vuelve a leer la fila indicada si está cargada: la sustituye, la mueve si ha
+     * cambiado de posición en el orden actual o la quita si ya no cumple el filtro.
+     * Las filas de páginas no cargadas se leerán ya actualizadas.
+     */
+    public void rowUpdated(Object id) {
+        if (locate(id) != null) {
+            reload(id, false);
+        }
+    }
+
+    // Vuelve a leer las filas cargadas que cumplen la condición, por ejemplo las de un libro editado
+    public void rowsUpdated(Predicate<T> affected) {
+        List<Object> ids = new ArrayList<>();
+        for (List<T> rows : pages.values()) {
+            for (T row : rows) {
+                if (affected.test(row)) {
+                    ids.add(query.id().apply(row));
+                }
+            }
+        }
+        ids.forEach(id -> reload(id, false));
+    }
+
+    // Añade la fila nueva en su posición si cumple el filtro de la consulta
+    public void rowInserted(Object id) {
+        reload(id, true);
+    }
+
+    /**
+     * Quita la fila borrada. Si no está cargada no se conoce su posición: se
+     * vuelve a contar y se olvidan las claves de las páginas no cargadas.
+     */
+    public void rowDeleted(Object id) {
+        int[] at = locate(id);
+        if (at != null) {
+            remove(at[0], at[1]);
+            return;
+        }
+        int current = generation;
+        PageQuery<T> counted = query;
+        read("Contar", counted, counted::countUncached, Long::longValue, count -> {
+            int total = (int) Math.min(count, Integer.MAX_VALUE);
+            if (current != generation || total == rowCount) {
+                return;
+            }
+            int old = rowCount;
+            rowCount = total;
+            pageStarts.keySet().removeIf(page -> page > 0 && !pages.containsKey(page - 1));
+            if (total < old) {
+                fireTableRowsDeleted(total, old - 1);
+            } else {
+                fireTableRowsInserted(old, total - 1);
+            }
+        }, this::failed);
+    }
+
+    private void reload(Object id, boolean inserted) {
+        int current = generation;
+        PageQuery<T> query = this.query;
+        read("Cargar fila", query, session -> query.find(session, id), row -> row == null ? 0 : 1, row -> {
+            if (current != generation) {
+                return;
+            }
+            int[] at = locate(id);
+            if (at != null) {
+                List<T> rows = pages.get(at[0]);
+                if (row != null && compare(key(rows.get(at[1])), key(row)) == 0) {
+                    List<T> updated = new ArrayList<>(rows);
+                    updated.set(at[1], row);
+                    pages.put(at[0], updated);
+                    int index = at[0] * PAGE_SIZE + at[1];
+                    fireTableRowsUpdated(index, index);
+                    return;
+                }
+                remove(at[0], at[1]);
+            } else if (!inserted) {
+                return;
+            }
+            if (row != null) {
+                insert(row);
+            }
+        }, this::failed);
+    }
+
+    // Lectura en segundo plano registrada como PersistenceEvent con la entidad de la consulta
+    private <R> void read(String operation, PageQuery<T> query, Function<StatelessSession, R> work,
+            ToLongFunction<? super R> rows, Consumer<R> onSuccess, Consumer<Exception> onError) {
+        loader.read(session -> PersistenceEvent.record(operation, query.entity(), () -> work.apply(session), rows),
+                onSuccess, onError);
+    }
+
+    // Página y posición de la fila cargada con el id indicado, o null
+    private int[] locate(Object id) {
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            List<T> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (Objects.equals(query.id().apply(rows.get(i)), id)) {
+                    return new int[] { entry.getKey(), i };
+                }
+            }
+        }
+        return null;
+    }
+
+    // Las páginas cargadas siguientes ceden su primera fila a la anterior
+    private void remove(int page, int index) {
+        List<T> rows = new ArrayList<>(pages.get(page));
+        rows.remove(index);
+        rowCount--;
+        layout++;
+        int last = page;
+        while (pages.containsKey(last + 1)) {
+            List<T> next = new ArrayList<>(pages.get(last + 1));
+            rows.add(next.remove(0));
+            pages.put(last, rows);
+            rows = next;
+            last++;
+        }
+        if (last * PAGE_SIZE + rows.size() >= rowCount) {
+            pages.put(last, rows);
+        } else {
+            // Le falta la primera fila de la página siguiente, que no está cargada
+            pages.remove(last);
+        }
+        restart(page, last);
+        int removed = page * PAGE_SIZE + index;
+        fireTableRowsDeleted(removed, removed);
+    }
+
+    private void insert(T row) {
+        Key key = key(row);
+        rowCount++;
+        layout++;
+        TreeMap<Integer, List<T>> loaded = new TreeMap<>(pages);
+        for (Map.Entry<Integer, List<T>> entry : loaded.entrySet()) {
+            int page = entry.getKey();
+            List<T> rows = entry.getValue();
+            if (rows.isEmpty() || compare(key, key(rows.get(rows.size() - 1))) > 0) {
+                continue;
+            }
+            int index = 0;
+            while (compare(key, key(rows.get(index))) > 0) {
+                index++;
+            }
+            Key start = pageStarts.get(page);
+            if (index == 0 && page > 0 && !loaded.containsKey(page - 1) && (start == null || compare(key, start) < 0)) {
+                // Va antes de esta página, en una zona no cargada: las siguientes se desplazan
+                pages.keySet().removeIf(p -> p >= page);
+                pageStarts.keySet().removeIf(p -> p >= page);
+                int first = page * PAGE_SIZE;
+                fireTableRowsInserted(first, first);
+                return;
+            }
+            insertAt(page, index, row);
+            return;
+        }
+        // Después de todas las filas cargadas
+        if (!loaded.isEmpty() && loaded.lastKey() * PAGE_SIZE + loaded.lastEntry().getValue().size() == rowCount - 1) {
+            insertAt(loaded.lastKey(), loaded.lastEntry().getValue().size(), row);
+            return;
+        }
+        int lastLoaded = loaded.isEmpty() ? -1 : loaded.lastKey();
+        pageStarts.keySet().removeIf(p -> p > lastLoaded + 1);
+        fireTableRowsInserted(rowCount - 1, rowCount - 1);
+    }
+
+    // La última fila de cada página cargada llena pasa a la siguiente
+    private void insertAt(int page, int index, T row) {
+        List<T> rows = new ArrayList<>(pages.get(page));
+        rows.add(index, row);
+        int last = page;
+        while (rows.size() > PAGE_SIZE && pages.containsKey(last + 1)) {
+            List<T> next = new ArrayList<>(pages.get(last + 1));
+            next.add(0, rows.remove(rows.size() - 1));
+            pages.put(last, rows);
+            rows = next;
+            last++;
+        }
+        if (rows.size() > PAGE_SIZE) {
+            rows.remove(rows.size() - 1);
+        }
+        pages.put(last, rows);
+        restart(page, last);
+        int inserted = page * PAGE_SIZE + index;
+        fireTableRowsInserted(inserted, inserted);
+    }
+
+    // Tramos de páginas cargadas contiguas, en orden, con la clave con la que empieza cada uno
+    private List<Span> spans() {
+        List<Span> spans = new ArrayList<>();
+        TreeMap<Integer, List<T>> loaded = new TreeMap<>(pages);
+        for (int page : loaded.keySet()) {
+            if (loaded.containsKey(page - 1)) {
+                continue;
+            }
+            int count = 1;
+            while (loaded.containsKey(page + count)) {
+                count++;
+            }
+            Key start = pageStarts.get(page);
+            if (page == 0 || start != null) {
+                spans.add(new Span(page, count, start));
+            }
+        }
+        return spans;
+    }
+
+    /*
+     * Compara cada tramo cargado con su nueva lectura. Las dos listas están en el
+     * mismo orden, así que basta recorrerlas a la vez: una fila con el mismo id se
+     * actualiza si ha cambiado, y si no la que va antes es una baja (la antigua) o
+     * un alta (la nueva). Las filas no cargadas entre tramos solo se cuentan. Se
+     * deja el modelo en su estado final y después se notifican los cambios en el
+     * orden en que se han ido calculando.
+     */
+    private void apply(Reread<T> reread) {
+        int total = (int) Math.min(reread.total(), Integer.MAX_VALUE);
+        RowChanges changes = new RowChanges();
+        Map<Integer, List<T>> fresh = new HashMap<>();
+        Map<Integer, Key> starts = new HashMap<>();
+        int done = 0;
+        for (Window<T> window : reread.windows()) {
+            Span span = window.span();
+            List<T> rows = window.rows();
+            List<T> old = new ArrayList<>();
+            for (int page = span.firstPage(); page < span.firstPage() + span.pageCount(); page++) {
+                old.addAll(pages.get(page));
+            }
+            int oldStart = span.firstPage() * PAGE_SIZE + changes.shift();
+            if (window.before() < done || window.before() + rows.size() > total) {
+                // Las lecturas no encajan (escrituras entre ellas sin aislamiento): se recarga todo
+                refresh();
+                return;
+            }
+            int gap = window.before() - oldStart;
+            if (gap > 0) {
+                changes.inserted(oldStart, gap);
+            } else if (gap < 0) {
+                changes.deleted(window.before(), -gap);
+            }
+            int index = window.before();
+            int i = 0;
+            for (T row : rows) {
+                while (i < old.size() && !Objects.equals(query.id().apply(old.get(i)), query.id().apply(row))
+                        && compare(key(old.get(i)), key(row)) < 0) {
+                    changes.deleted(index, 1);
+                    i++;
+                }
+                if (i < old.size() && Objects.equals(query.id().apply(old.get(i)), query.id().apply(row))) {
+                    if (!old.get(i).equals(row)) {
+                        changes.updated(index);
+                    }
+                    i++;
+                } else {
+                    changes.inserted(index, 1);
+                }
+                index++;
+            }
+            if (rows.size() < span.pageCount() * PAGE_SIZE && i < old.size()) {
+                // La lectura ha llegado al final: las filas antiguas que quedan ya no existen
+                changes.deleted(index, old.size() - i);
+            }
+            done = index;
+            pages(window, total, fresh, starts);
+        }
+        int count = rowCount + changes.shift();
+        if (total > count) {
+            changes.inserted(count, total - count);
+        } else if (total < count) {
+            changes.deleted(total, count - total);
+        }
+        pages.clear();
+        new TreeMap<>(fresh).forEach(pages::put);
+        pageStarts.clear();
+        pageStarts.putAll(starts);
+        pending.clear();
+        layout++;
+        rowCount = total;
+        changes.fire();
+    }
+
+    // Reparte las filas leídas de un tramo en las páginas completas que cubren
+    private void pages(Window<T> window, int total, Map<Integer, List<T>> fresh, Map<Integer, Key> starts) {
+        List<T> rows = window.rows();
+        int end = window.before() + rows.size();
+        for (int page = (window.before() + PAGE_SIZE - 1) / PAGE_SIZE; page * PAGE_SIZE < end; page++) {
+            int first = page * PAGE_SIZE - window.before();
+            int last = Math.min(first + PAGE_SIZE, rows.size());
+            if (last - first < PAGE_SIZE && end < total) {
+                break;
+            }
+            List<T> pageRows = List.copyOf(rows.subList(first, last));
+            fresh.put(page, pageRows);
+            if (page > 0) {
+                starts.put(page, first == 0 ? window.span().start() : key(rows.get(first - 1)));
+            }
+            starts.put(page + 1, key(pageRows.get(pageRows.size() - 1)));
+        }
+    }
+
+    // Recalcula las claves de inicio tras desplazar las páginas entre first y last
+    private void restart(int first, int last) {
+        for (int page = first; page <= last; page++) {
+            List<T> rows = pages.get(page);
+            if (rows != null && !rows.isEmpty()) {
+                pageStarts.put(page + 1, key(rows.get(rows.size() - 1)));
+            }
+        }
+        int shifted = pages.containsKey(last) ? last + 1 : last;
+        pageStarts.keySet().removeIf(page -> page > shifted);
+    }
+
+    private Key key(T row) {
+        return new Key(columns.get(sortColumn).value().apply(row), query.id().apply(row));
+    }
+
+    // Orden de las claves en el sentido actual, con los nulos como el menor valor
+    private int compare(Key a, Key b) {
+        int c = compareValues(a.sortValue(), b.sortValue());
+        if (c == 0) {
+            c = compareValues(a.id(), b.id());
+        }
+        return ascending ? c : -c;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? -1 : 1;
+        }
+        if (a instanceof String x && b instanceof String y) {
+            return TEXT_ORDER.compare(x, y);
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private void failed(Exception e) {
+        if (onError != null) {
+            onError.accept(e);
+        }
+    }
+
+    // Páginas cargadas contiguas y clave de la fila anterior a la primera (null si es la página 0)
+    private record Span(int firstPage, int pageCount, Key start) {
+    }
+
+    // Nueva lectura de un tramo: filas que van delante y filas leídas
+    private record Window<T>(Span span, int before, List<T> rows) {
+    }
+
+    private record Reread<T>(long total, List<Window<T>> windows) {
+    }
+
+    /**
+     * Cambios de filas en el orden en que se aplican, agrupados en rangos
+     * contiguos para notificar cada rango con un solo evento.
+     */
+    private final class RowChanges {
+        private static final int INSERTED = 0;
+        private static final int DELETED = 1;
+        private static final int UPDATED = 2;
+
+        // Tipo, primera y última fila de cada rango
+        private final List<int[]> ranges = new ArrayList<>();
+        // Filas añadidas menos quitadas hasta ahora
+        private int shift;
+
+        int shift() {
+            return shift;
+        }
+
+        void inserted(int first, int count) {
+            shift += count;
+            int[] previous = last(INSERTED);
+            if (previous != null && previous[2] + 1 == first) {
+                previous[2] += count;
+            } else {
+                ranges.add(new int[] { INSERTED, first, first + count - 1 });
+            }
+        }
+
+        void deleted(int first, int count) {
+            shift -= count;
+            int[] previous = last(DELETED);
+            if (previous != null && previous[1] == first) {
+                previous[2] += count;
+            } else {
+                ranges.add(new int[] { DELETED, first, first + count - 1 });
+            }
+        }
+
+        void updated(int row) {
+            int[] previous = last(UPDATED);
+            if (previous != null && previous[2] + 1 == row) {
+                previous[2] = row;
+            } else {
+                ranges.add(new int[] { UPDATED, row, row });
+            }
+        }
+
+        private int[] last(int type) {
+            int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            return last != null && last[0] == type ? last : null;
+        }
+
+        void fire() {
+            for (int[] range : ranges) {
+                switch (range[0]) {
+                    case INSERTED -> fireTableRowsInserted(range[1], range[2]);
+                    case DELETED -> fireTableRowsDeleted(range[1], range[2]);
+                    default -> fireTableRowsUpdated(range[1], range[2]);
+                }
+            }
+        }
+    }
+
+    // Posición de una fila en el orden actual: valor de la columna de ordenación e id
+    public record Key(Object sortValue, Object id) {
+    }
+
+    /**
+     * Columna de un {@link PagedTableModel}: nombre, expresión HQL por la que se
+     * ordena (null si no es ordenable), valor de la fila y su formato en pantalla.
+     */
+    public record Column<T>(String name, String sortPath, Function<T, ?> value, Function<Object, ?> format) {
+
+        public static <T> Column<T> of(String name, String sortPath, Function<T, ?> value) {
+            return new Column<>(name, sortPath, value, Function.identity());
+        }
+
+        public Column<T> displayedAs(Function<Object, ?> format) {
+            return new Column<>(name, sortPath, value, format);
+        }
+
+        Object display(T row) {
+            return format.apply(value.apply(row));
+        }
+    }
+
+    /**
+     * Consulta paginable de un {@link PagedTableModel}. {@code from} contiene la
+     * entidad raíz común a la cuenta y a las páginas; {@code joins} solo se añade a
+     * la consulta de páginas, que es la que necesita las asociaciones para su
+     * proyección y su ordenación.
+     */
+    public static class PageQuery<T> {
+        private final Class<T> type;
+        private final String select;
+        private final String from;
+        private final String joins;
+        private final String idPath;
+        private final Function<T, ?> id;
+        private String where;
+        private Map<String, Object> parameters = Collections.emptyMap();
+        private Set<String> cacheTags = Collections.emptySet();
+
+        public PageQuery(Class<T> type, String select, String from, String joins, String idPath, Function<T, ?> id) {
+            this.type = type;
+            this.select = select;
+            this.from = from;
+            this.joins = joins == null ? "" : " " + joins;
+            this.idPath = idPath;
+            this.id = id;
+        }
+
+        public PageQuery<T> where(String where, Map<String, Object> parameters) {
+            this.where = where;
+            this.parameters = Map.copyOf(parameters);
+            return this;
+        }
+
+        /**
+         * Sirve la cuenta y las páginas desde {@link QueryResultCache}. Las
+         * etiquetas son las tablas leídas, que se invalidan al modificarlas.
+         */
+        public PageQuery<T> cached(String... tags) {
+            this.cacheTags = Set.of(tags);
+            return this;
+        }
+
+        Function<T, ?> id() {
+            return id;
+        }
+
+        // Entidad raíz de la consulta, la de {@code from}
+        public String entity() {
+            return from.split("\\s+")[1];
+        }
+
+        /**
+         * Ejecuta la cuenta y la primera página en el orden por defecto (por id)
+         * para dejar preparadas las consultas, y su resultado si se cachea, antes de
+         * abrir la ventana.
+         */
+        public void prepare(SharedSessionContract session) {
+            count(session);
+            page(session, idPath, true, null, 0, PAGE_SIZE);
+        }
+
+        // La fila con el id indicado si cumple el filtro, sin pasar por la caché de resultados
+        public T find(SharedSessionContract session, Object rowId) {
+            String filter = (where == null ? "" : "(" + where + ") AND ") + idPath + " = :rowId";
+            Query<T> row = session.createQuery("SELECT " + select + " " + from + joins + " WHERE " + filter, type);
+            parameters.forEach(row::setParameter);
+            return row.setParameter("rowId", rowId).uniqueResult();
+        }
+
+        long countUncached(SharedSessionContract session) {
+            return runCount(session, "SELECT COUNT(*) " + from + (where == null ? "" : " WHERE " + where));
+        }
+
+        public long count(SharedSessionContract session) {
+            String hql = "SELECT COUNT(*) " + from + (where == null ? "" : " WHERE " + where);
+            if (!cacheTags.isEmpty()) {
+                return QueryResultCache.getInstance().get(session, cacheTags, hql, List.of(parameters),
+                        s -> runCount(s, hql));
+            }
+            return runCount(session, hql);
+        }
+
+        private long runCount(SharedSessionContract session, String hql) {
+            Query<Long> count = session.createQuery(hql, Long.class);
+            parameters.forEach(count::setParameter);
+            return count.getSingleResult();
+        }
+
+        /*
+         * Los nulos se tratan como el menor valor, que es como los ordena MySQL:
+         * primero en orden ascendente y últimos en descendente.
+         */
+        public List<T> page(SharedSessionContract session, String sortPath, boolean asc, Key start, int offset, int limit) {
+            String hql = pageHql(sortPath, asc, start);
+            Map<String, Object> arguments = arguments(sortPath, start);
+            if (!cacheTags.isEmpty()) {
+                return QueryResultCache.getInstance().get(session, cacheTags, hql, List.of(arguments, offset, limit),
+                        s -> runPage(s, hql, arguments, offset, limit));
+            }
+            return runPage(session, hql, arguments, offset, limit);
+        }
+
+        // Como page, sin pasar por la caché de resultados
+        List<T> pageUncached(SharedSessionContract session, String sortPath, boolean asc, Key start, int limit) {
+            return runPage(session, pageHql(sortPath, asc, start), arguments(sortPath, start), 0, limit);
+        }
+
+        // Filas que van después de la clave indicada en el orden indicado
+        long countAfter(SharedSessionContract session, String sortPath, boolean asc, Key start) {
+            Query<Long> count = session.createQuery(
+                    "SELECT COUNT(*) " + from + joins + " WHERE " + filter(sortPath, asc, start), Long.class);
+            arguments(sortPath, start).forEach(count::setParameter);
+            return count.getSingleResult();
+        }
+
+        private String pageHql(String sortPath, boolean asc, Key start) {
+            String dir = asc ? " ASC" : " DESC";
+            StringBuilder hql = new StringBuilder("SELECT ").append(select).append(' ').append(from).append(joins);
+            String filter = filter(sortPath, asc, start);
+            if (!filter.isEmpty()) {
+                hql.append(" WHERE ").append(filter);
+            }
+            hql.append(" ORDER BY ");
+            if (!sortPath.equals(idPath)) {
+                hql.append(sortPath).append(dir).append(", ");
+            }
+            return hql.append(idPath).append(dir).toString();
+        }
+
+        // Filtro de la consulta más la condición de ir después de la clave, si la hay
+        private String filter(String sortPath, boolean asc, Key start) {
+            String cmp = asc ? " > " : " < ";
+            StringBuilder filter = new StringBuilder(where == null ? "" : "(" + where + ")");
+            if (start != null) {
+                if (filter.length() > 0) {
+                    filter.append(" AND ");
+                }
+                if (sortPath.equals(idPath)) {
+                    filter.append(idPath).append(cmp).append(":lastId");
+                } else if (start.sortValue() == null) {
+                    filter.append(asc
+                            ? "((" + sortPath + " IS NULL AND " + idPath + " > :lastId) OR " + sortPath + " IS NOT NULL)"
+                            : "(" + sortPath + " IS NULL AND " + idPath + " < :lastId)");
+                } else {
+                    filter.append("(").append(sortPath).append(cmp).append(":lastSort OR (").append(sortPath)
+                            .append(" = :lastSort AND ").append(idPath).append(cmp).append(":lastId)")
+                            .append(asc ? ")" : " OR " + sortPath + " IS NULL)");
+                }
+            }
+            return filter.toString();
+        }
+
+        private Map<String, Object> arguments(String sortPath, Key start) {
+            Map<String, Object> arguments = new HashMap<>(parameters);
+            if (start != null) {
+                arguments.put("lastId", start.id());
+                if (!sortPath.equals(idPath) && start.sortValue() != null) {
+                    arguments.put("lastSort", start.sortValue());
+                }
+            }
+            return arguments;
+        }
+
+        private List<T> runPage(SharedSessionContract session, String hql, Map<String, Object> arguments, int offset, int limit) {
+            Query<T> page = session.createQuery(hql, type);
+            arguments.forEach(page::setParameter);
+            // Inmutable para poder compartirla desde la caché
+            return List.copyOf(page.setReadOnly(true).setFirstResult(offset).setMaxResults(limit).list());
+        }
+    }
+}
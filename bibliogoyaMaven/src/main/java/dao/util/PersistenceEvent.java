@@ -0,0 +1,107 @@
+package dao.util;
+
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Evento de Java Flight Recorder para cada operación de persistencia (cargar
+ * una página, reservar, devolver, añadir, editar o borrar). Además de la
+ * duración y el hilo, lleva la entidad, las filas afectadas y las sentencias SQL
+ * preparadas, de modo que en una grabación se ve qué estaba haciendo el
+ * bibliotecario durante una pausa.
+ *
+ * Las sentencias las cuenta {@link StatementCounter}, que Hibernate añade a cada
+ * sesión ({@code hibernate.session.events.auto} en hibernate.cfg.xml); solo se
+ * cuentan mientras hay una operación registrándose en el hilo. Sin grabación
+ * activa, {@link #record} solo ejecuta el trabajo.
+ */
+@Name("bibliogoya.Persistencia")
+@Label("Operación de persistencia")
+@Category({ "Bibliogoya", "Persistencia" })
+@Description("Operación de persistencia de la biblioteca, con sus filas y sentencias SQL")
+@StackTrace(false)
+public class PersistenceEvent extends Event {
+    // Sentencias preparadas por la operación en curso en el hilo, o null si no hay ninguna
+    private static final ThreadLocal<long[]> STATEMENTS = new ThreadLocal<>();
+
+    @Label("Operación")
+    String operation;
+
+    @Label("Entidad")
+    String entity;
+
+    @Label("Filas")
+    long rows;
+
+    @Label("Sentencias SQL")
+    long statements;
+
+    @Label("Correcta")
+    @Description("Falso si la operación terminó con una excepción")
+    boolean succeeded;
+
+    /**
+     * Ejecuta el trabajo y, si se está grabando, emite el evento con las filas
+     * que indica {@code rows} para su resultado. Las operaciones anidadas suman
+     * sus sentencias también a la que las contiene.
+     */
+    public static <T> T record(String operation, String entity, Supplier<T> work, ToLongFunction<? super T> rows) {
+        PersistenceEvent event = new PersistenceEvent();
+        if (!event.isEnabled()) {
+            return work.get();
+        }
+        long[] outer = STATEMENTS.get();
+        long[] counter = new long[1];
+        STATEMENTS.set(counter);
+        event.begin();
+        try {
+            T result = work.get();
+            event.rows = rows.applyAsLong(result);
+            event.succeeded = true;
+            return result;
+        } finally {
+            event.end();
+            STATEMENTS.set(outer);
+            if (outer != null) {
+                outer[0] += counter[0];
+            }
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.entity = entity;
+                event.statements = counter[0];
+                event.commit();
+            }
+        }
+    }
+
+    // Operación sin resultado que afecta a una fila
+    public static void record(String operation, String entity, Runnable work) {
+        record(operation, entity, () -> {
+            work.run();
+            return null;
+        }, result -> 1);
+    }
+
+    /**
+     * Cuenta las sentencias preparadas por cada sesión, con o sin estado, para la
+     * operación que se está registrando en el hilo.
+     */
+    public static class StatementCounter extends BaseSessionEventListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void jdbcPrepareStatementStart() {
+            long[] counter = STATEMENTS.get();
+            if (counter != null) {
+                counter[0]++;
+            }
+        }
+    }
+}
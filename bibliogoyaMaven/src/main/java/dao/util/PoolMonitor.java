@@ -0,0 +1,215 @@
+package dao.util;
+
+import java.lang.System.Logger.Level;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import com.mchange.v2.c3p0.PooledDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+/**
+ * Observación del pool de conexiones en tiempo de ejecución: histogramas del
+ * tiempo de espera al obtener una conexión y del tiempo que se retiene,
+ * conexiones activas e inactivas de c3p0 y las conexiones prestadas ahora mismo
+ * junto con la traza de quien las pidió.
+ *
+ * Una tarea periódica avisa en el log de cada conexión retenida más tiempo que
+ * el umbral de fuga (por ejemplo, mientras un {@code JOptionPane} modal sigue
+ * abierto con la sesión sin cerrar). La traza de quien pide cada conexión solo
+ * se captura mientras esa tarea está activa; con un umbral de 0 no hay aviso de
+ * fugas ni coste de trazas al obtener una conexión.
+ */
+public class PoolMonitor {
+    public static final long DEFAULT_LEAK_THRESHOLD_MS = 30_000;
+
+    private static final System.Logger LOG = System.getLogger(PoolMonitor.class.getName());
+    private static final PoolMonitor INSTANCE = new PoolMonitor();
+
+    private final LatencyHistogram checkoutWait = new LatencyHistogram();
+    private final LatencyHistogram leaseDuration = new LatencyHistogram();
+    private final LongAdder leaks = new LongAdder();
+    private final Map<Connection, Lease> leases = new ConcurrentHashMap<>();
+
+    private volatile ConnectionProvider provider;
+    private volatile long leakThresholdMillis = DEFAULT_LEAK_THRESHOLD_MS;
+    private ScheduledExecutorService scanner;
+    // Si se captura la traza de cada conexión prestada; solo con la tarea de fugas en marcha
+    private volatile boolean tracing;
+
+    public static PoolMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    synchronized void start(ConnectionProvider provider, long leakThresholdMillis) {
+        this.provider = provider;
+        this.leakThresholdMillis = leakThresholdMillis;
+        if (scanner == null && leakThresholdMillis > 0) {
+            scanner = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+                    .name("bibliogoya-pool-monitor").factory());
+            long period = Math.max(1_000, leakThresholdMillis / 2);
+            scanner.scheduleAtFixedRate(this::scanForLeaks, period, period, TimeUnit.MILLISECONDS);
+        }
+        tracing = scanner != null;
+    }
+
+    synchronized void stop() {
+        tracing = false;
+        if (scanner != null) {
+            scanner.shutdownNow();
+            scanner = null;
+        }
+        provider = null;
+    }
+
+    void checkedOut(Connection connection, long waitNanos) {
+        checkoutWait.record(waitNanos);
+        Thread thread = Thread.currentThread();
+        leases.put(connection, new Lease(System.nanoTime(), Instant.now(), thread.getName(),
+                tracing ? new Throwable() : null));
+    }
+
+    void checkedIn(Connection connection) {
+        Lease lease = leases.remove(connection);
+        if (lease != null) {
+            leaseDuration.record(System.nanoTime() - lease.startNanos());
+        }
+    }
+
+    public LatencyHistogram getCheckoutWait() {
+        return checkoutWait;
+    }
+
+    public LatencyHistogram getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    public long getLeakThresholdMillis() {
+        return leakThresholdMillis;
+    }
+
+    // Conexiones ocupadas según c3p0, o -1 si el pool no está disponible
+    public int getActiveConnections() {
+        PooledDataSource pool = pool();
+        try {
+            return pool == null ? -1 : pool.getNumBusyConnectionsDefaultUser();
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    // Conexiones libres según c3p0, o -1 si el pool no está disponible
+    public int getIdleConnections() {
+        PooledDataSource pool = pool();
+        try {
+            return pool == null ? -1 : pool.getNumIdleConnectionsDefaultUser();
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    // Hilos esperando una conexión según c3p0, o -1 si el pool no está disponible
+    public int getThreadsAwaitingCheckout() {
+        PooledDataSource pool = pool();
+        try {
+            return pool == null ? -1 : pool.getNumThreadsAwaitingCheckoutDefaultUser();
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    // Conexiones prestadas ahora mismo, de la más antigua a la más reciente
+    public List<LeaseInfo> getOpenLeases() {
+        long now = System.nanoTime();
+        return leases.values().stream()
+                .sorted(Comparator.comparingLong(Lease::startNanos))
+                .map(lease -> new LeaseInfo(lease.since(), lease.thread(),
+                        TimeUnit.NANOSECONDS.toMillis(now - lease.startNanos()),
+                        lease.origin() == null ? List.of() : List.of(lease.origin().getStackTrace())))
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        return "Pool: activas=" + getActiveConnections() + " inactivas=" + getIdleConnections() + " en espera="
+                + getThreadsAwaitingCheckout() + " fugas=" + getLeakCount() + "\n  espera: " + checkoutWait
+                + "\n  retención: " + leaseDuration;
+    }
+
+    private PooledDataSource pool() {
+        ConnectionProvider current = provider;
+        if (current == null || !current.isUnwrappableAs(DataSource.class)) {
+            return null;
+        }
+        return current.unwrap(DataSource.class) instanceof PooledDataSource pool ? pool : null;
+    }
+
+    private void scanForLeaks() {
+        long now = System.nanoTime();
+        long threshold = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        for (Lease lease : leases.values()) {
+            if (lease.origin() != null && !lease.reported && now - lease.startNanos() > threshold) {
+                lease.reported = true;
+                leaks.increment();
+                LOG.log(Level.WARNING, "Posible fuga de conexión: retenida por el hilo " + lease.thread() + " desde "
+                        + lease.since() + " (más de " + leakThresholdMillis + " ms). Obtenida en:\n"
+                        + format(lease.origin().getStackTrace()));
+            }
+        }
+    }
+
+    private static String format(StackTraceElement[] trace) {
+        return String.join("\n", Arrays.stream(trace).map(element -> "\tat " + element).toList());
+    }
+
+    /**
+     * Conexión prestada: cuándo, a qué hilo y desde dónde se pidió ({@code origin}
+     * vacío si no se estaban capturando trazas).
+     */
+    public record LeaseInfo(Instant since, String thread, long heldMillis, List<StackTraceElement> origin) {
+    }
+
+    private static final class Lease {
+        private final long startNanos;
+        private final Instant since;
+        private final String thread;
+        private final Throwable origin;
+        private volatile boolean reported;
+
+        private Lease(long startNanos, Instant since, String thread, Throwable origin) {
+            this.startNanos = startNanos;
+            this.since = since;
+            this.thread = thread;
+            this.origin = origin;
+        }
+
+        long startNanos() {
+            return startNanos;
+        }
+
+        Instant since() {
+            return since;
+        }
+
+        String thread() {
+            return thread;
+        }
+
+        Throwable origin() {
+            return origin;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package dao.util;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.Frame;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.WindowConstants;
+
+/**
+ * Diálogo de avance de un trabajo largo en segundo plano, con un botón para
+ * detenerlo. No es modal: la ventana de origen sigue respondiendo mientras tanto.
+ */
+public class ProgressDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    private final JLabel status = new JLabel(" ");
+    private final JProgressBar bar = new JProgressBar();
+    private final JButton cancelButton = new JButton("Detener");
+    private transient Runnable onCancel;
+
+    public ProgressDialog(Frame owner, String title, String message) {
+        super(owner, title, false);
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        panel.setBackground(Color.WHITE);
+        JLabel messageLabel = new JLabel(message);
+        messageLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        panel.add(messageLabel, BorderLayout.NORTH);
+
+        bar.setIndeterminate(true);
+        panel.add(bar, BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.setBackground(Color.WHITE);
+        status.setFont(new Font("Arial", Font.PLAIN, 12));
+        bottom.add(status, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.setBackground(Color.WHITE);
+        cancelButton.addActionListener(e -> {
+            cancelButton.setEnabled(false);
+            status.setText("Deteniendo...");
+            if (onCancel != null) {
+                onCancel.run();
+            }
+        });
+        buttons.add(cancelButton);
+        bottom.add(buttons, BorderLayout.EAST);
+        panel.add(bottom, BorderLayout.SOUTH);
+
+        add(panel);
+        setSize(420, 150);
+        setLocationRelativeTo(owner);
+    }
+
+    // Acción del botón Detener
+    public void setOnCancel(Runnable onCancel) {
+        this.onCancel = onCancel;
+    }
+
+    // Texto de avance bajo la barra
+    public void setStatus(String text) {
+        status.setText(text);
+    }
+
+    // Avance sobre un total conocido; mientras no se llama, la barra es indeterminada
+    public void setProgress(long done, long total) {
+        bar.setIndeterminate(false);
+        bar.setMaximum(1000);
+        bar.setValue(total <= 0 ? 1000 : (int) Math.min(1000, done * 1000 / total));
+    }
+}
@@ -0,0 +1,148 @@
+package dao.util;
+
+import java.lang.System.Logger.Level;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+
+/**
+ * Caché de resultados de consultas a nivel de aplicación con la política
+ * "stale-while-revalidate": una entrada antigua se sirve al momento y se
+ * refresca en segundo plano para la siguiente lectura.
+ *
+ * Cada entrada se etiqueta con las tablas que lee. Las operaciones que las
+ * modifican llaman a {@link #invalidate(String)} tras el commit, lo que descarta
+ * todas las entradas de esa tabla; así nunca se sirve un listado anterior a un
+ * cambio hecho desde esta aplicación, y la antigüedad solo cubre los cambios
+ * hechos desde otros puestos.
+ */
+public class QueryResultCache {
+    public static final String LIBROS = "libros";
+
+    private static final System.Logger LOG = System.getLogger(QueryResultCache.class.getName());
+
+    // Tiempo durante el que una entrada se considera fresca
+    private static final long FRESH_MILLIS = 30_000;
+    private static final int MAX_ENTRIES = 256;
+
+    private static final QueryResultCache INSTANCE = new QueryResultCache();
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    // Contador de invalidaciones por tabla; un resultado cargado antes de una invalidación se descarta
+    private final Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public static QueryResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Devuelve el resultado de la consulta identificada por {@code query} y
+     * {@code arguments}. Si no está en la caché se carga con la sesión recibida;
+     * si está pero ha dejado de ser fresca se devuelve igualmente y se recarga en
+     * segundo plano con una sesión propia.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(SharedSessionContract session, Set<String> tags, String query, List<Object> arguments,
+            Function<SharedSessionContract, R> loader) {
+        Key key = new Key(query, arguments);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            long stamp = stamp(tags);
+            R value = loader.apply(session);
+            store(key, tags, stamp, value);
+            return value;
+        }
+        hits.increment();
+        if (System.currentTimeMillis() - entry.loadedAt > FRESH_MILLIS && entry.refreshing.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("bibliogoya-cache-refresh").start(() -> refresh(key, entry, loader));
+        }
+        return (R) entry.value;
+    }
+
+    // Descarta todas las entradas que leen la tabla indicada
+    public void invalidate(String tag) {
+        epochs.computeIfAbsent(tag, t -> new AtomicLong()).incrementAndGet();
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.tags.contains(tag));
+        }
+    }
+
+    // Lecturas servidas desde la caché, incluidas las que se refrescan después
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void refresh(Key key, Entry entry, Function<SharedSessionContract, ?> loader) {
+        long stamp = stamp(entry.tags);
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            store(key, entry.tags, stamp, loader.apply(session));
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Error al refrescar la caché de consultas", e);
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void store(Key key, Set<String> tags, long stamp, Object value) {
+        synchronized (entries) {
+            if (stamp == stamp(tags)) {
+                entries.put(key, new Entry(tags, value));
+            }
+        }
+    }
+
+    private long stamp(Set<String> tags) {
+        long stamp = 0;
+        for (String tag : tags) {
+            AtomicLong epoch = epochs.get(tag);
+            stamp += epoch == null ? 0 : epoch.get();
+        }
+        return stamp;
+    }
+
+    private record Key(String query, List<Object> arguments) {
+    }
+
+    private static final class Entry {
+        private final Set<String> tags;
+        private final Object value;
+        private final long loadedAt = System.currentTimeMillis();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(Set<String> tags, Object value) {
+            this.tags = tags;
+            this.value = value;
+        }
+    }
+}
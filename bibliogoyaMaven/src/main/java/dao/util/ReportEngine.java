@@ -0,0 +1,169 @@
+package dao.util;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.Session;
+
+/**
+ * Generación de los informes de préstamos a partir de las tablas de resumen que
+ * mantiene {@link ReportRollups}. Ningún informe recorre la tabla de préstamos:
+ * los de evolución leen una fila por día del periodo y los de género, autor y
+ * usuarios una fila por grupo. El de disponibilidad agrupa la tabla de libros,
+ * cuyo tamaño no crece con el histórico.
+ *
+ * Se ejecuta en segundo plano con {@link BackgroundLoader#call}.
+ */
+public final class ReportEngine {
+    // Filas máximas de los informes de clasificación (autores y usuarios)
+    public static final int TOP = 100;
+
+    public enum Report {
+        PRESTAMOS_DIA("Préstamos por día", true),
+        PRESTAMOS_MES("Préstamos por mes", true),
+        PRESTAMOS_GENERO("Préstamos por género", false),
+        PRESTAMOS_AUTOR("Autores más prestados", false),
+        USUARIOS_ACTIVOS("Usuarios activos", true),
+        DISPONIBILIDAD("Disponibilidad por género", false);
+
+        private final String label;
+        private final boolean usesPeriod;
+
+        Report(String label, boolean usesPeriod) {
+            this.label = label;
+            this.usesPeriod = usesPeriod;
+        }
+
+        // Indica si el informe se limita al periodo elegido
+        public boolean usesPeriod() {
+            return usesPeriod;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Resultado de un informe: columnas, filas, una línea de resumen y el tiempo
+     * empleado en generarlo.
+     */
+    public record Result(List<String> columns, List<Object[]> rows, String summary, long millis) {
+    }
+
+    private ReportEngine() {
+    }
+
+    public static Result generate(Session session, Report report, LocalDate desde, LocalDate hasta) {
+        long start = System.nanoTime();
+        Date from = Date.valueOf(desde);
+        Date to = Date.valueOf(hasta);
+        return session.doReturningWork(connection -> {
+            List<String> columns;
+            List<Object[]> rows;
+            String summary;
+            switch (report) {
+                case PRESTAMOS_DIA -> {
+                    columns = List.of("Fecha", "Préstamos", "Devoluciones");
+                    rows = rows(connection.prepareStatement("SELECT fecha, prestamos, devoluciones "
+                            + "FROM resumen_prestamos_dia WHERE fecha BETWEEN ? AND ? ORDER BY fecha"), from, to);
+                    summary = totals(rows);
+                }
+                case PRESTAMOS_MES -> {
+                    columns = List.of("Año", "Mes", "Préstamos", "Devoluciones");
+                    rows = rows(connection.prepareStatement("SELECT YEAR(fecha), MONTH(fecha), SUM(prestamos), "
+                            + "SUM(devoluciones) FROM resumen_prestamos_dia WHERE fecha BETWEEN ? AND ? "
+                            + "GROUP BY YEAR(fecha), MONTH(fecha) ORDER BY 1, 2"), from, to);
+                    summary = totals(rows);
+                }
+                case PRESTAMOS_GENERO -> {
+                    columns = List.of("Género", "Préstamos", "Activos");
+                    rows = rows(connection.prepareStatement("SELECT genero, prestamos, activos "
+                            + "FROM resumen_prestamos_genero ORDER BY prestamos DESC, genero"));
+                    summary = String.format("%,d géneros, %,d préstamos activos", rows.size(), sum(rows, 2));
+                }
+                case PRESTAMOS_AUTOR -> {
+                    columns = List.of("Autor", "Préstamos", "Activos");
+                    rows = rows(connection.prepareStatement("SELECT autor, prestamos, activos "
+                            + "FROM resumen_prestamos_autor ORDER BY prestamos DESC, autor LIMIT " + TOP));
+                    summary = String.format("Los %,d autores con más préstamos", rows.size());
+                }
+                case USUARIOS_ACTIVOS -> {
+                    columns = List.of("ID", "Nombre", "Apellidos", "Préstamos activos", "Préstamos totales",
+                            "Último préstamo");
+                    String activos = " WHERE r.activos > 0 OR r.ultimo_prestamo BETWEEN ? AND ?";
+                    rows = rows(connection.prepareStatement("SELECT u.id, u.nombre, u.apellidos, r.activos, "
+                            + "r.prestamos, r.ultimo_prestamo FROM resumen_usuarios r "
+                            + "JOIN usuarios u ON u.id = r.usuarioID" + activos
+                            + " ORDER BY r.activos DESC, r.ultimo_prestamo DESC LIMIT " + TOP), from, to);
+                    long total = sum(rows(connection.prepareStatement("SELECT COUNT(*) FROM resumen_usuarios r"
+                            + activos), from, to), 0);
+                    summary = String.format("%,d usuarios con préstamos activos o en el periodo", total);
+                }
+                default -> {
+                    columns = List.of("Género", "Libros", "Disponibles", "% disponible");
+                    rows = rows(connection.prepareStatement("SELECT COALESCE(genero, ''), COUNT(*), "
+                            + "SUM(CASE WHEN disponibilidad THEN 1 ELSE 0 END) FROM libros "
+                            + "GROUP BY COALESCE(genero, '') ORDER BY 2 DESC"));
+                    for (int i = 0; i < rows.size(); i++) {
+                        Object[] row = rows.get(i);
+                        rows.set(i, new Object[] { row[0], row[1], row[2], ratio(row[2], row[1]) });
+                    }
+                    long libros = sum(rows, 1);
+                    long disponibles = sum(rows, 2);
+                    summary = String.format("%,d de %,d libros disponibles (%s)", disponibles, libros,
+                            ratio(disponibles, libros));
+                }
+            }
+            return new Result(columns, rows, summary, (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    // Ejecuta la sentencia con los parámetros indicados y la cierra
+    private static List<Object[]> rows(PreparedStatement statement, Object... parameters) throws SQLException {
+        try (statement) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columns = resultSet.getMetaData().getColumnCount();
+                List<Object[]> rows = new ArrayList<>();
+                while (resultSet.next()) {
+                    Object[] row = new Object[columns];
+                    for (int i = 0; i < columns; i++) {
+                        row[i] = resultSet.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+                return rows;
+            }
+        }
+    }
+
+    // Suma de préstamos y devoluciones de las dos últimas columnas
+    private static String totals(List<Object[]> rows) {
+        int width = rows.isEmpty() ? 0 : rows.get(0).length;
+        return String.format("Total del periodo: %,d préstamos, %,d devoluciones", sum(rows, width - 2),
+                sum(rows, width - 1));
+    }
+
+    private static long sum(List<Object[]> rows, int column) {
+        long total = 0;
+        for (Object[] row : rows) {
+            if (row[column] instanceof Number number) {
+                total += number.longValue();
+            }
+        }
+        return total;
+    }
+
+    private static String ratio(Object part, Object whole) {
+        long total = ((Number) whole).longValue();
+        return total == 0 ? "-" : String.format("%.1f %%", 100.0 * ((Number) part).longValue() / total);
+    }
+}
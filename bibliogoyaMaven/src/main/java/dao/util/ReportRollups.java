@@ -0,0 +1,153 @@
+package dao.util;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import org.hibernate.Session;
+import dao.entity.Libro;
+import dao.entity.Prestamo;
+
+/**
+ * Mantenimiento incremental de las tablas de resumen que leen los informes
+ * (migración V3). Cada método se llama dentro de la transacción del préstamo o de
+ * la devolución, antes del commit, así que el resumen se confirma o se deshace
+ * junto con el cambio que refleja.
+ *
+ * Las sentencias son upserts de una fila por tabla: el coste no depende del
+ * tamaño del histórico. Las filas más disputadas (la del día, después la del
+ * género) se tocan al final y los llamantes registran el cambio justo antes del
+ * commit, para que sus bloqueos se retengan el menor tiempo posible.
+ */
+public final class ReportRollups {
+    private static final String DIA = "INSERT INTO resumen_prestamos_dia (fecha, prestamos, devoluciones) "
+            + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE prestamos = prestamos + ?, devoluciones = devoluciones + ?";
+    private static final String GENERO_PRESTAMO = "INSERT INTO resumen_prestamos_genero (genero, prestamos, activos) "
+            + "VALUES (?, 1, 1) ON DUPLICATE KEY UPDATE prestamos = prestamos + 1, activos = activos + 1";
+    private static final String AUTOR_PRESTAMO = "INSERT INTO resumen_prestamos_autor (autor, prestamos, activos) "
+            + "VALUES (?, 1, 1) ON DUPLICATE KEY UPDATE prestamos = prestamos + 1, activos = activos + 1";
+    private static final String USUARIO_PRESTAMO = "INSERT INTO resumen_usuarios "
+            + "(usuarioID, prestamos, activos, ultimo_prestamo) VALUES (?, 1, 1, ?) ON DUPLICATE KEY UPDATE "
+            + "prestamos = prestamos + 1, activos = activos + 1, ultimo_prestamo = GREATEST(ultimo_prestamo, ?)";
+    private static final String GENERO_CIERRE =
+            "UPDATE resumen_prestamos_genero SET activos = activos - 1 WHERE genero = ? AND activos > 0";
+    private static final String AUTOR_CIERRE =
+            "UPDATE resumen_prestamos_autor SET activos = activos - 1 WHERE autor = ? AND activos > 0";
+    // Préstamos abiertos de un libro que cambia de autor o de género
+    private static final String GENERO_SALIDA =
+            "UPDATE resumen_prestamos_genero SET activos = GREATEST(activos - ?, 0) WHERE genero = ?";
+    private static final String AUTOR_SALIDA =
+            "UPDATE resumen_prestamos_autor SET activos = GREATEST(activos - ?, 0) WHERE autor = ?";
+    private static final String GENERO_ENTRADA = "INSERT INTO resumen_prestamos_genero (genero, prestamos, activos) "
+            + "VALUES (?, 0, ?) ON DUPLICATE KEY UPDATE activos = activos + ?";
+    private static final String AUTOR_ENTRADA = "INSERT INTO resumen_prestamos_autor (autor, prestamos, activos) "
+            + "VALUES (?, 0, ?) ON DUPLICATE KEY UPDATE activos = activos + ?";
+    private static final String USUARIO_CIERRE =
+            "UPDATE resumen_usuarios SET activos = activos - 1 WHERE usuarioID = ? AND activos > 0";
+
+    private ReportRollups() {
+    }
+
+    // Registra un préstamo nuevo; el préstamo debe tener libro, usuario y fecha
+    public static void recordLoan(Session session, Prestamo prestamo) {
+        Libro libro = prestamo.getLibro();
+        Date fecha = Date.valueOf(prestamo.getFechaPrestamo());
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(USUARIO_PRESTAMO)) {
+                statement.setLong(1, prestamo.getUsuario().getId());
+                statement.setDate(2, fecha);
+                statement.setDate(3, fecha);
+                statement.executeUpdate();
+            }
+            update(connection, AUTOR_PRESTAMO, key(libro.getAutor()));
+            update(connection, GENERO_PRESTAMO, key(libro.getGenero()));
+            day(connection, fecha, 1, 0);
+        });
+    }
+
+    // Registra la devolución de un préstamo en la fecha indicada
+    public static void recordReturn(Session session, Prestamo prestamo, LocalDate fecha) {
+        session.doWork(connection -> {
+            close(connection, prestamo);
+            day(connection, Date.valueOf(fecha), 0, 1);
+        });
+    }
+
+    /**
+     * Registra un préstamo eliminado sin devolución (por ejemplo, desde la gestión
+     * de reservas): deja de contar como activo pero no suma una devolución.
+     */
+    public static void recordRemoval(Session session, Prestamo prestamo) {
+        session.doWork(connection -> close(connection, prestamo));
+    }
+
+    /**
+     * Registra el cambio de autor o de género de un libro con {@code activos}
+     * préstamos abiertos: pasan del grupo anterior al nuevo, para que su cierre
+     * descuente del grupo en el que se cuentan. Los préstamos ya cerrados se
+     * quedan en el grupo con el que se hicieron.
+     */
+    public static void recordBookChange(Session session, String autorAnterior, String generoAnterior, Libro libro,
+            long activos) {
+        session.doWork(connection -> {
+            move(connection, AUTOR_SALIDA, AUTOR_ENTRADA, key(autorAnterior), key(libro.getAutor()), activos);
+            move(connection, GENERO_SALIDA, GENERO_ENTRADA, key(generoAnterior), key(libro.getGenero()), activos);
+        });
+    }
+
+    private static void close(Connection connection, Prestamo prestamo) throws SQLException {
+        if (prestamo.getUsuario() != null) {
+            try (PreparedStatement statement = connection.prepareStatement(USUARIO_CIERRE)) {
+                statement.setLong(1, prestamo.getUsuario().getId());
+                statement.executeUpdate();
+            }
+        }
+        Libro libro = prestamo.getLibro();
+        if (libro != null) {
+            update(connection, AUTOR_CIERRE, key(libro.getAutor()));
+            update(connection, GENERO_CIERRE, key(libro.getGenero()));
+        }
+    }
+
+    private static void day(Connection connection, Date fecha, int prestamos, int devoluciones) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(DIA)) {
+            statement.setDate(1, fecha);
+            statement.setInt(2, prestamos);
+            statement.setInt(3, devoluciones);
+            statement.setInt(4, prestamos);
+            statement.setInt(5, devoluciones);
+            statement.executeUpdate();
+        }
+    }
+
+    private static void move(Connection connection, String salida, String entrada, String from, String to,
+            long activos) throws SQLException {
+        if (activos == 0 || from.equals(to)) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(salida)) {
+            statement.setLong(1, activos);
+            statement.setString(2, from);
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(entrada)) {
+            statement.setString(1, to);
+            statement.setLong(2, activos);
+            statement.setLong(3, activos);
+            statement.executeUpdate();
+        }
+    }
+
+    private static void update(Connection connection, String sql, String key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, key);
+            statement.executeUpdate();
+        }
+    }
+
+    // Clave de agrupación: los valores nulos se agrupan bajo la cadena vacía, como en la migración
+    private static String key(String value) {
+        return value == null ? "" : value;
+    }
+}
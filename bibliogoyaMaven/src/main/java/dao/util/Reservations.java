@@ -0,0 +1,276 @@
+package dao.util;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.hibernate.LockMode;
+import org.hibernate.PessimisticLockException;
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import dao.entity.Libro;
+import dao.entity.Prestamo;
+import dao.entity.Reserva;
+import dao.entity.Usuario;
+import dao.repository.PrestamoRepository;
+import dao.repository.Repositories;
+import dao.repository.ReservaRepository;
+import dao.util.LibraryEvent.BookReserved;
+import dao.util.LibraryEvent.BookReturned;
+import dao.util.LibraryEvent.Loan;
+import dao.util.LibraryEvent.LoanRemoved;
+
+/**
+ * Reserva de libros sin condiciones de carrera entre puestos.
+ *
+ * El libro se toma con un único UPDATE condicionado a que siga disponible: la
+ * base de datos bloquea la fila y solo una de las transacciones que compiten por
+ * el mismo libro modifica una fila; las demás no modifican ninguna y responden
+ * que el libro no está disponible. El préstamo y la reserva se crean en la misma
+ * transacción, así que un libro nunca queda prestado dos veces.
+ *
+ * Si el libro está prestado, el usuario puede apuntarse a su lista de espera:
+ * una reserva en estado {@link Reserva.EstadoReserva#Pendiente}. Al devolver el
+ * libro, la misma transacción se lo presta a la reserva pendiente más antigua
+ * (orden de llegada por id) y la marca como completada; solo si no hay nadie
+ * esperando vuelve a estar disponible. Apuntarse y devolver bloquean antes la
+ * fila del libro, de modo que una devolución no puede adelantarse a una reserva
+ * a medio crear; la cabeza de la lista se lee con bloqueo para ver también las
+ * reservas confirmadas mientras se esperaba ese bloqueo. La cabeza de la lista y
+ * las reservas del usuario se buscan por los índices de la migración V4, sin
+ * recorrer la cola.
+ *
+ * Los conflictos de bloqueo (interbloqueos y esperas agotadas, sobre todo en las
+ * tablas de resumen) deshacen la transacción completa, que se reintenta hasta
+ * {@link #MAX_ATTEMPTS} veces con esperas crecientes y aleatorias.
+ */
+public final class Reservations {
+    public static final int MAX_ATTEMPTS = 4;
+
+    private static final long BASE_BACKOFF_MILLIS = 10;
+    private static final String TAKE = "UPDATE libros SET disponibilidad = FALSE WHERE id = ? AND disponibilidad = TRUE";
+
+    public enum Outcome {
+        RESERVADO, NO_DISPONIBLE, EN_ESPERA, YA_EN_ESPERA
+    }
+
+    public enum Devolucion {
+        DISPONIBLE, ENTREGADO, SIN_PRESTAMO
+    }
+
+    private Reservations() {
+    }
+
+    /**
+     * Presta el libro al cliente si sigue disponible. Lanza la última excepción si
+     * los conflictos persisten tras todos los intentos.
+     */
+    public static Outcome reserve(long libroId, long clienteId) {
+        Outcome outcome = withRetry(() -> attemptReserve(libroId, clienteId));
+        if (outcome == Outcome.RESERVADO) {
+            // El UPDATE por JDBC no pasa por la caché de segundo nivel
+            HibernateUtil.getSessionFactory().getCache().evictEntityData(Libro.class, libroId);
+            QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        }
+        return outcome;
+    }
+
+    /**
+     * Apunta al cliente a la lista de espera de un libro prestado. Si el libro ha
+     * quedado libre entre tanto, intenta reservarlo directamente.
+     */
+    public static Outcome enqueue(long libroId, long clienteId) {
+        Outcome outcome = withRetry(() -> attemptEnqueue(libroId, clienteId));
+        return outcome != null ? outcome : reserve(libroId, clienteId);
+    }
+
+    /**
+     * Devuelve el libro prestado al usuario y, en la misma transacción, se lo
+     * presta al primero de la lista de espera.
+     */
+    public static Devolucion giveBack(long libroId, long usuarioId) {
+        Devolucion devolucion = withRetry(() -> attemptGiveBack(libroId, usuarioId));
+        if (devolucion == Devolucion.DISPONIBLE) {
+            QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        }
+        return devolucion;
+    }
+
+    /**
+     * Elimina un préstamo sin devolución, como hace un administrador desde la
+     * gestión de reservas. El libro sigue el mismo camino que en una devolución
+     * (pasa al primero de la lista de espera o vuelve a estar disponible), pero
+     * en los resúmenes el préstamo se descuenta sin contar como devuelto.
+     */
+    public static Devolucion remove(long prestamoId) {
+        Devolucion devolucion = withRetry(() -> attemptRemove(prestamoId));
+        if (devolucion == Devolucion.DISPONIBLE) {
+            QueryResultCache.getInstance().invalidate(QueryResultCache.LIBROS);
+        }
+        return devolucion;
+    }
+
+    private static <T> T withRetry(Supplier<T> action) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS || !isConflict(e)) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private static Outcome attemptReserve(long libroId, long clienteId) {
+        return Repositories.write(session -> {
+            int taken = session.doReturningWork(connection -> {
+                try (PreparedStatement take = connection.prepareStatement(TAKE)) {
+                    take.setLong(1, libroId);
+                    return take.executeUpdate();
+                }
+            });
+            if (taken == 0) {
+                return Outcome.NO_DISPONIBLE;
+            }
+
+            Usuario usuario = session.get(Usuario.class, clienteId);
+            if (usuario == null) {
+                throw new IllegalArgumentException("Usuario no encontrado con ID: " + clienteId);
+            }
+            Libro libro = session.get(Libro.class, libroId);
+
+            Prestamo nuevoPrestamo = lend(session, libro, usuario);
+            session.persist(new Reserva(libro, usuario, new Date(), Reserva.EstadoReserva.Completada));
+            // Los resúmenes se actualizan al final: sus filas son las más disputadas
+            session.flush();
+
+            ReportRollups.recordLoan(session, nuevoPrestamo);
+            LibraryEvents.afterCommit(session, new BookReserved(libroId, clienteId, nuevoPrestamo.getId()));
+            return Outcome.RESERVADO;
+        });
+    }
+
+    // Devuelve null si el libro está disponible y puede reservarse directamente
+    private static Outcome attemptEnqueue(long libroId, long clienteId) {
+        return Repositories.write(session -> {
+            Libro libro = session.get(Libro.class, libroId, LockMode.PESSIMISTIC_WRITE);
+            if (libro == null) {
+                throw new IllegalArgumentException("Libro no encontrado con ID: " + libroId);
+            }
+            if (libro.isDisponibilidad()) {
+                return null;
+            }
+            Usuario usuario = session.get(Usuario.class, clienteId);
+            if (usuario == null) {
+                throw new IllegalArgumentException("Usuario no encontrado con ID: " + clienteId);
+            }
+            // Quien ya lo tiene prestado o ya espera no vuelve a la cola
+            if (PrestamoRepository.count(session, libroId, clienteId)
+                    + ReservaRepository.countWaiting(session, libroId, clienteId) > 0) {
+                return Outcome.YA_EN_ESPERA;
+            }
+
+            session.persist(new Reserva(libro, usuario, new Date(), Reserva.EstadoReserva.Pendiente));
+            return Outcome.EN_ESPERA;
+        });
+    }
+
+    private static Devolucion attemptGiveBack(long libroId, long usuarioId) {
+        return Repositories.write(session -> {
+            Prestamo prestamo = PrestamoRepository.find(session, libroId, usuarioId);
+            if (prestamo == null) {
+                return Devolucion.SIN_PRESTAMO;
+            }
+            Libro libro = prestamo.getLibro();
+            session.lock(libro, LockMode.PESSIMISTIC_WRITE);
+            session.remove(prestamo);
+            Prestamo entregado = release(session, libro);
+            session.flush();
+
+            ReportRollups.recordReturn(session, prestamo, LocalDate.now());
+            if (entregado != null) {
+                ReportRollups.recordLoan(session, entregado);
+            }
+            Loan siguientePrestamo = entregado == null ? null
+                    : new Loan(entregado.getId(), entregado.getUsuario().getId());
+            LibraryEvents.afterCommit(session, new BookReturned(libroId, usuarioId, prestamo.getId(), siguientePrestamo));
+            return entregado != null ? Devolucion.ENTREGADO : Devolucion.DISPONIBLE;
+        });
+    }
+
+    private static Devolucion attemptRemove(long prestamoId) {
+        return Repositories.write(session -> {
+            Prestamo prestamo = PrestamoRepository.find(session, prestamoId);
+            if (prestamo == null) {
+                return Devolucion.SIN_PRESTAMO;
+            }
+            Libro libro = prestamo.getLibro();
+            session.lock(libro, LockMode.PESSIMISTIC_WRITE);
+            session.remove(prestamo);
+            Prestamo entregado = release(session, libro);
+            session.flush();
+
+            ReportRollups.recordRemoval(session, prestamo);
+            LibraryEvents.afterCommit(session,
+                    new LoanRemoved(prestamoId, libro.getId(), prestamo.getUsuario().getId()));
+            if (entregado != null) {
+                ReportRollups.recordLoan(session, entregado);
+                LibraryEvents.afterCommit(session,
+                        new BookReserved(libro.getId(), entregado.getUsuario().getId(), entregado.getId()));
+            }
+            return entregado != null ? Devolucion.ENTREGADO : Devolucion.DISPONIBLE;
+        });
+    }
+
+    /*
+     * Libera un libro bloqueado cuyo préstamo se acaba de cerrar: se lo presta al
+     * primero de la lista de espera y marca su reserva como completada, o lo deja
+     * disponible si no espera nadie. Devuelve el préstamo nuevo o null.
+     */
+    private static Prestamo release(Session session, Libro libro) {
+        Reserva siguiente = ReservaRepository.head(session, libro.getId());
+        if (siguiente == null) {
+            libro.setDisponibilidad(true);
+            return null;
+        }
+        // El libro pasa sin quedar disponible al primero de la lista
+        siguiente.setEstado(Reserva.EstadoReserva.Completada);
+        return lend(session, libro, siguiente.getUsuario());
+    }
+
+    private static Prestamo lend(Session session, Libro libro, Usuario usuario) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setUsuario(usuario);
+        prestamo.setLibro(libro);
+        prestamo.setFechaPrestamo(LocalDate.now());
+        prestamo.setFechaDevolucion(LocalDate.now().plusMonths(1));
+        session.persist(prestamo);
+        return prestamo;
+    }
+
+    // Interbloqueo, espera de bloqueo agotada o fila modificada por otra transacción
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LockAcquisitionException || cause instanceof PessimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Espera exponencial con variación aleatoria para que los reintentos no vuelvan a coincidir
+    private static void backoff(int attempt) {
+        long limit = BASE_BACKOFF_MILLIS << (attempt - 1);
+        try {
+            Thread.sleep(limit / 2 + ThreadLocalRandom.current().nextLong(limit / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reserva interrumpida", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dao.util;
+
+import java.util.function.Consumer;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Caja de búsqueda mientras se escribe. Cada pulsación solo reinicia un
+ * temporizador; la búsqueda se lanza cuando se deja de escribir durante
+ * {@value #DELAY_MS} ms, o en el momento al pulsar Intro, con el texto de la caja.
+ * Así una palabra tecleada deprisa lanza una sola búsqueda y el EDT no hace nada
+ * costoso por pulsación.
+ */
+public class SearchField extends JTextField {
+    private static final long serialVersionUID = 1L;
+    public static final int DELAY_MS = 250;
+
+    private final transient Consumer<String> search;
+    private final Timer timer;
+
+    public SearchField(Consumer<String> search) {
+        this.search = search;
+        timer = new Timer(DELAY_MS, e -> searchNow());
+        timer.setRepeats(false);
+        getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Cambios de atributos, no de texto
+            }
+        });
+        addActionListener(e -> searchNow());
+    }
+
+    // Lanza la búsqueda pendiente sin esperar
+    public void searchNow() {
+        timer.stop();
+        search.accept(getText());
+    }
+}
@@ -0,0 +1,232 @@
+package dao.util;
+
+import java.lang.System.Logger.Level;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.hibernate.StatelessSession;
+
+/**
+ * Índice invertido en memoria sobre varios campos de texto de una tabla. Permite
+ * buscar por fragmentos de palabras sin lanzar un {@code LIKE '%...%'} ni
+ * recorrer las filas al teclear: las claves normalizadas de cada fila se
+ * calculan una sola vez, al indexarla.
+ *
+ * Los textos se normalizan a minúsculas y sin tildes, se descartan las palabras
+ * vacías más comunes del castellano y cada palabra buscada se compara como
+ * prefijo contra el diccionario ordenado de términos. Todas las palabras de la
+ * búsqueda deben aparecer en la fila; el resultado se ordena por relevancia
+ * según el peso de cada campo.
+ *
+ * El índice se construye en segundo plano al crearse ({@link #start}) y después
+ * se mantiene al día llamando a {@link #put} y {@link #remove} tras cada commit.
+ */
+public abstract class SearchIndex {
+    private static final System.Logger LOG = System.getLogger(SearchIndex.class.getName());
+    // Bonificación cuando la palabra buscada coincide con el término completo
+    private static final int EXACT_BONUS = 1;
+    // Mayor puntuación primero y, a igualdad, menor id
+    private static final Comparator<Map.Entry<Long, Integer>> RELEVANCE = Map.Entry.<Long, Integer>comparingByValue()
+            .reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Set<String> STOP_WORDS = Set.of("a", "al", "con", "de", "del", "e", "el", "en", "la", "las",
+            "lo", "los", "o", "para", "por", "su", "sus", "u", "un", "una", "unas", "unos", "y");
+
+    private final String name;
+    // Peso de cada campo, en el orden en que se pasan a put
+    private final int[] weights;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // término -> (id -> peso)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // id -> términos indexados, para poder retirarlos al editar o borrar
+    private final Map<Long, Set<String>> terms = new HashMap<>();
+    // Filas modificadas mientras se construye el índice, que la carga inicial no debe pisar
+    private Set<Long> touched = new HashSet<>();
+    private volatile boolean ready;
+
+    protected SearchIndex(String name, int... weights) {
+        this.name = name;
+        this.weights = weights.clone();
+    }
+
+    // Lanza la carga inicial; la llama la subclase al terminar de construirse
+    protected final void start() {
+        Thread.ofVirtual().name("bibliogoya-search-" + name).start(this::build);
+    }
+
+    /**
+     * Filas de la carga inicial: el id seguido de los campos indexados, en el
+     * orden de los pesos. Se leen solo las columnas necesarias.
+     */
+    protected abstract Stream<Object[]> rows(StatelessSession session);
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Devuelve los ids de las filas que contienen todas las palabras de la
+     * búsqueda, de mayor a menor relevancia y como mucho {@code limit}.
+     */
+    public List<Long> search(String text, int limit) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String word : words) {
+                Map<Long, Integer> matches = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Integer>> term : postings
+                        .subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+                    int bonus = term.getKey().equals(word) ? EXACT_BONUS : 0;
+                    term.getValue().forEach((id, weight) -> matches.merge(id, weight + bonus, Math::max));
+                }
+                if (scores == null) {
+                    scores = matches;
+                } else {
+                    Map<Long, Integer> previous = scores;
+                    matches.keySet().retainAll(previous.keySet());
+                    matches.replaceAll((id, score) -> score + previous.get(id));
+                    scores = matches;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            // Los mejores sin ordenar todas las coincidencias: un prefijo corto encaja con casi toda la tabla
+            PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(RELEVANCE.reversed());
+            for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+                best.offer(score);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            return best.stream().sorted(RELEVANCE).map(Map.Entry::getKey).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Indexa o reindexa una fila; se llama tras confirmar su alta o edición
+    public void put(Long id, String... fields) {
+        lock.writeLock().lock();
+        try {
+            if (touched != null) {
+                touched.add(id);
+            }
+            unindex(id);
+            index(id, fields);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Retira una fila del índice; se llama tras confirmar su borrado
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (touched != null) {
+                touched.add(id);
+            }
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Pasa el texto a minúsculas, quita las tildes y la diéresis (la ñ se
+     * convierte en n) y lo parte en palabras descartando las vacías.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD))
+                .replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private void index(Long id, String[] fields) {
+        Map<String, Integer> fieldWeights = new HashMap<>();
+        for (int i = 0; i < weights.length && i < fields.length; i++) {
+            for (String term : tokenize(fields[i])) {
+                fieldWeights.merge(term, weights[i], Math::max);
+            }
+        }
+        fieldWeights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+        if (!fieldWeights.isEmpty()) {
+            terms.put(id, fieldWeights.keySet());
+        }
+    }
+
+    private void unindex(Long id) {
+        Set<String> previous = terms.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // Carga inicial de la tabla completa
+    private void build() {
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession();
+                Stream<Object[]> rows = rows(session)) {
+            rows.forEach(row -> {
+                Long id = (Long) row[0];
+                String[] fields = new String[row.length - 1];
+                for (int i = 1; i < row.length; i++) {
+                    fields[i - 1] = (String) row[i];
+                }
+                lock.writeLock().lock();
+                try {
+                    if (!touched.contains(id)) {
+                        index(id, fields);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            ready = true;
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Error al construir el índice de búsqueda de " + name, e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
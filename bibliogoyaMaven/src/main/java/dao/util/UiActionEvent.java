@@ -0,0 +1,52 @@
+package dao.util;
+
+import java.awt.Component;
+import java.awt.event.ActionListener;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Java Flight Recorder para cada acción de un botón de las ventanas.
+ * Su duración es el tiempo que la acción ocupa el EDT; las operaciones de
+ * persistencia que lanza aparecen como {@link PersistenceEvent} en el mismo hilo
+ * o, si se hacen en segundo plano, en el hilo del cargador.
+ */
+@Name("bibliogoya.AccionUI")
+@Label("Acción de la interfaz")
+@Category({ "Bibliogoya", "Interfaz" })
+@Description("Acción de un botón de una ventana de la biblioteca")
+@StackTrace(false)
+public class UiActionEvent extends Event {
+
+    @Label("Ventana")
+    String window;
+
+    @Label("Acción")
+    String action;
+
+    // Listener que ejecuta la acción del botón y la registra si se está grabando
+    public static ActionListener listener(Component window, String action, Runnable work) {
+        return e -> {
+            UiActionEvent event = new UiActionEvent();
+            if (!event.isEnabled()) {
+                work.run();
+                return;
+            }
+            event.begin();
+            try {
+                work.run();
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.window = window.getClass().getSimpleName();
+                    event.action = action;
+                    event.commit();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package dao.util;
+
+import java.util.stream.Stream;
+import org.hibernate.StatelessSession;
+import dao.entity.Usuario;
+import dao.repository.Repositories;
+
+/**
+ * Índice de búsqueda ({@link SearchIndex}) sobre el nombre, los apellidos, el
+ * DNI, el email y el teléfono de los usuarios, pesando más el nombre y los
+ * apellidos.
+ *
+ * Como el de libros, se construye en segundo plano la primera vez que se usa y
+ * se mantiene al día con {@link #put} y {@link #remove} tras cada commit.
+ */
+public class UserSearchIndex extends SearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DNI_WEIGHT = 2;
+    private static final int CONTACT_WEIGHT = 1;
+
+    private static final UserSearchIndex INSTANCE = new UserSearchIndex();
+
+    private UserSearchIndex() {
+        super("usuarios", NAME_WEIGHT, NAME_WEIGHT, DNI_WEIGHT, CONTACT_WEIGHT, CONTACT_WEIGHT);
+        start();
+    }
+
+    public static UserSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Indexa o reindexa un usuario; se llama tras confirmar su alta o edición
+    public void put(Usuario usuario) {
+        put(usuario.getId(), usuario.getNombre(), usuario.getApellidos(), usuario.getDni(), usuario.getEmail(),
+                usuario.getTelefono());
+    }
+
+    // Solo las columnas indexadas
+    @Override
+    protected Stream<Object[]> rows(StatelessSession session) {
+        return session.createQuery("SELECT u.id, u.nombre, u.apellidos, u.dni, u.email, u.telefono FROM Usuario u",
+                Object[].class)
+                .setFetchSize(Repositories.FETCH_SIZE)
+                .stream();
+    }
+}
@@ -0,0 +1,45 @@
+-- Esquema inicial, equivalente al que generaba hibernate.hbm2ddl.auto=update.
+-- Las bases de datos ya existentes se marcan directamente en esta versión (baseline).
+
+CREATE TABLE libros (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    titulo VARCHAR(255),
+    autor VARCHAR(255),
+    genero VARCHAR(255),
+    fechapublicacion DATE,
+    disponibilidad BIT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255),
+    apellidos VARCHAR(255),
+    email VARCHAR(255),
+    rol VARCHAR(255),
+    dni VARCHAR(255),
+    telefono VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE prestamos (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    libroID BIGINT,
+    usuarioID BIGINT,
+    fechaprestamo DATE,
+    fechadevolucion DATE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_prestamos_libro FOREIGN KEY (libroID) REFERENCES libros (id),
+    CONSTRAINT fk_prestamos_usuario FOREIGN KEY (usuarioID) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE reservas (
+    id INT NOT NULL AUTO_INCREMENT,
+    LibroID BIGINT,
+    UsuarioID BIGINT,
+    FechaReserva DATE,
+    Estado ENUM('Pendiente', 'Completada', 'Cancelada'),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservas_libro FOREIGN KEY (LibroID) REFERENCES libros (id),
+    CONSTRAINT fk_reservas_usuario FOREIGN KEY (UsuarioID) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,14 @@
+-- Progreso de las importaciones masivas de libros desde CSV. Cada bloque de libros
+-- se confirma en la misma transacción que su avance, lo que permite reanudar una
+-- importación interrumpida sin duplicar ni perder filas.
+
+CREATE TABLE importaciones (
+    fichero VARCHAR(255) NOT NULL,
+    tamano BIGINT NOT NULL,
+    registros BIGINT NOT NULL,
+    importados BIGINT NOT NULL,
+    rechazados BIGINT NOT NULL,
+    completada BIT NOT NULL,
+    actualizada TIMESTAMP NOT NULL,
+    PRIMARY KEY (fichero, tamano)
+) ENGINE = InnoDB;
@@ -0,0 +1,62 @@
+-- Tablas de resumen para los informes. Se actualizan en la misma transacción que
+-- cada préstamo y cada devolución, de modo que los informes las leen directamente
+-- sin recorrer la tabla de préstamos.
+--
+-- Los préstamos devueltos se eliminan de prestamos, así que las devoluciones
+-- anteriores a esta versión no se pueden reconstruir: los resúmenes parten de los
+-- préstamos que siguen abiertos.
+
+CREATE TABLE resumen_prestamos_dia (
+    fecha DATE NOT NULL,
+    prestamos BIGINT NOT NULL,
+    devoluciones BIGINT NOT NULL,
+    PRIMARY KEY (fecha)
+) ENGINE = InnoDB;
+
+-- Los libros sin género o sin autor se agrupan bajo la cadena vacía
+CREATE TABLE resumen_prestamos_genero (
+    genero VARCHAR(255) NOT NULL,
+    prestamos BIGINT NOT NULL,
+    activos BIGINT NOT NULL,
+    PRIMARY KEY (genero)
+) ENGINE = InnoDB;
+
+CREATE TABLE resumen_prestamos_autor (
+    autor VARCHAR(255) NOT NULL,
+    prestamos BIGINT NOT NULL,
+    activos BIGINT NOT NULL,
+    PRIMARY KEY (autor)
+) ENGINE = InnoDB;
+
+CREATE TABLE resumen_usuarios (
+    usuarioID BIGINT NOT NULL,
+    prestamos BIGINT NOT NULL,
+    activos BIGINT NOT NULL,
+    ultimo_prestamo DATE,
+    PRIMARY KEY (usuarioID),
+    CONSTRAINT fk_resumen_usuarios_usuario FOREIGN KEY (usuarioID) REFERENCES usuarios (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+INSERT INTO resumen_prestamos_dia (fecha, prestamos, devoluciones)
+SELECT fechaprestamo, COUNT(*), 0
+FROM prestamos
+WHERE fechaprestamo IS NOT NULL
+GROUP BY fechaprestamo;
+
+INSERT INTO resumen_prestamos_genero (genero, prestamos, activos)
+SELECT COALESCE(l.genero, ''), COUNT(*), COUNT(*)
+FROM prestamos p
+JOIN libros l ON l.id = p.libroID
+GROUP BY COALESCE(l.genero, '');
+
+INSERT INTO resumen_prestamos_autor (autor, prestamos, activos)
+SELECT COALESCE(l.autor, ''), COUNT(*), COUNT(*)
+FROM prestamos p
+JOIN libros l ON l.id = p.libroID
+GROUP BY COALESCE(l.autor, '');
+
+INSERT INTO resumen_usuarios (usuarioID, prestamos, activos, ultimo_prestamo)
+SELECT usuarioID, COUNT(*), COUNT(*), MAX(fechaprestamo)
+FROM prestamos
+WHERE usuarioID IS NOT NULL
+GROUP BY usuarioID;
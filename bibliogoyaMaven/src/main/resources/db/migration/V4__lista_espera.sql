@@ -0,0 +1,15 @@
+-- Lista de espera por libro. Una reserva Pendiente es ahora un puesto en la cola
+-- del libro y la reserva que acompaña a un préstamo se crea ya Completada.
+-- Las reservas anteriores se crearon siempre junto a su préstamo (o a mano desde la
+-- gestión de reservas), así que ninguna espera turno: se marcan como completadas
+-- para que la primera devolución no se las entregue a nadie.
+
+UPDATE reservas SET Estado = 'Completada' WHERE Estado = 'Pendiente';
+
+-- La cabeza de la cola (menor id pendiente del libro) se encuentra con una búsqueda
+-- en el índice, sin recorrer las reservas del libro.
+CREATE INDEX idx_reservas_cola ON reservas (LibroID, Estado, id);
+
+-- Comprobación de que el usuario no espera ya el mismo libro; sustituye al índice
+-- que MySQL crea para la clave ajena del usuario.
+CREATE INDEX idx_reservas_usuario ON reservas (UsuarioID, LibroID, Estado);
@@ -0,0 +1,13 @@
+-- Índices de las búsquedas que hacen las ventanas, declarados también en las
+-- entidades. QueryPlanCheck (módulo de benchmarks) comprueba que ninguna consulta
+-- con filtro de la aplicación recorre una tabla entera.
+
+-- Préstamos de un usuario (UserBorrowedBooks) y préstamo de un libro a un usuario
+-- (devolución, lista de espera); sustituye al índice de la clave ajena del usuario.
+CREATE INDEX idx_prestamos_usuario_libro ON prestamos (usuarioID, libroID);
+
+-- Listado de libros disponibles o no disponibles (BookManagementFrame), paginado por id.
+CREATE INDEX idx_libros_disponibilidad ON libros (disponibilidad, id);
+
+-- Inicio de sesión (LoginFrame).
+CREATE INDEX idx_usuarios_nombre_apellidos ON usuarios (nombre, apellidos);
@@ -0,0 +1,35 @@
+-- Credenciales de acceso, separadas de los datos personales. El nombre de acceso es
+-- único e indexado y la contraseña se guarda como hash PBKDF2 con sal propia.
+--
+-- Hasta ahora se entraba con el nombre como usuario y los apellidos como contraseña.
+-- Calcular aquí los hashes de todos los usuarios llevaría horas, así que las filas
+-- migradas quedan sin hash: el primer inicio de sesión comprueba la contraseña
+-- antigua y guarda su hash (dao.util.Credentials).
+--
+-- Si varios usuarios comparten nombre, el de menor id conserva el nombre como acceso
+-- y los demás entran con nombre.id.
+
+CREATE TABLE credenciales (
+    usuarioID BIGINT NOT NULL,
+    login VARCHAR(255) NOT NULL,
+    sal VARBINARY(16),
+    hash VARBINARY(32),
+    iteraciones INT,
+    PRIMARY KEY (usuarioID),
+    CONSTRAINT uk_credenciales_login UNIQUE (login),
+    CONSTRAINT fk_credenciales_usuario FOREIGN KEY (usuarioID) REFERENCES usuarios (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+INSERT INTO credenciales (usuarioID, login)
+SELECT u.id,
+       CASE WHEN u.nombre IS NOT NULL
+                 AND u.id = (SELECT MIN(o.id) FROM usuarios o WHERE o.nombre = u.nombre)
+            THEN u.nombre
+            ELSE CONCAT(COALESCE(u.nombre, 'usuario'), '.', u.id)
+       END
+FROM usuarios u;
+
+-- El inicio de sesión ya busca por credenciales.login: el índice de V5 sobre el nombre
+-- y los apellidos solo servía a la consulta antigua. Se borra después de la carga
+-- anterior, que sí lo usa para buscar el menor id de cada nombre.
+DROP INDEX idx_usuarios_nombre_apellidos ON usuarios;
@@ -0,0 +1,11 @@
+-- Préstamos vencidos y multas (dao.util.OverdueLoans). Una revisión periódica marca
+-- como vencidos los préstamos cuya fecha de devolución ha pasado y calcula su multa
+-- por días de retraso; fechamulta es el día del último cálculo, de modo que una
+-- revisión interrumpida o varias a la vez no repiten el trabajo hecho ese día.
+ALTER TABLE prestamos ADD COLUMN vencido BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE prestamos ADD COLUMN multa DECIMAL(10, 2) NOT NULL DEFAULT 0;
+ALTER TABLE prestamos ADD COLUMN fechamulta DATE;
+
+-- Búsqueda de préstamos vencidos por rango de fecha de devolución, recorrida por
+-- (fechadevolucion, id) tanto en la revisión como en el listado de vencidos.
+CREATE INDEX idx_prestamos_devolucion ON prestamos (fechadevolucion, id);